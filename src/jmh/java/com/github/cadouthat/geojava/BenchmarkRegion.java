@@ -0,0 +1,27 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * Parts of the globe with different handling costs, around which benchmark shapes are generated
+ */
+public enum BenchmarkRegion {
+    MID_LATITUDE(40, -100),
+    NEAR_POLE(80, 30),
+    ANTIMERIDIAN(0, 180);
+
+    final double centreLat;
+    final double centreLon;
+
+    BenchmarkRegion(double centreLat, double centreLon) {
+        this.centreLat = centreLat;
+        this.centreLon = centreLon;
+    }
+
+    /**
+     * @return point at the given angle and distance from the centre, in degrees of latitude
+     */
+    GeoPoint offset(double angle, double radius) {
+        double lat = centreLat + radius * Math.sin(angle);
+        double lon = centreLon + radius * Math.cos(angle) / Math.cos(Math.toRadians(lat));
+        return new GeoPoint(lat, lon);
+    }
+}
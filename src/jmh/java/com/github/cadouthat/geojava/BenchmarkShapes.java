@@ -0,0 +1,46 @@
+package com.github.cadouthat.geojava;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated polygons and query points shared by the benchmarks
+ */
+final class BenchmarkShapes {
+
+    /**
+     * Radius of generated polygons in degrees of latitude
+     */
+    static final double RADIUS = 5;
+
+    private BenchmarkShapes() {
+    }
+
+    /**
+     * @return regular polygon approximating a circle around the region's centre
+     */
+    static GeoPolygon polygon(BenchmarkRegion region, int vertexCount) {
+        List<GeoPoint> vertices = new ArrayList<>(vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            vertices.add(region.offset(2 * Math.PI * i / vertexCount, RADIUS));
+        }
+        return new GeoPolygon(vertices);
+    }
+
+    /**
+     * @return points around the region's centre, where the given fraction lie well inside polygons from
+     * {@link #polygon(BenchmarkRegion, int)} and the rest lie well outside
+     */
+    static GeoPoint[] points(BenchmarkRegion region, int count, double hitRatio, Random random) {
+        GeoPoint[] points = new GeoPoint[count];
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * random.nextDouble();
+            double radius = (random.nextDouble() < hitRatio) ?
+                    0.5 * RADIUS * random.nextDouble() :
+                    RADIUS * (1.5 + random.nextDouble());
+            points[i] = region.offset(angle, radius);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.cadouthat.geojava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arc length and intersection, for pairs of arcs of which roughly half intersect
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoArcBenchmark {
+
+    static final int ARCS = 1024;
+
+    @Param({"MID_LATITUDE", "NEAR_POLE", "ANTIMERIDIAN"})
+    BenchmarkRegion region;
+
+    GeoArc[] arcs;
+    GeoArc[] others;
+    final MutableGeoPoint result = new MutableGeoPoint();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(2);
+        GeoPoint[] starts = BenchmarkShapes.points(region, ARCS, 0.5, random);
+        GeoPoint[] ends = BenchmarkShapes.points(region, ARCS, 0.5, random);
+        GeoPoint[] otherStarts = BenchmarkShapes.points(region, ARCS, 0.5, random);
+        GeoPoint[] otherEnds = BenchmarkShapes.points(region, ARCS, 0.5, random);
+        arcs = new GeoArc[ARCS];
+        others = new GeoArc[ARCS];
+        for (int i = 0; i < ARCS; i++) {
+            arcs[i] = new GeoArc(starts[i], ends[i]);
+            others[i] = new GeoArc(otherStarts[i], otherEnds[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCS)
+    public void length(Blackhole blackhole) {
+        for (GeoArc arc : arcs) {
+            blackhole.consume(arc.length());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCS)
+    public void lengthFast(Blackhole blackhole) {
+        for (GeoArc arc : arcs) {
+            blackhole.consume(arc.length(DistanceMode.FAST));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCS)
+    public void comparableLength(Blackhole blackhole) {
+        for (GeoArc arc : arcs) {
+            blackhole.consume(arc.comparableLength());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCS)
+    public void intersect(Blackhole blackhole) {
+        for (int i = 0; i < ARCS; i++) {
+            blackhole.consume(arcs[i].intersect(others[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCS)
+    public void intersectInto(Blackhole blackhole) {
+        for (int i = 0; i < ARCS; i++) {
+            blackhole.consume(arcs[i].intersect(others[i], result));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.cadouthat.geojava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction and normalization of points
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoPointBenchmark {
+
+    static final int POINTS = 1024;
+
+    @Param({"MID_LATITUDE", "NEAR_POLE", "ANTIMERIDIAN"})
+    BenchmarkRegion region;
+
+    /**
+     * Whether coordinates are outside the normal ranges and must be wrapped
+     */
+    @Param({"false", "true"})
+    boolean outOfRange;
+
+    double[] lats;
+    double[] lons;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        GeoPoint[] points = BenchmarkShapes.points(region, POINTS, 0.5, random);
+        lats = new double[POINTS];
+        lons = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            lats[i] = points[i].getLatDegrees();
+            lons[i] = points[i].getLonDegrees();
+            if (outOfRange) {
+                // Equivalent coordinates across the pole and several turns of longitude away
+                lats[i] = 180 - lats[i];
+                lons[i] += 180 + 360 * (random.nextInt(5) - 2);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void construct(Blackhole blackhole) {
+        for (int i = 0; i < POINTS; i++) {
+            blackhole.consume(new GeoPoint(lats[i], lons[i]));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.cadouthat.geojava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Containment tests through the original polygon, a prepared polygon one point at a time, and a prepared polygon
+ * in batches
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoPolygonBenchmark {
+
+    static final int POINTS = 1024;
+
+    @Param({"4", "100", "10000", "500000"})
+    int vertexCount;
+
+    /**
+     * Fraction of query points inside the polygon
+     */
+    @Param({"0.0", "0.5", "1.0"})
+    double hitRatio;
+
+    @Param({"MID_LATITUDE", "NEAR_POLE", "ANTIMERIDIAN"})
+    BenchmarkRegion region;
+
+    GeoPolygon polygon;
+    PreparedGeoPolygon prepared;
+    PreparedGeoPolygon crossingCount;
+
+    GeoPoint[] points;
+    double[] lats;
+    double[] lons;
+    final boolean[] out = new boolean[POINTS];
+
+    @Setup
+    public void setup() {
+        polygon = BenchmarkShapes.polygon(region, vertexCount);
+        prepared = polygon.prepare();
+        crossingCount = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT);
+
+        points = BenchmarkShapes.points(region, POINTS, hitRatio, new Random(3));
+        lats = new double[POINTS];
+        lons = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            lats[i] = points[i].getLatDegrees();
+            lons[i] = points[i].getLonDegrees();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void polygonContains(Blackhole blackhole) {
+        for (GeoPoint point : points) {
+            blackhole.consume(polygon.contains(point));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void preparedContains(Blackhole blackhole) {
+        for (GeoPoint point : points) {
+            blackhole.consume(prepared.contains(point));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void crossingCountContains(Blackhole blackhole) {
+        for (GeoPoint point : points) {
+            blackhole.consume(crossingCount.contains(point));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public boolean[] preparedContainsAll() {
+        prepared.containsAll(lats, lons, 0, POINTS, out);
+        return out;
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * How a {@link PreparedGeoPolygon} counts where the test arc from a point meets the perimeter
+ */
+public enum ContainmentMode {
+
+    /**
+     * Construct each intersection point and de-duplicate those closer than
+     * {@link GeoPolygon#UNIQUE_INTERSECTION_DIST}, the same as {@link GeoPolygon#contains(GeoPoint)}
+     */
+    INTERSECTION_POINTS,
+
+    /**
+     * Count edges which cross the test arc using only the signs of triple products. Vertices lying exactly on
+     * the test arc are always treated as being on its left, so an arc through a vertex is counted once or not
+     * at all, and no intersection points or tolerances are needed.
+     */
+    CROSSING_COUNT
+}
@@ -0,0 +1,30 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * How {@link GeoArc#length(DistanceMode)} trades accuracy for speed
+ */
+public enum DistanceMode {
+
+    /**
+     * Haversine formula, the same as {@link GeoArc#length()}
+     */
+    HAVERSINE,
+
+    /**
+     * Equirectangular approximation for arcs spanning at most {@link #FAST_MAX_DELTA} radians of latitude and of
+     * longitude, which needs a single cosine and no inverse trig, with relative error at most
+     * {@link #FAST_MAX_ERROR}. Longer arcs use the haversine formula.
+     */
+    FAST;
+
+    /**
+     * Largest change in latitude or longitude in radians (about 64km of latitude) which {@link #FAST}
+     * approximates
+     */
+    public static final double FAST_MAX_DELTA = 0.01;
+
+    /**
+     * Largest relative error of {@link #FAST} compared to {@link #HAVERSINE}
+     */
+    public static final double FAST_MAX_ERROR = 1e-4;
+}
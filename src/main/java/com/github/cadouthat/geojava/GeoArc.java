@@ -1,6 +1,6 @@
 package com.github.cadouthat.geojava;
 
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import com.github.cadouthat.geojava.GeoMetricsListener.IntersectionOutcome;
 
 /**
  * Represents the shortest path between two points on a great circle on Earth's surface
@@ -14,11 +14,11 @@ public class GeoArc {
     /**
      * Starting point of the arc
      */
-    GeoPoint pointA;
+    final GeoPoint pointA;
     /**
      * Ending point of the arc
      */
-    GeoPoint pointB;
+    final GeoPoint pointB;
 
     /**
      * Construct directly from start and end point
@@ -34,21 +34,85 @@ public class GeoArc {
      * @return distance in metres
      */
     public double length() {
-        double dLat = pointB.lat - pointA.lat;
-        double dLon = pointB.lon - pointA.lon;
+        return GeoVectors.distance(pointA.lat, pointA.lon, pointB.lat, pointB.lon);
+    }
 
-        double sinHaLat = Math.sin(dLat / 2);
-        double sinHaLon = Math.sin(dLon / 2);
+    /**
+     * Calculates the length of the arc using the given mode, see {@link DistanceMode}
+     *
+     * @return distance in metres
+     */
+    public double length(DistanceMode mode) {
+        return GeoVectors.distance(pointA.lat, pointA.lon, pointB.lat, pointB.lon, mode);
+    }
 
-        double h = sinHaLat * sinHaLat +
-                Math.cos(pointA.lat) * Math.cos(pointB.lat) * sinHaLon * sinHaLon;
+    /**
+     * Cheaper substitute for {@link #length()} when arcs only need to be ranked, such as to find the nearest of
+     * several candidates. Skips the inverse sine of the haversine formula, and increases with length.
+     *
+     * @return value in [0, 1] which orders arcs the same as their lengths, see {@link #toComparableLength}
+     */
+    public double comparableLength() {
+        return GeoVectors.haversineTerm(pointA.lat, pointA.lon, Math.cos(pointA.lat),
+                pointB.lat, pointB.lon, Math.cos(pointB.lat));
+    }
 
-        // Clamp rounding errors to real range
-        if (h > 1) h = 1;
-        if (h < 0) h = 0;
+    /**
+     * Convert a distance to the scale of {@link #comparableLength()}, such as to compare arcs against a radius
+     *
+     * @param metres distance in metres
+     */
+    public static double toComparableLength(double metres) {
+        double angle = Math.max(0, Math.min(metres / EARTH_RADIUS_METRES, Math.PI));
+        double sinHalf = Math.sin(angle / 2);
+        return sinHalf * sinHalf;
+    }
+
+    /**
+     * Convert a value of {@link #comparableLength()} back to a distance
+     *
+     * @return distance in metres
+     */
+    public static double fromComparableLength(double comparable) {
+        return GeoVectors.haversineToMetres(Math.max(0, Math.min(comparable, 1)));
+    }
+
+    /**
+     * Calculates the distance from a point to the nearest point of the arc, which is either an endpoint or the
+     * foot of the perpendicular from the point to the arc's great circle
+     *
+     * @return distance in metres
+     */
+    public double distanceTo(GeoPoint p) {
+        return EARTH_RADIUS_METRES * GeoVectors.angleToArc(
+                GeoVectors.x(p.lat, p.lon), GeoVectors.y(p.lat, p.lon), GeoVectors.z(p.lat),
+                GeoVectors.x(pointA.lat, pointA.lon), GeoVectors.y(pointA.lat, pointA.lon), GeoVectors.z(pointA.lat),
+                GeoVectors.x(pointB.lat, pointB.lon), GeoVectors.y(pointB.lat, pointB.lon), GeoVectors.z(pointB.lat));
+    }
 
-        double theta = Math.asin(Math.sqrt(h));
-        return EARTH_RADIUS_METRES * 2 * theta;
+    /**
+     * Calculates the cross-track distance from a point to the great circle through this arc, regardless of
+     * where along the circle the point lies
+     *
+     * @return distance in metres, positive to the left of the direction from point A to point B and negative to
+     * the right, or NaN if the arc has no unique great circle
+     */
+    public double crossTrackDistance(GeoPoint p) {
+        double ax = GeoVectors.x(pointA.lat, pointA.lon);
+        double ay = GeoVectors.y(pointA.lat, pointA.lon);
+        double az = GeoVectors.z(pointA.lat);
+        double bx = GeoVectors.x(pointB.lat, pointB.lon);
+        double by = GeoVectors.y(pointB.lat, pointB.lon);
+        double bz = GeoVectors.z(pointB.lat);
+        double nx = ay * bz - az * by;
+        double ny = az * bx - ax * bz;
+        double nz = ax * by - ay * bx;
+        double nLen = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (nLen == 0) return Double.NaN;
+
+        double sinAngle = GeoVectors.dot(nx, ny, nz,
+                GeoVectors.x(p.lat, p.lon), GeoVectors.y(p.lat, p.lon), GeoVectors.z(p.lat)) / nLen;
+        return EARTH_RADIUS_METRES * Math.asin(Math.max(-1, Math.min(1, sinAngle)));
     }
 
     /**
@@ -56,61 +120,134 @@ public class GeoArc {
      */
     public boolean contains(GeoPoint p) {
         // Get the arc length between the point and each endpoint
-        double lenFromA = new GeoArc(pointA, p).length();
-        double lenFromB = new GeoArc(pointB, p).length();
+        double lenFromA = GeoVectors.distance(pointA.lat, pointA.lon, p.lat, p.lon);
+        double lenFromB = GeoVectors.distance(pointB.lat, pointB.lon, p.lat, p.lon);
         // If the point is on the arc, these lengths should sum to the total length
         double sum = this.length() - lenFromA - lenFromB;
         return Math.abs(sum) < TOLERANCE;
     }
 
+    /**
+     * Faster alternative to {@link #contains(GeoPoint)} for a point already on the same great circle, using sign
+     * tests on cartesian vectors instead of comparing arc lengths
+     */
+    public boolean fastContains(GeoPoint p) {
+        double ax = GeoVectors.x(pointA.lat, pointA.lon);
+        double ay = GeoVectors.y(pointA.lat, pointA.lon);
+        double az = GeoVectors.z(pointA.lat);
+        double bx = GeoVectors.x(pointB.lat, pointB.lon);
+        double by = GeoVectors.y(pointB.lat, pointB.lon);
+        double bz = GeoVectors.z(pointB.lat);
+        if (GeoVectors.isShort(ax, ay, az, bx, by, bz)) return contains(p);
+
+        double nx = ay * bz - az * by;
+        double ny = az * bx - ax * bz;
+        double nz = ax * by - ay * bx;
+        double nLenSq = GeoVectors.dot(nx, ny, nz, nx, ny, nz);
+        // Antipodal endpoints have no unique arc
+        if (nLenSq <= 0) return contains(p);
+        double nScale = 1 / Math.sqrt(nLenSq);
+
+        return GeoVectors.onArcFast(ax, ay, az, bx, by, bz, nx * nScale, ny * nScale, nz * nScale,
+                GeoVectors.x(p.lat, p.lon), GeoVectors.y(p.lat, p.lon), GeoVectors.z(p.lat));
+    }
+
     /**
      * Determine point of intersection with another arc
      *
      * @return point of intersection, or null if there is no unique intersection
      */
     public GeoPoint intersect(GeoArc arcB) {
-        GeoArc arcA = this;
+        MutableGeoPoint result = new MutableGeoPoint();
+        return intersect(arcB, result) ? result.toGeoPoint() : null;
+    }
 
-        // If either arc is zero-length, no solution exists
-        if (arcA.length() < TOLERANCE) return null;
-        if (arcB.length() < TOLERANCE) return null;
+    /**
+     * Determine point of intersection with another arc, without allocating
+     *
+     * @param result receives the point of intersection, if any
+     * @return true if there is a unique intersection, otherwise result is left unchanged
+     */
+    public boolean intersect(GeoArc arcB, MutableGeoPoint result) {
+        GeoMetricsListener listener = GeoMetrics.listener;
+        if (listener == null) return findIntersection(arcB, result) == IntersectionOutcome.FOUND;
+
+        long start = System.nanoTime();
+        IntersectionOutcome outcome = findIntersection(arcB, result);
+        listener.intersectionTested(outcome, System.nanoTime() - start);
+        return outcome == IntersectionOutcome.FOUND;
+    }
+
+    private IntersectionOutcome findIntersection(GeoArc arcB, MutableGeoPoint result) {
+        GeoArc arcA = this;
 
         // Convert points to cartesian
-        Vector3D p1 = arcA.pointA.toCartesian();
-        Vector3D p2 = arcA.pointB.toCartesian();
-        Vector3D p3 = arcB.pointA.toCartesian();
-        Vector3D p4 = arcB.pointB.toCartesian();
+        double p1x = GeoVectors.x(arcA.pointA.lat, arcA.pointA.lon);
+        double p1y = GeoVectors.y(arcA.pointA.lat, arcA.pointA.lon);
+        double p1z = GeoVectors.z(arcA.pointA.lat);
+        double p2x = GeoVectors.x(arcA.pointB.lat, arcA.pointB.lon);
+        double p2y = GeoVectors.y(arcA.pointB.lat, arcA.pointB.lon);
+        double p2z = GeoVectors.z(arcA.pointB.lat);
+        double p3x = GeoVectors.x(arcB.pointA.lat, arcB.pointA.lon);
+        double p3y = GeoVectors.y(arcB.pointA.lat, arcB.pointA.lon);
+        double p3z = GeoVectors.z(arcB.pointA.lat);
+        double p4x = GeoVectors.x(arcB.pointB.lat, arcB.pointB.lon);
+        double p4y = GeoVectors.y(arcB.pointB.lat, arcB.pointB.lon);
+        double p4z = GeoVectors.z(arcB.pointB.lat);
+
+        // If either arc is zero-length, no solution exists
+        if (GeoVectors.isShort(p1x, p1y, p1z, p2x, p2y, p2z)) return IntersectionOutcome.DEGENERATE_ARC;
+        if (GeoVectors.isShort(p3x, p3y, p3z, p4x, p4y, p4z)) return IntersectionOutcome.DEGENERATE_ARC;
 
         // Determine planes on which arcs lie
-        Vector3D vA = Vector3D.crossProduct(p1, p2);
-        Vector3D vB = Vector3D.crossProduct(p3, p4);
+        double vAx = p1y * p2z - p1z * p2y;
+        double vAy = p1z * p2x - p1x * p2z;
+        double vAz = p1x * p2y - p1y * p2x;
+        double vBx = p3y * p4z - p3z * p4y;
+        double vBy = p3z * p4x - p3x * p4z;
+        double vBz = p3x * p4y - p3y * p4x;
 
         // Zero vector indicates antipodal points, which have no solution
-        if (vA.getNormSq() <= 0) return null;
-        if (vB.getNormSq() <= 0) return null;
+        double vALenSq = GeoVectors.dot(vAx, vAy, vAz, vAx, vAy, vAz);
+        double vBLenSq = GeoVectors.dot(vBx, vBy, vBz, vBx, vBy, vBz);
+        if (vALenSq <= 0) return IntersectionOutcome.ANTIPODAL;
+        if (vBLenSq <= 0) return IntersectionOutcome.ANTIPODAL;
+        double vAScale = 1 / Math.sqrt(vALenSq);
+        double vBScale = 1 / Math.sqrt(vBLenSq);
+        vAx *= vAScale;
+        vAy *= vAScale;
+        vAz *= vAScale;
+        vBx *= vBScale;
+        vBy *= vBScale;
+        vBz *= vBScale;
 
         // Determine line where planes intersect (which lies between points of circle intersection)
-        Vector3D v = Vector3D.crossProduct(vA.normalize(), vB.normalize());
-        double vLenSq = v.getNormSq();
+        double vx = vAy * vBz - vAz * vBy;
+        double vy = vAz * vBx - vAx * vBz;
+        double vz = vAx * vBy - vAy * vBx;
+        double vLenSq = GeoVectors.dot(vx, vy, vz, vx, vy, vz);
 
         // Zero vector indicates arcs on the same plane, which would have infinite solutions
-        if (vLenSq <= 0) return null;
+        if (vLenSq <= 0) return IntersectionOutcome.COPLANAR;
 
         // Normalize to unit length, which will result in a point on the sphere surface
-        v = v.scalarMultiply(1 / Math.sqrt(vLenSq));
-
-        // Convert the intersection points from cartesian to GeoPoint
-        GeoPoint s1 = new GeoPoint(v);
-        GeoPoint s2 = new GeoPoint(v.negate());
-
-        // If one of the points lies on both arcs, it is the solution
-        if (arcA.contains(s1) && arcB.contains(s1)) {
-            return s1;
+        double vScale = 1 / Math.sqrt(vLenSq);
+        vx *= vScale;
+        vy *= vScale;
+        vz *= vScale;
+
+        // If one of the two candidate points lies on both arcs, it is the solution
+        if (GeoVectors.onArcFast(p1x, p1y, p1z, p2x, p2y, p2z, vAx, vAy, vAz, vx, vy, vz) &&
+                GeoVectors.onArcFast(p3x, p3y, p3z, p4x, p4y, p4z, vBx, vBy, vBz, vx, vy, vz)) {
+            result.setCartesian(vx, vy, vz);
+            return IntersectionOutcome.FOUND;
         }
-        if (arcA.contains(s2) && arcB.contains(s2)) {
-            return s2;
+        if (GeoVectors.onArcFast(p1x, p1y, p1z, p2x, p2y, p2z, vAx, vAy, vAz, -vx, -vy, -vz) &&
+                GeoVectors.onArcFast(p3x, p3y, p3z, p4x, p4y, p4z, vBx, vBy, vBz, -vx, -vy, -vz)) {
+            result.setCartesian(-vx, -vy, -vz);
+            return IntersectionOutcome.FOUND;
         }
 
-        return null;
+        return IntersectionOutcome.NONE;
     }
 }
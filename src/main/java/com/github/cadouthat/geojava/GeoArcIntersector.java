@@ -0,0 +1,430 @@
+package com.github.cadouthat.geojava;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds every crossing among a set of arcs without testing every pair. Arcs are placed in a grid of
+ * latitude/longitude cells by their bounds, with the cell size chosen from the arcs' average extent, so that
+ * only arcs sharing a cell are tested against each other. Each crossing is reported by the one cell containing
+ * it. For arcs spread along a boundary this takes O(n log n) time to sort the cell entries, plus time in
+ * proportion to the number of crossings.
+ * <p>
+ * Crossings are found with exact sign tests at points interior to both arcs, so arcs which only touch, such as
+ * at a shared endpoint, and arcs which overlap along the same great circle, do not cross.
+ */
+public final class GeoArcIntersector {
+
+    /**
+     * Arcs whose bounds cover more cells than this are tested against every other arc instead
+     */
+    static final int MAX_CELLS_PER_ARC = 1024;
+
+    /**
+     * Largest cell size in radians
+     */
+    static final double MAX_CELL = Math.PI / 2;
+
+    /**
+     * A crossing between two arcs, identified by their positions in the list searched
+     */
+    public static final class Crossing {
+
+        final int first;
+        final int second;
+        final GeoPoint point;
+
+        Crossing(int first, int second, GeoPoint point) {
+            this.first = first;
+            this.second = second;
+            this.point = point;
+        }
+
+        /**
+         * @return position of the first arc, which is always less than that of the second
+         */
+        public int getFirst() {
+            return first;
+        }
+
+        public int getSecond() {
+            return second;
+        }
+
+        public GeoPoint getPoint() {
+            return point;
+        }
+
+        /**
+         * @return positions and crossing point
+         */
+        public String toString() {
+            return first + " x " + second + " at " + point;
+        }
+    }
+
+    /**
+     * Endpoints of each arc as unit vectors, the arc running from a to b
+     */
+    final double[] ax;
+    final double[] ay;
+    final double[] az;
+    final double[] bx;
+    final double[] by;
+    final double[] bz;
+
+    /**
+     * Whether the arcs are the edges of a ring, in which case arcs i and i - 1 (wrapping around) share an
+     * endpoint and are never tested against each other
+     */
+    final boolean ring;
+
+    /**
+     * If positive, arcs before this position are only tested against arcs from this position on, such as to
+     * compare the edges of two polygons
+     */
+    final int split;
+
+    final int count;
+
+    final GeoBounds[] bounds;
+
+    double cellRadians;
+    int rows;
+    long cols;
+
+    /**
+     * Number of low bits of each cell entry holding the arc's position, the cell is held in the bits above
+     */
+    final int arcBits;
+
+    final List<Crossing> found = new ArrayList<>();
+
+    /**
+     * Stop once this many crossings have been found
+     */
+    int limit = Integer.MAX_VALUE;
+
+    /**
+     * @param bounds bounds of each arc, or null to compute them
+     */
+    GeoArcIntersector(double[] ax, double[] ay, double[] az, double[] bx, double[] by, double[] bz,
+                      GeoBounds[] bounds, boolean ring, int split) {
+        this.ax = ax;
+        this.ay = ay;
+        this.az = az;
+        this.bx = bx;
+        this.by = by;
+        this.bz = bz;
+        this.ring = ring;
+        this.split = split;
+        count = ax.length;
+        arcBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, count - 1));
+        if (bounds == null) {
+            bounds = new GeoBounds[count];
+            for (int i = 0; i < count; i++) {
+                bounds[i] = arcBounds(ax[i], ay[i], az[i], bx[i], by[i], bz[i]);
+            }
+        }
+        this.bounds = bounds;
+    }
+
+    static GeoBounds arcBounds(double ax, double ay, double az, double bx, double by, double bz) {
+        return GeoBounds.ofArc(GeoVectors.lat(ax, ay, az), GeoVectors.lon(ax, ay), ax, ay, az,
+                GeoVectors.lat(bx, by, bz), GeoVectors.lon(bx, by), bx, by, bz);
+    }
+
+    /**
+     * @return every crossing between two of the given arcs, ordered by the positions of the arcs
+     */
+    public static List<Crossing> findCrossings(List<GeoArc> arcs) {
+        int n = arcs.size();
+        double[][] a = new double[3][n];
+        double[][] b = new double[3][n];
+        for (int i = 0; i < n; i++) {
+            GeoArc arc = arcs.get(i);
+            a[0][i] = GeoVectors.x(arc.pointA.lat, arc.pointA.lon);
+            a[1][i] = GeoVectors.y(arc.pointA.lat, arc.pointA.lon);
+            a[2][i] = GeoVectors.z(arc.pointA.lat);
+            b[0][i] = GeoVectors.x(arc.pointB.lat, arc.pointB.lon);
+            b[1][i] = GeoVectors.y(arc.pointB.lat, arc.pointB.lon);
+            b[2][i] = GeoVectors.z(arc.pointB.lat);
+        }
+        return new GeoArcIntersector(a[0], a[1], a[2], b[0], b[1], b[2], null, false, 0).run();
+    }
+
+    /**
+     * Find crossings between edges of a ring of vertices, where edge i runs from vertex i to vertex i - 1
+     *
+     * @param limit stop once this many crossings have been found
+     */
+    static List<Crossing> findRingCrossings(List<GeoPoint> vertices, int limit) {
+        int n = vertices.size();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        for (int i = 0; i < n; i++) {
+            GeoPoint vertex = vertices.get(i);
+            x[i] = GeoVectors.x(vertex.lat, vertex.lon);
+            y[i] = GeoVectors.y(vertex.lat, vertex.lon);
+            z[i] = GeoVectors.z(vertex.lat);
+        }
+        double[] px = new double[n];
+        double[] py = new double[n];
+        double[] pz = new double[n];
+        for (int i = 0; i < n; i++) {
+            int j = (i > 0) ? i - 1 : n - 1;
+            px[i] = x[j];
+            py[i] = y[j];
+            pz[i] = z[j];
+        }
+        GeoArcIntersector intersector = new GeoArcIntersector(x, y, z, px, py, pz, null, true, 0);
+        intersector.limit = limit;
+        return intersector.run();
+    }
+
+    /**
+     * @return true if an edge of one polygon crosses an edge of the other, considering only edges within the
+     * bounds of the other polygon's perimeter
+     */
+    static boolean perimetersCross(PreparedGeoPolygon a, PreparedGeoPolygon b) {
+        int[] aEdges = edgesWithin(a, b.bounds);
+        if (aEdges.length == 0) return false;
+        int[] bEdges = edgesWithin(b, a.bounds);
+        if (bEdges.length == 0) return false;
+
+        int n = aEdges.length + bEdges.length;
+        double[][] arcs = new double[6][n];
+        GeoBounds[] bounds = new GeoBounds[n];
+        copyEdges(a, aEdges, arcs, bounds, 0);
+        copyEdges(b, bEdges, arcs, bounds, aEdges.length);
+        GeoArcIntersector intersector = new GeoArcIntersector(arcs[0], arcs[1], arcs[2], arcs[3], arcs[4], arcs[5],
+                bounds, false, aEdges.length);
+        intersector.limit = 1;
+        return !intersector.run().isEmpty();
+    }
+
+    /**
+     * Find edges of a polygon whose bounds meet the given bounds. Only edges in the longitude bands of the
+     * polygon's edge index which overlap the bounds are considered, if it has one.
+     *
+     * @return positions of the edges found, in ascending order
+     */
+    static int[] edgesWithin(PreparedGeoPolygon polygon, GeoBounds region) {
+        GeoBounds[] edgeBounds = polygon.edgeBounds();
+        GeoEdgeIndex edgeIndex = polygon.edgeIndex;
+        int first = -1;
+        int last = -1;
+        if (edgeIndex != null && region.lonSpan < Math.PI) {
+            first = edgeIndex.band(region.west);
+            last = edgeIndex.band(GeoBounds.normalizeLon(region.west + region.lonSpan));
+        }
+
+        int[] edges = new int[16];
+        int found = 0;
+        if (first < 0 && last < 0) {
+            for (int i = 0; i < polygon.edgeCount; i++) {
+                if (!edgeBounds[i].intersects(region)) continue;
+                if (found == edges.length) edges = Arrays.copyOf(edges, 2 * found);
+                edges[found++] = i;
+            }
+            return Arrays.copyOf(edges, found);
+        }
+        if (first < 0) first = 0;
+        if (last < 0) last = edgeIndex.bandCount - 1;
+
+        int range = Math.floorMod(last - first, edgeIndex.bandCount);
+        for (int b = first; ; b = (b + 1) % edgeIndex.bandCount) {
+            for (int k = edgeIndex.bandStart[b]; k < edgeIndex.bandStart[b + 1]; k++) {
+                // Take each edge from the first band of the range which lists it
+                int i = edgeIndex.bandEdges[k];
+                int edgeFirst = edgeIndex.edgeFirstBand[i];
+                boolean firstListed = (b == first) ?
+                        Math.floorMod(edgeFirst - first, edgeIndex.bandCount) > range || edgeFirst == first :
+                        edgeFirst == b;
+                if (!firstListed || !edgeBounds[i].intersects(region)) continue;
+                if (found == edges.length) edges = Arrays.copyOf(edges, 2 * found);
+                edges[found++] = i;
+            }
+            if (b == last) break;
+        }
+        edges = Arrays.copyOf(edges, found);
+        Arrays.sort(edges);
+        return edges;
+    }
+
+    /**
+     * Write the endpoints ax, ay, az, bx, by, bz and bounds of the given edges from the given offset
+     */
+    private static void copyEdges(PreparedGeoPolygon polygon, int[] edges, double[][] arcs, GeoBounds[] bounds,
+                                  int offset) {
+        GeoBounds[] edgeBounds = polygon.edgeBounds();
+        for (int k = 0; k < edges.length; k++) {
+            int i = edges[k];
+            int j = (i > 0) ? i - 1 : polygon.edgeCount - 1;
+            arcs[0][offset + k] = polygon.x[i];
+            arcs[1][offset + k] = polygon.y[i];
+            arcs[2][offset + k] = polygon.z[i];
+            arcs[3][offset + k] = polygon.x[j];
+            arcs[4][offset + k] = polygon.y[j];
+            arcs[5][offset + k] = polygon.z[j];
+            bounds[offset + k] = edgeBounds[i];
+        }
+    }
+
+    List<Crossing> run() {
+        chooseCells();
+
+        // Entries of cell << arcBits | arc, sorted so that the arcs in each cell are adjacent
+        long[] entries = new long[count];
+        int entryCount = 0;
+        int[] oversized = new int[0];
+        int oversizedCount = 0;
+        for (int i = 0; i < count; i++) {
+            GeoBounds b = bounds[i];
+            int firstRow = row(b.minLat);
+            int lastRow = row(b.maxLat);
+            long firstCol = col(b.west);
+            long colCount = colCount(b);
+            if ((lastRow - firstRow + 1) * colCount > MAX_CELLS_PER_ARC) {
+                if (oversizedCount == oversized.length) oversized = Arrays.copyOf(oversized, 2 * oversizedCount + 4);
+                oversized[oversizedCount++] = i;
+                continue;
+            }
+            for (int r = firstRow; r <= lastRow; r++) {
+                for (long c = 0; c < colCount; c++) {
+                    if (entryCount == entries.length) entries = Arrays.copyOf(entries, Math.max(16, 2 * entryCount));
+                    entries[entryCount++] = (cell(r, (firstCol + c) % cols) << arcBits) | i;
+                }
+            }
+        }
+        Arrays.sort(entries, 0, entryCount);
+        long arcMask = (1L << arcBits) - 1;
+
+        for (int start = 0; start < entryCount && found.size() < limit; ) {
+            long cell = entries[start] >>> arcBits;
+            int end = start + 1;
+            while (end < entryCount && entries[end] >>> arcBits == cell) end++;
+            for (int p = start; p < end; p++) {
+                for (int q = p + 1; q < end; q++) {
+                    test((int)(entries[p] & arcMask), (int)(entries[q] & arcMask), cell);
+                }
+            }
+            start = end;
+        }
+
+        // Arcs too large for the grid, against each other and against every arc which is not
+        boolean[] isOversized = new boolean[count];
+        for (int k = 0; k < oversizedCount; k++) {
+            isOversized[oversized[k]] = true;
+        }
+        for (int k = 0; k < oversizedCount && found.size() < limit; k++) {
+            int i = oversized[k];
+            for (int j = 0; j < count; j++) {
+                if (j != i && (!isOversized[j] || j > i)) test(i, j, -1);
+            }
+        }
+
+        List<Crossing> result = (found.size() > limit) ? found.subList(0, limit) : found;
+        Collections.sort(result, new Comparator<Crossing>() {
+            @Override
+            public int compare(Crossing c1, Crossing c2) {
+                if (c1.first != c2.first) return Integer.compare(c1.first, c2.first);
+                return Integer.compare(c1.second, c2.second);
+            }
+        });
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Choose a cell size about twice the average extent of the arcs, so that most arcs cover few cells, but
+     * no smaller than leaves room for every cell number alongside the arc positions in a cell entry
+     */
+    void chooseCells() {
+        double total = 0;
+        int sized = 0;
+        for (GeoBounds b : bounds) {
+            if (b.isEmpty() || b.lonSpan >= GeoBounds.TWO_PI) continue;
+            total += Math.max(b.maxLat - b.minLat, b.lonSpan);
+            sized++;
+        }
+        cellRadians = (sized > 0) ? 2 * total / sized : MAX_CELL;
+        double minCell = Math.sqrt(GeoBounds.TWO_PI * Math.PI / (1L << (63 - arcBits))) * 1.01;
+        cellRadians = Math.max(minCell, Math.min(MAX_CELL, cellRadians));
+        rows = (int)Math.ceil(Math.PI / cellRadians);
+        cols = (long)Math.ceil(GeoBounds.TWO_PI / cellRadians);
+    }
+
+    int row(double lat) {
+        int row = (int)Math.floor((lat + GeoBounds.HALF_PI) / cellRadians);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    long col(double lon) {
+        long col = (long)Math.floor((lon + Math.PI) / cellRadians);
+        return Math.max(0, Math.min(cols - 1, col));
+    }
+
+    long cell(int row, long col) {
+        return row * cols + col;
+    }
+
+    /**
+     * @return number of columns spanned eastward from the western limit of the bounds, as in
+     * {@link GeoPolygonIndex}
+     */
+    long colCount(GeoBounds b) {
+        if (b.lonSpan >= GeoBounds.TWO_PI) return cols;
+        long first = col(b.west);
+        long last = col(GeoBounds.normalizeLon(b.west + b.lonSpan));
+        long colCount = last - first + 1;
+        if (colCount <= 0 || (colCount == 1 && b.lonSpan > Math.PI)) colCount += cols;
+        return Math.min(colCount, cols);
+    }
+
+    /**
+     * Test two arcs, recording their crossing if it lies in the given cell (or for any cell, if negative)
+     */
+    void test(int i, int j, long cell) {
+        if (split > 0 && (i < split) == (j < split)) return;
+        if (ring && (j == i - 1 || i == j - 1 || (i == 0 && j == count - 1) || (j == 0 && i == count - 1))) return;
+        if (!GeoVectors.arcsCross(ax[i], ay[i], az[i], bx[i], by[i], bz[i],
+                ax[j], ay[j], az[j], bx[j], by[j], bz[j])) {
+            return;
+        }
+        // Arcs with an endpoint in common only touch, even where rounding suggests otherwise
+        if (sharesEndpoint(i, j)) return;
+
+        // The crossing lies along the line where the arcs' planes meet, on the side of both arcs
+        double n1x = ay[i] * bz[i] - az[i] * by[i];
+        double n1y = az[i] * bx[i] - ax[i] * bz[i];
+        double n1z = ax[i] * by[i] - ay[i] * bx[i];
+        double n2x = ay[j] * bz[j] - az[j] * by[j];
+        double n2y = az[j] * bx[j] - ax[j] * bz[j];
+        double n2z = ax[j] * by[j] - ay[j] * bx[j];
+        double px = n1y * n2z - n1z * n2y;
+        double py = n1z * n2x - n1x * n2z;
+        double pz = n1x * n2y - n1y * n2x;
+        if (GeoVectors.dot(px, py, pz, ax[i] + bx[i], ay[i] + by[i], az[i] + bz[i]) < 0) {
+            px = -px;
+            py = -py;
+            pz = -pz;
+        }
+
+        GeoPoint point = new GeoPoint(px, py, pz);
+        if (cell >= 0 && cell(row(point.lat), col(point.lon)) != cell) return;
+        found.add(new Crossing(Math.min(i, j), Math.max(i, j), point));
+    }
+
+    boolean sharesEndpoint(int i, int j) {
+        return same(ax[i], ay[i], az[i], ax[j], ay[j], az[j]) || same(ax[i], ay[i], az[i], bx[j], by[j], bz[j]) ||
+                same(bx[i], by[i], bz[i], ax[j], ay[j], az[j]) || same(bx[i], by[i], bz[i], bx[j], by[j], bz[j]);
+    }
+
+    static boolean same(double ax, double ay, double az, double bx, double by, double bz) {
+        return ax == bx && ay == by && az == bz;
+    }
+}
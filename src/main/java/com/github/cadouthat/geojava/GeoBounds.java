@@ -0,0 +1,324 @@
+package com.github.cadouthat.geojava;
+
+import java.util.List;
+
+/**
+ * Represents a latitude/longitude rectangle on Earth's surface, which may wrap across the 180th meridian
+ */
+public class GeoBounds {
+
+    static final double TWO_PI = Math.PI * 2;
+    static final double HALF_PI = Math.PI / 2;
+
+    /**
+     * Padding applied to computed latitude limits, in radians (about 6m)
+     */
+    static final double LAT_MARGIN = 1e-6;
+
+    /**
+     * Padding applied to computed longitude limits, in radians
+     */
+    static final double LON_MARGIN = 1e-5;
+
+    /**
+     * Computed bounds reaching within this angle of a pole (in radians, about 6km) span all longitudes, since
+     * small distances there correspond to large differences in longitude
+     */
+    static final double POLAR_MARGIN = 1e-3;
+
+    /**
+     * Upper bound on the angle between a level 0 {@link GeoCell} centre and points of the cell, see {@link #ofCell}
+     */
+    static final double CELL_RADIUS = Math.PI / 2 * Math.sqrt(2);
+
+    /**
+     * Bounds which contain nothing
+     */
+    static final GeoBounds EMPTY = new GeoBounds(1, -1, 0, 0);
+
+    /**
+     * Latitude limits in radians
+     */
+    final double minLat;
+    final double maxLat;
+
+    /**
+     * Western longitude limit in radians, in the range (-PI, PI]
+     */
+    final double west;
+
+    /**
+     * Eastward extent from the western limit in radians, TWO_PI covers all longitudes
+     */
+    final double lonSpan;
+
+    /**
+     * Construct from limits in radians, with the western limit in (-PI, PI]
+     */
+    GeoBounds(double minLat, double maxLat, double west, double lonSpan) {
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        if (lonSpan >= TWO_PI) {
+            this.west = -Math.PI;
+            this.lonSpan = TWO_PI;
+        }
+        else {
+            this.west = west;
+            this.lonSpan = lonSpan;
+        }
+    }
+
+    /**
+     * Construct from limits in degrees, extending east from the western to the eastern longitude (which may
+     * wrap across the 180th meridian). A longitude range of 360 degrees or more covers all longitudes.
+     */
+    public static GeoBounds ofDegrees(double minLatDegrees, double maxLatDegrees,
+                                      double westDegrees, double eastDegrees) {
+        double west = westDegrees / 180 * Math.PI;
+        double east = eastDegrees / 180 * Math.PI;
+        return new GeoBounds(
+                Math.max(minLatDegrees, -90) / 180 * Math.PI,
+                Math.min(maxLatDegrees, 90) / 180 * Math.PI,
+                normalizeLon(west),
+                (eastDegrees - westDegrees >= 360) ? TWO_PI : eastwardSpan(west, east));
+    }
+
+    /**
+     * @return longitude brought into the range (-PI, PI]
+     */
+    static double normalizeLon(double lon) {
+        lon = lon % TWO_PI;
+        if (lon > Math.PI) lon -= TWO_PI;
+        if (lon <= -Math.PI) lon += TWO_PI;
+        return lon;
+    }
+
+    /**
+     * @return angle in [0, TWO_PI) travelled eastward from one longitude to another
+     */
+    static double eastwardSpan(double fromLon, double toLon) {
+        double span = (toLon - fromLon) % TWO_PI;
+        if (span < 0) span += TWO_PI;
+        return span;
+    }
+
+    public boolean isEmpty() {
+        return minLat > maxLat;
+    }
+
+    public double getMinLatDegrees() {
+        return minLat / Math.PI * 180;
+    }
+
+    public double getMaxLatDegrees() {
+        return maxLat / Math.PI * 180;
+    }
+
+    public double getWestDegrees() {
+        return west / Math.PI * 180;
+    }
+
+    public double getEastDegrees() {
+        double east = west + lonSpan;
+        if (east > Math.PI) east -= TWO_PI;
+        return east / Math.PI * 180;
+    }
+
+    public boolean contains(GeoPoint point) {
+        return contains(point.lat, point.lon);
+    }
+
+    /**
+     * Containment test for normalized lat/lon in radians
+     */
+    boolean contains(double lat, double lon) {
+        return lat >= minLat && lat <= maxLat && containsLon(lon);
+    }
+
+    boolean containsLon(double lon) {
+        return lonSpan >= TWO_PI || eastwardSpan(west, lon) <= lonSpan;
+    }
+
+    /**
+     * @return true if any point lies within both bounds
+     */
+    public boolean intersects(GeoBounds other) {
+        if (isEmpty() || other.isEmpty()) return false;
+        if (minLat > other.maxLat || other.minLat > maxLat) return false;
+        return containsLon(other.west) || other.containsLon(west);
+    }
+
+    /**
+     * Conservative test of whether an even-odd test arc from the given point to the nearer pole could cross a
+     * ring with these bounds. Such an arc follows the point's meridian, so any crossing lies on that meridian
+     * between the point and the pole.
+     *
+     * @param polesSeparated whether the ring may separate the poles; otherwise an inside point is also enclosed
+     *                       towards the farther pole, so both latitude limits apply
+     */
+    boolean mayCross(double lat, double lon, boolean polesSeparated) {
+        if (!containsLon(lon)) return false;
+        if (!polesSeparated) return lat >= minLat && lat <= maxLat;
+
+        // The nearer pole is ambiguous close to the equator
+        if (lat > LAT_MARGIN) return lat <= maxLat;
+        if (lat < -LAT_MARGIN) return lat >= minLat;
+        return true;
+    }
+
+    /**
+     * Compute padded bounds of a closed ring of arcs, including the parts of arcs which bulge poleward of their
+     * endpoints
+     */
+    static GeoBounds ofRing(List<GeoPoint> vertices) {
+        int n = vertices.size();
+        if (n == 0) return EMPTY;
+
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        boolean allLongitudes = false;
+
+        // Longitude is accumulated around the ring without wrapping, the extremes of which give the range
+        double lon = vertices.get(n - 1).lon;
+        double minLon = lon;
+        double maxLon = lon;
+
+        for (int i = 0; i < n; i++) {
+            GeoPoint a = vertices.get((i > 0) ? i - 1 : n - 1);
+            GeoPoint b = vertices.get(i);
+
+            minLat = Math.min(minLat, b.lat);
+            maxLat = Math.max(maxLat, b.lat);
+
+            double dLon = lonDelta(a.lon, b.lon);
+            // An arc spanning half of the longitudes passes over a pole
+            if (Math.abs(dLon) >= Math.PI - LON_MARGIN) allLongitudes = true;
+            lon += dLon;
+            minLon = Math.min(minLon, lon);
+            maxLon = Math.max(maxLon, lon);
+
+            // Arcs may bulge poleward of their endpoints
+            double ax = GeoVectors.x(a.lat, a.lon), ay = GeoVectors.y(a.lat, a.lon), az = GeoVectors.z(a.lat);
+            double bx = GeoVectors.x(b.lat, b.lon), by = GeoVectors.y(b.lat, b.lon), bz = GeoVectors.z(b.lat);
+            maxLat = Math.max(maxLat, arcMaxLat(ax, ay, az, bx, by, bz));
+            minLat = Math.min(minLat, -arcMaxLat(ax, ay, -az, bx, by, -bz));
+        }
+
+        minLat = Math.max(minLat - LAT_MARGIN, -HALF_PI);
+        maxLat = Math.min(maxLat + LAT_MARGIN, HALF_PI);
+        if (minLat < -HALF_PI + POLAR_MARGIN || maxLat > HALF_PI - POLAR_MARGIN) allLongitudes = true;
+
+        double lonSpan = maxLon - minLon + 2 * LON_MARGIN;
+        if (allLongitudes || lonSpan >= TWO_PI) {
+            return new GeoBounds(minLat, maxLat, -Math.PI, TWO_PI);
+        }
+
+        return new GeoBounds(minLat, maxLat, normalizeLon(minLon - LON_MARGIN), lonSpan);
+    }
+
+    /**
+     * Compute padded bounds of the minor arc between two points in the same way as {@link #ofRing}, given each
+     * point as normalized lat/lon in radians and as a unit vector
+     */
+    static GeoBounds ofArc(double aLat, double aLon, double ax, double ay, double az,
+                           double bLat, double bLon, double bx, double by, double bz) {
+        double minLat = Math.min(Math.min(aLat, bLat), -arcMaxLat(ax, ay, -az, bx, by, -bz));
+        double maxLat = Math.max(Math.max(aLat, bLat), arcMaxLat(ax, ay, az, bx, by, bz));
+        minLat = Math.max(minLat - LAT_MARGIN, -HALF_PI);
+        maxLat = Math.min(maxLat + LAT_MARGIN, HALF_PI);
+
+        double dLon = lonDelta(aLon, bLon);
+        if (Math.abs(dLon) >= Math.PI - LON_MARGIN ||
+                minLat < -HALF_PI + POLAR_MARGIN || maxLat > HALF_PI - POLAR_MARGIN) {
+            return new GeoBounds(minLat, maxLat, -Math.PI, TWO_PI);
+        }
+        double west = (dLon >= 0) ? aLon : bLon;
+        return new GeoBounds(minLat, maxLat, normalizeLon(west - LON_MARGIN), Math.abs(dLon) + 2 * LON_MARGIN);
+    }
+
+    /**
+     * Compute padded bounds of a {@link GeoCell}, as those of a cap around its centre. Angles between points on
+     * a face are at most PI / 2 times their distance in face coordinates, so every point of a cell at level n is
+     * within PI / 2 * sqrt(2) / 2^n of its centre.
+     */
+    static GeoBounds ofCell(long cell) {
+        GeoPoint center = GeoCell.center(cell);
+        return around(center.lat, center.lon, CELL_RADIUS / (1 << GeoCell.level(cell)));
+    }
+
+    /**
+     * Compute padded bounds of every point within the given angle of a point, all in radians
+     */
+    static GeoBounds around(double lat, double lon, double angle) {
+        double minLat = Math.max(lat - angle - LAT_MARGIN, -HALF_PI);
+        double maxLat = Math.min(lat + angle + LAT_MARGIN, HALF_PI);
+
+        // Furthest longitude from the center of a cap which does not reach a pole
+        double sinLonSpan = (angle < HALF_PI) ? Math.sin(angle) / Math.cos(lat) : 1;
+        if (sinLonSpan >= 1 || minLat < -HALF_PI + POLAR_MARGIN || maxLat > HALF_PI - POLAR_MARGIN) {
+            return new GeoBounds(minLat, maxLat, -Math.PI, TWO_PI);
+        }
+        double halfSpan = Math.asin(sinLonSpan) + LON_MARGIN;
+        return new GeoBounds(minLat, maxLat, normalizeLon(lon - halfSpan), 2 * halfSpan);
+    }
+
+    /**
+     * @return the shortest signed change in longitude between two longitudes, in the range (-PI, PI]
+     */
+    static double lonDelta(double fromLon, double toLon) {
+        return normalizeLon(toLon - fromLon);
+    }
+
+    /**
+     * Determine the northernmost latitude reached along the minor arc between two unit vectors, the
+     * southernmost can be found by mirroring the z components
+     *
+     * @return latitude in radians
+     */
+    static double arcMaxLat(double ax, double ay, double az, double bx, double by, double bz) {
+        double maxZ = Math.max(az, bz);
+        double endpointLat = Math.asin(Math.max(-1, Math.min(1, maxZ)));
+
+        double nx = ay * bz - az * by;
+        double ny = az * bx - ax * bz;
+        double nz = ax * by - ay * bx;
+        double nLenSq = nx * nx + ny * ny + nz * nz;
+        if (nLenSq <= 0) return endpointLat;
+
+        // Projection of the polar axis onto the arc's plane is the northernmost point of its great circle
+        double px = -nz * nx / nLenSq;
+        double py = -nz * ny / nLenSq;
+        double pz = 1 - nz * nz / nLenSq;
+        if (pz <= 0 || !GeoVectors.isBetween(ax, ay, az, bx, by, bz, nx, ny, nz, px, py, pz)) return endpointLat;
+
+        return Math.max(endpointLat, Math.atan2(pz, Math.sqrt(px * px + py * py)));
+    }
+
+    /**
+     * Determine whether a ring may separate the North Pole from the South Pole, which is the case when it winds
+     * around the polar axis an odd number of times. Rings touching or passing over a pole are assumed to.
+     */
+    static boolean mayRingSeparatePoles(List<GeoPoint> vertices) {
+        int n = vertices.size();
+        double winding = 0;
+        for (int i = 0; i < n; i++) {
+            GeoPoint a = vertices.get((i > 0) ? i - 1 : n - 1);
+            GeoPoint b = vertices.get(i);
+            if (Math.abs(b.lat) > HALF_PI - POLAR_MARGIN) return true;
+
+            double dLon = lonDelta(a.lon, b.lon);
+            if (Math.abs(dLon) >= Math.PI - LON_MARGIN) return true;
+            winding += dLon;
+        }
+        long turns = Math.round(winding / TWO_PI);
+        return (turns % 2) != 0;
+    }
+
+    /**
+     * @return latitude/longitude strings of the south-west and north-east corners in decimal degrees
+     */
+    public String toString() {
+        return String.format("%f, %f to %f, %f",
+                getMinLatDegrees(), getWestDegrees(), getMaxLatDegrees(), getEastDegrees());
+    }
+}
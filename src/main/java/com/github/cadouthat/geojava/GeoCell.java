@@ -0,0 +1,182 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * Hierarchical cells covering the sphere, identified by long ids. The sphere is projected from its centre onto
+ * the six faces of a cube, and each face is divided as a quadtree, so that every cell's edges are great circle
+ * arcs. Level 0 cells are the faces, and each level divides cells into four, down to {@link #MAX_LEVEL} where
+ * cells are around a metre across.
+ * <p>
+ * Ids order cells along a space-filling curve, so the ids of all descendants of a cell fall in a contiguous
+ * range between {@link #rangeMin(long)} and {@link #rangeMax(long)}.
+ */
+public final class GeoCell {
+
+    public static final int MAX_LEVEL = 24;
+
+    static final int FACE_SHIFT = 2 * MAX_LEVEL + 1;
+
+    private GeoCell() {
+    }
+
+    /**
+     * @return id of the cell at the given level containing the point
+     */
+    public static long id(GeoPoint point, int level) {
+        return id(GeoVectors.x(point.lat, point.lon), GeoVectors.y(point.lat, point.lon), GeoVectors.z(point.lat),
+                level);
+    }
+
+    /**
+     * @return id of the cell at the given level containing the direction of a vector
+     */
+    static long id(double x, double y, double z, int level) {
+        checkLevel(level);
+        double ax = Math.abs(x);
+        double ay = Math.abs(y);
+        double az = Math.abs(z);
+
+        // Face of the dominant axis, with the other two components projected onto it
+        int axis;
+        double major, u, v;
+        if (ax >= ay && ax >= az) {
+            axis = 0;
+            major = x;
+            u = y;
+            v = z;
+        }
+        else if (ay >= az) {
+            axis = 1;
+            major = y;
+            u = z;
+            v = x;
+        }
+        else {
+            axis = 2;
+            major = z;
+            u = x;
+            v = y;
+        }
+        int face = (major >= 0) ? axis : axis + 3;
+        double scale = 1 / Math.abs(major);
+        return fromFaceIJ(face, faceIndex(u * scale, level), faceIndex(v * scale, level), level);
+    }
+
+    /**
+     * @return index along a face of the cell at the given level containing the face coordinate in [-1, 1]
+     */
+    static int faceIndex(double coordinate, int level) {
+        int size = 1 << level;
+        int index = (int)Math.floor((coordinate + 1) / 2 * size);
+        return Math.max(0, Math.min(size - 1, index));
+    }
+
+    static long fromFaceIJ(int face, int i, int j, int level) {
+        long position = 0;
+        for (int b = level - 1; b >= 0; b--) {
+            position = (position << 2) | (((i >>> b) & 1) << 1) | ((j >>> b) & 1);
+        }
+        int shift = 2 * (MAX_LEVEL - level);
+        return ((long)face << FACE_SHIFT) | (position << (shift + 1)) | (1L << shift);
+    }
+
+    static void checkLevel(int level) {
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Cell level must be from 0 to " + MAX_LEVEL + ": " + level);
+        }
+    }
+
+    static long lowestBit(long id) {
+        return id & -id;
+    }
+
+    public static int level(long id) {
+        return MAX_LEVEL - Long.numberOfTrailingZeros(id) / 2;
+    }
+
+    public static int face(long id) {
+        return (int)(id >>> FACE_SHIFT);
+    }
+
+    /**
+     * @return id of the cell one level up containing the given cell, which must not be a face
+     */
+    public static long parent(long id) {
+        if (level(id) == 0) throw new IllegalArgumentException("Face cells have no parent");
+        long newBit = lowestBit(id) << 2;
+        return (id & -newBit) | newBit;
+    }
+
+    /**
+     * @return id of one of the four cells one level down, ordered along the curve by index 0 to 3
+     */
+    public static long child(long id, int index) {
+        if (level(id) == MAX_LEVEL) throw new IllegalArgumentException("Cells at the maximum level have no children");
+        long newBit = lowestBit(id) >>> 2;
+        return id - 3 * newBit + 2 * index * newBit;
+    }
+
+    /**
+     * @return whether the given cell is the same as or a descendant of this cell
+     */
+    public static boolean contains(long id, long other) {
+        return other >= rangeMin(id) && other <= rangeMax(id);
+    }
+
+    /**
+     * @return lowest id of any descendant of the cell
+     */
+    public static long rangeMin(long id) {
+        return id - (lowestBit(id) - 1);
+    }
+
+    /**
+     * @return highest id of any descendant of the cell
+     */
+    public static long rangeMax(long id) {
+        return id + (lowestBit(id) - 1);
+    }
+
+    /**
+     * @return point at the centre of the cell, in face coordinates
+     */
+    public static GeoPoint center(long id) {
+        double[] corners = corners(id);
+        return new GeoPoint(corners[0] + corners[6], corners[1] + corners[7], corners[2] + corners[8]);
+    }
+
+    /**
+     * @return the four corners of the cell as (not unit) vectors, as x/y/z triples in order around the cell
+     */
+    static double[] corners(long id) {
+        int level = level(id);
+        int face = face(id);
+        long position = (id & ((1L << FACE_SHIFT) - 1)) >>> (2 * (MAX_LEVEL - level) + 1);
+        int i = 0;
+        int j = 0;
+        for (int b = level - 1; b >= 0; b--) {
+            i |= (int)((position >>> (2 * b + 1)) & 1) << b;
+            j |= (int)((position >>> (2 * b)) & 1) << b;
+        }
+
+        double size = 2.0 / (1 << level);
+        double u0 = i * size - 1;
+        double v0 = j * size - 1;
+        double[] corners = new double[12];
+        faceVector(face, u0, v0, corners, 0);
+        faceVector(face, u0 + size, v0, corners, 3);
+        faceVector(face, u0 + size, v0 + size, corners, 6);
+        faceVector(face, u0, v0 + size, corners, 9);
+        return corners;
+    }
+
+    /**
+     * Inverse of the projection in {@link #id(double, double, double, int)}
+     */
+    static void faceVector(int face, double u, double v, double[] out, int offset) {
+        int axis = face % 3;
+        double major = (face < 3) ? 1 : -1;
+        out[offset + axis] = major;
+        out[offset + (axis + 1) % 3] = u;
+        out[offset + (axis + 2) % 3] = v;
+    }
+}
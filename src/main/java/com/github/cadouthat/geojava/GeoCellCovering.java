@@ -0,0 +1,307 @@
+package com.github.cadouthat.geojava;
+
+import java.util.Arrays;
+
+/**
+ * Classification of {@link GeoCell}s against a prepared polygon, so that points in cells entirely inside or
+ * outside the polygon are answered by looking up their cell. Cells are subdivided only where the perimeter
+ * passes through them, down to the covering's level, so large interiors and exteriors are held as a few coarse
+ * cells. Points in cells the perimeter passes through still need exact edge tests.
+ * <p>
+ * Cells are classified with exact sign tests on their edges, so a cell is only taken as inside or outside when
+ * no edge of the polygon crosses it, and the state is taken from a containment test of its centre. Points on
+ * either side of the line where the test arc switches reference may get different answers (a polygon separating
+ * the poles contains points just north of the equator but not just south, say), so cells which that line
+ * touches are treated like cells the perimeter passes through.
+ */
+public final class GeoCellCovering {
+
+    public enum State {
+        INSIDE,
+        OUTSIDE,
+        /**
+         * The perimeter may pass through the point's cell, so containment must be tested exactly
+         */
+        BOUNDARY
+    }
+
+    final int level;
+
+    /**
+     * Ranges of cell ids at {@link GeoCell#MAX_LEVEL} inside the polygon or on its boundary, in ascending order
+     * and not overlapping, with all other cells outside
+     */
+    long[] rangeMin = new long[16];
+    long[] rangeMax = new long[16];
+    boolean[] boundary = new boolean[16];
+    int rangeCount;
+
+    /**
+     * Containment without a covering, and the covering's view of each vertex and edge
+     */
+    final PreparedGeoPolygon polygon;
+    final long[] vertexCells;
+
+    /**
+     * Normal of the great circle where the test arc switches reference, or null when the switch cannot change
+     * the result
+     */
+    final double[] switchNormal;
+
+    /**
+     * Corners closer than this to the switch line are taken as touching it
+     */
+    static final double SWITCH_EPSILON = 1e-12;
+
+    /**
+     * Edges at least this long have normals accurate enough to rule out cells far from their great circle, with
+     * this margin (about 6cm)
+     */
+    static final double PLANE_TEST_MIN_METRES = 1;
+    static final double PLANE_EPSILON = 1e-8;
+
+    /**
+     * Classify cells against the polygon down to the given level, from 0 to {@link GeoCell#MAX_LEVEL}
+     */
+    GeoCellCovering(PreparedGeoPolygon polygon, int level) {
+        GeoCell.checkLevel(level);
+        this.level = level;
+        this.polygon = polygon;
+
+        vertexCells = vertexCells(polygon);
+        switchNormal = switchNormal(polygon);
+
+        int[] edges = new int[polygon.edgeCount];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = i;
+        }
+        for (int face = 0; face < 6; face++) {
+            classify(GeoCell.fromFaceIJ(face, 0, 0, 0), 0, edges, edges.length);
+        }
+
+        rangeMin = Arrays.copyOf(rangeMin, rangeCount);
+        rangeMax = Arrays.copyOf(rangeMax, rangeCount);
+        boundary = Arrays.copyOf(boundary, rangeCount);
+    }
+
+    /**
+     * Classify a cell given the edges which pass through its parent, subdividing it if the perimeter passes
+     * through it and it is above the covering's level
+     */
+    private void classify(long cell, int cellLevel, int[] parentEdges, int parentCount) {
+        long min = GeoCell.rangeMin(cell);
+        long max = GeoCell.rangeMax(cell);
+        double[] corners = GeoCell.corners(cell);
+
+        int[] edges = new int[parentCount];
+        int count = 0;
+        for (int k = 0; k < parentCount; k++) {
+            int i = parentEdges[k];
+            if (edgePassesThrough(polygon, vertexCells, i, min, max, corners)) edges[count++] = i;
+        }
+
+        if (count == 0 && !straddles(switchNormal, corners)) {
+            GeoPoint center = GeoCell.center(cell);
+            if (polygon.contains(center.lat, center.lon)) add(min, max, false);
+        }
+        else if (cellLevel == level) {
+            add(min, max, true);
+        }
+        else {
+            for (int index = 0; index < 4; index++) {
+                classify(GeoCell.child(cell, index), cellLevel + 1, edges, count);
+            }
+        }
+    }
+
+    /**
+     * @return cell id at {@link GeoCell#MAX_LEVEL} of each vertex
+     */
+    static long[] vertexCells(PreparedGeoPolygon polygon) {
+        long[] cells = new long[polygon.edgeCount];
+        for (int i = 0; i < polygon.edgeCount; i++) {
+            cells[i] = GeoCell.id(polygon.x[i], polygon.y[i], polygon.z[i], GeoCell.MAX_LEVEL);
+        }
+        return cells;
+    }
+
+    /**
+     * @return normal of the great circle of points equally near both references, where the test arc switches
+     * from one to the other, or null if the polygon's result cannot change there
+     */
+    static double[] switchNormal(PreparedGeoPolygon polygon) {
+        if (polygon.boundsApplicable && !polygon.polesSeparated) return null;
+        if (polygon.boundsApplicable) return new double[]{0, 0, 1};
+
+        double nx = GeoVectors.x(polygon.refALat, polygon.refALon) - GeoVectors.x(polygon.refBLat, polygon.refBLon);
+        double ny = GeoVectors.y(polygon.refALat, polygon.refALon) - GeoVectors.y(polygon.refBLat, polygon.refBLon);
+        double nz = GeoVectors.z(polygon.refALat) - GeoVectors.z(polygon.refBLat);
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        // Identical references are never switched between
+        if (length == 0) return null;
+        return new double[]{nx / length, ny / length, nz / length};
+    }
+
+    /**
+     * @return whether the great circle with the given normal touches the cell with the given corners, which
+     * holds unless every corner is clearly on the same side, as cells are convex
+     */
+    static boolean straddles(double[] normal, double[] corners) {
+        if (normal == null) return false;
+        boolean above = true;
+        boolean below = true;
+        for (int a = 0; a < 12; a += 3) {
+            double side = normal[0] * corners[a] + normal[1] * corners[a + 1] + normal[2] * corners[a + 2];
+            if (side <= SWITCH_EPSILON) above = false;
+            if (side >= -SWITCH_EPSILON) below = false;
+        }
+        return !above && !below;
+    }
+
+    /**
+     * Classify a single cell, see {@link GeoCellCovering}. Cells outside the polygon's containment bounds are
+     * outside without testing edges, and with an edge index only edges in the bands the cell overlaps are tested.
+     *
+     * @param switchNormal see {@link #switchNormal(PreparedGeoPolygon)}
+     */
+    static State classify(PreparedGeoPolygon polygon, long[] vertexCells, double[] switchNormal, long cell) {
+        GeoBounds cellBounds = GeoBounds.ofCell(cell);
+        if (polygon.edgeCount < 3 || !polygon.containmentBounds.intersects(cellBounds)) return State.OUTSIDE;
+
+        long min = GeoCell.rangeMin(cell);
+        long max = GeoCell.rangeMax(cell);
+        double[] corners = GeoCell.corners(cell);
+        if (straddles(switchNormal, corners)) return State.BOUNDARY;
+
+        // Edges listed in the bands the cell overlaps, unless that listing is longer than the edges themselves
+        int[] candidates = null;
+        int from = 0;
+        int to = polygon.edgeCount;
+        GeoEdgeIndex edgeIndex = polygon.edgeIndex;
+        if (edgeIndex != null) {
+            int[] bands = edgeIndex.bandRange(cellBounds);
+            if (bands == null) {
+                to = 0;
+            }
+            else if (edgeIndex.bandStart[bands[1] + 1] - edgeIndex.bandStart[bands[0]] < polygon.edgeCount) {
+                candidates = edgeIndex.bandEdges;
+                from = edgeIndex.bandStart[bands[0]];
+                to = edgeIndex.bandStart[bands[1] + 1];
+            }
+        }
+
+        // Edges whose great circle passes further from the cell's centre than its radius cannot reach it
+        double cx = corners[0] + corners[6];
+        double cy = corners[1] + corners[7];
+        double cz = corners[2] + corners[8];
+        double scale = 1 / Math.sqrt(cx * cx + cy * cy + cz * cz);
+        double radius = GeoBounds.CELL_RADIUS / (1 << GeoCell.level(cell));
+        double limit = (radius < GeoBounds.HALF_PI) ? Math.sin(radius) + PLANE_EPSILON : 1;
+        for (int k = from; k < to; k++) {
+            int i = (candidates != null) ? candidates[k] : k;
+            if (polygon.length[i] >= PLANE_TEST_MIN_METRES &&
+                    Math.abs(polygon.nx[i] * cx + polygon.ny[i] * cy + polygon.nz[i] * cz) * scale > limit) {
+                continue;
+            }
+            if (edgePassesThrough(polygon, vertexCells, i, min, max, corners)) return State.BOUNDARY;
+        }
+        GeoPoint center = GeoCell.center(cell);
+        return polygon.contains(center.lat, center.lon) ? State.INSIDE : State.OUTSIDE;
+    }
+
+    /**
+     * @return whether edge i has a vertex in the cell with the given id range or crosses one of its sides
+     */
+    static boolean edgePassesThrough(PreparedGeoPolygon polygon, long[] vertexCells, int i, long min, long max,
+                                     double[] corners) {
+        int j = (i > 0) ? i - 1 : polygon.edgeCount - 1;
+        if ((vertexCells[i] >= min && vertexCells[i] <= max) || (vertexCells[j] >= min && vertexCells[j] <= max)) {
+            return true;
+        }
+        double[] x = polygon.x;
+        double[] y = polygon.y;
+        double[] z = polygon.z;
+        for (int c = 0; c < 4; c++) {
+            int a = 3 * c;
+            int b = 3 * ((c + 1) % 4);
+            if (GeoVectors.arcsCross(x[i], y[i], z[i], x[j], y[j], z[j],
+                    corners[a], corners[a + 1], corners[a + 2], corners[b], corners[b + 1], corners[b + 2])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(long min, long max, boolean isBoundary) {
+        // Cells are classified in id order, so neighbouring ranges of the same state can be merged (ids at the
+        // maximum level are odd, so consecutive ones differ by two)
+        if (rangeCount > 0 && boundary[rangeCount - 1] == isBoundary && rangeMax[rangeCount - 1] + 2 == min) {
+            rangeMax[rangeCount - 1] = max;
+            return;
+        }
+        if (rangeCount == rangeMin.length) {
+            rangeMin = Arrays.copyOf(rangeMin, 2 * rangeCount);
+            rangeMax = Arrays.copyOf(rangeMax, 2 * rangeCount);
+            boundary = Arrays.copyOf(boundary, 2 * rangeCount);
+        }
+        rangeMin[rangeCount] = min;
+        rangeMax[rangeCount] = max;
+        boundary[rangeCount] = isBoundary;
+        rangeCount++;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return number of stored cell id ranges, which determines the covering's memory use
+     */
+    public int getRangeCount() {
+        return rangeCount;
+    }
+
+    public State getState(GeoPoint point) {
+        return state(GeoCell.id(point, GeoCell.MAX_LEVEL));
+    }
+
+    State state(double x, double y, double z) {
+        return state(GeoCell.id(x, y, z, GeoCell.MAX_LEVEL));
+    }
+
+    /**
+     * @return state of every point in the cell, or boundary if the covering does not give them all one state
+     */
+    State cellState(long cell) {
+        long min = GeoCell.rangeMin(cell);
+        long max = GeoCell.rangeMax(cell);
+        int range = lastRangeStartingBy(min);
+        if (range >= 0 && min <= rangeMax[range]) {
+            return (!boundary[range] && max <= rangeMax[range]) ? State.INSIDE : State.BOUNDARY;
+        }
+        return (range + 1 < rangeCount && rangeMin[range + 1] <= max) ? State.BOUNDARY : State.OUTSIDE;
+    }
+
+    /**
+     * @return index of the last range starting at or before the given id, or -1 if there is none
+     */
+    private int lastRangeStartingBy(long id) {
+        int lo = 0;
+        int hi = rangeCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rangeMin[mid] <= id) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    /**
+     * @param cell id of a cell at {@link GeoCell#MAX_LEVEL}
+     */
+    State state(long cell) {
+        int range = lastRangeStartingBy(cell);
+        if (range < 0 || cell > rangeMax[range]) return State.OUTSIDE;
+        return boundary[range] ? State.BOUNDARY : State.INSIDE;
+    }
+}
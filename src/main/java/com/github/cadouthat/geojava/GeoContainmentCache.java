@@ -0,0 +1,161 @@
+package com.github.cadouthat.geojava;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of containment results for a prepared polygon, keyed by the {@link GeoCell} of each point at a
+ * fixed level, for workloads which test the same places repeatedly. The first query in a cell classifies the
+ * whole cell, and later queries in cells entirely inside or outside the polygon are answered from the cache.
+ * Cells which the perimeter passes through, or where the polygon's test arc switches reference, are remembered
+ * as such, and points in them are always tested exactly, so results are the same as the polygon's.
+ * <p>
+ * Entries are divided between independently locked stripes by cell, each evicting its least recently used
+ * entries, so the cache may be used concurrently.
+ */
+public final class GeoContainmentCache {
+
+    static final int STRIPES = 16;
+
+    final PreparedGeoPolygon polygon;
+    final int level;
+
+    /**
+     * Vertex cells for classifying cells by their edges, or null when the polygon's covering is used instead
+     */
+    final long[] vertexCells;
+
+    /**
+     * See {@link GeoCellCovering#switchNormal(PreparedGeoPolygon)}
+     */
+    final double[] switchNormal;
+
+    final Stripe[] stripes = new Stripe[STRIPES];
+
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder boundaryTests = new LongAdder();
+
+    /**
+     * Least recently used entries of one stripe, guarded by its own monitor
+     */
+    static final class Stripe extends LinkedHashMap<Long, GeoCellCovering.State> {
+        private static final long serialVersionUID = 1L;
+
+        final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, GeoCellCovering.State> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * @param level    cell level of the cache key, finer levels place fewer points in boundary cells but share
+     *                 each entry between fewer points
+     * @param capacity greatest number of cells to remember
+     */
+    public GeoContainmentCache(PreparedGeoPolygon polygon, int level, int capacity) {
+        GeoCell.checkLevel(level);
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive");
+        this.polygon = polygon;
+        this.level = level;
+
+        // A cell covering classifies cells without testing edges, but only as finely as its own level
+        vertexCells = (polygon.covering != null && polygon.covering.level >= level) ?
+                null :
+                GeoCellCovering.vertexCells(polygon);
+        switchNormal = GeoCellCovering.switchNormal(polygon);
+
+        int stripeCapacity = (capacity + STRIPES - 1) / STRIPES;
+        for (int s = 0; s < STRIPES; s++) {
+            stripes[s] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public boolean contains(GeoPoint point) {
+        long cell = GeoCell.id(point, level);
+        Stripe stripe = stripes[stripe(cell)];
+        GeoCellCovering.State state;
+        synchronized (stripe) {
+            state = stripe.get(cell);
+        }
+
+        if (state == null) {
+            misses.increment();
+            state = (vertexCells == null) ?
+                    polygon.covering.cellState(cell) :
+                    GeoCellCovering.classify(polygon, vertexCells, switchNormal, cell);
+            synchronized (stripe) {
+                stripe.put(cell, state);
+            }
+        }
+        else if (state != GeoCellCovering.State.BOUNDARY) {
+            hits.increment();
+        }
+
+        if (state == GeoCellCovering.State.BOUNDARY) {
+            boundaryTests.increment();
+            return polygon.contains(point);
+        }
+        return state == GeoCellCovering.State.INSIDE;
+    }
+
+    static int stripe(long cell) {
+        // Low bits of cell ids are constant at a given level, so mix high bits down
+        long mixed = cell * 0x9E3779B97F4A7C15L;
+        return (int)(mixed >>> 60) & (STRIPES - 1);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return number of cells currently remembered
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return number of queries answered from a remembered cell entirely inside or outside the polygon
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of queries in cells which were not remembered, and had to be classified
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of queries in boundary cells, which were tested exactly
+     */
+    public long getBoundaryTests() {
+        return boundaryTests.sum();
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.cadouthat.geojava;
+
+import java.util.List;
+
+/**
+ * Bulk distance calculations between many points given as lat/lon columns in degrees or a {@link GeoPointArray}.
+ * Every result is exactly equal to {@link GeoArc#length()} between the same two points, since the same haversine
+ * formula is evaluated in the same order; only the cosine of each latitude is computed once per point instead of
+ * once per pair.
+ */
+public final class GeoDistances {
+
+    /**
+     * Number of destination points processed together in {@link #distanceMatrix}, sized so that their
+     * precomputed coordinates stay in cache while each origin row is filled
+     */
+    static final int MATRIX_BLOCK = 512;
+
+    private GeoDistances() {
+    }
+
+    /**
+     * Distance from one origin to each of the given points, written to the same index of out
+     *
+     * @param out distances in metres
+     */
+    public static void distances(GeoPoint origin, double[] latsDegrees, double[] lonsDegrees, double[] out) {
+        if (latsDegrees.length != lonsDegrees.length) {
+            throw new IllegalArgumentException("Latitude and longitude counts differ");
+        }
+        if (out.length < latsDegrees.length) {
+            throw new IllegalArgumentException("Output is shorter than the number of points");
+        }
+        double lat1 = origin.lat;
+        double lon1 = origin.lon;
+        double cosLat1 = Math.cos(lat1);
+        for (int i = 0; i < latsDegrees.length; i++) {
+            double lat = latsDegrees[i] / 180 * Math.PI;
+            double lon = lonsDegrees[i] / 180 * Math.PI;
+            double lat2 = GeoPoint.normalizeLat(lat);
+            double lon2 = GeoPoint.normalizeLon(lat, lon);
+            out[i] = GeoVectors.haversine(lat1, lon1, cosLat1, lat2, lon2, Math.cos(lat2));
+        }
+    }
+
+    /**
+     * Distance from one origin to each point of the array, written to the same index of out
+     *
+     * @param out distances in metres
+     */
+    public static void distances(GeoPoint origin, GeoPointArray points, double[] out) {
+        if (out.length < points.size()) {
+            throw new IllegalArgumentException("Output is shorter than the number of points");
+        }
+        double lat1 = origin.lat;
+        double lon1 = origin.lon;
+        double cosLat1 = Math.cos(lat1);
+        for (int i = 0; i < points.size(); i++) {
+            double lat2 = points.lat(i);
+            out[i] = GeoVectors.haversine(lat1, lon1, cosLat1, lat2, points.lon(i), Math.cos(lat2));
+        }
+    }
+
+    /**
+     * Distance from each origin point to each destination point
+     *
+     * @param out distances in metres in row-major order, so that the distance from origin i to destination j is
+     *            at out[i * toLats.length + j]
+     */
+    public static void distanceMatrix(double[] fromLatsDegrees, double[] fromLonsDegrees,
+                                      double[] toLatsDegrees, double[] toLonsDegrees, double[] out) {
+        if (fromLatsDegrees.length != fromLonsDegrees.length || toLatsDegrees.length != toLonsDegrees.length) {
+            throw new IllegalArgumentException("Latitude and longitude counts differ");
+        }
+        int rows = fromLatsDegrees.length;
+        int cols = toLatsDegrees.length;
+        if (out.length < (long)rows * cols) {
+            throw new IllegalArgumentException("Output is shorter than the number of pairs");
+        }
+
+        double[] fromLat = new double[rows];
+        double[] fromLon = new double[rows];
+        double[] fromCos = new double[rows];
+        toRadians(fromLatsDegrees, fromLonsDegrees, fromLat, fromLon, fromCos);
+        double[] toLat = new double[cols];
+        double[] toLon = new double[cols];
+        double[] toCos = new double[cols];
+        toRadians(toLatsDegrees, toLonsDegrees, toLat, toLon, toCos);
+
+        for (int start = 0; start < cols; start += MATRIX_BLOCK) {
+            int end = Math.min(cols, start + MATRIX_BLOCK);
+            for (int i = 0; i < rows; i++) {
+                fillRow(fromLat[i], fromLon[i], fromCos[i], toLat, toLon, toCos, start, end, out, i * cols);
+            }
+        }
+    }
+
+    /**
+     * Distance from each origin point to each destination point
+     *
+     * @return distances in metres, indexed by origin then destination
+     */
+    public static double[][] distanceMatrix(List<GeoPoint> from, List<GeoPoint> to) {
+        double[] fromLat = new double[from.size()];
+        double[] fromLon = new double[from.size()];
+        double[] fromCos = new double[from.size()];
+        toRadians(from, fromLat, fromLon, fromCos);
+        double[] toLat = new double[to.size()];
+        double[] toLon = new double[to.size()];
+        double[] toCos = new double[to.size()];
+        toRadians(to, toLat, toLon, toCos);
+
+        double[][] result = new double[from.size()][to.size()];
+        for (int start = 0; start < toLat.length; start += MATRIX_BLOCK) {
+            int end = Math.min(toLat.length, start + MATRIX_BLOCK);
+            for (int i = 0; i < result.length; i++) {
+                fillRow(fromLat[i], fromLon[i], fromCos[i], toLat, toLon, toCos, start, end, result[i], 0);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write distances from one origin to destinations start to end - 1, at out[offset + start] onwards
+     */
+    private static void fillRow(double lat1, double lon1, double cosLat1,
+                                double[] toLat, double[] toLon, double[] toCos,
+                                int start, int end, double[] out, int offset) {
+        for (int j = start; j < end; j++) {
+            out[offset + j] = GeoVectors.haversine(lat1, lon1, cosLat1, toLat[j], toLon[j], toCos[j]);
+        }
+    }
+
+    /**
+     * Convert degrees to normalized radians the same way as {@link GeoPoint#GeoPoint(double, double)}
+     */
+    private static void toRadians(double[] latsDegrees, double[] lonsDegrees,
+                                  double[] lats, double[] lons, double[] cosLats) {
+        for (int i = 0; i < lats.length; i++) {
+            double lat = latsDegrees[i] / 180 * Math.PI;
+            double lon = lonsDegrees[i] / 180 * Math.PI;
+            lats[i] = GeoPoint.normalizeLat(lat);
+            lons[i] = GeoPoint.normalizeLon(lat, lon);
+            cosLats[i] = Math.cos(lats[i]);
+        }
+    }
+
+    private static void toRadians(List<GeoPoint> points, double[] lats, double[] lons, double[] cosLats) {
+        for (int i = 0; i < lats.length; i++) {
+            GeoPoint point = points.get(i);
+            lats[i] = point.lat;
+            lons[i] = point.lon;
+            cosLats[i] = Math.cos(point.lat);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.github.cadouthat.geojava;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Precomputed geometry of a polygon's edges, see {@link PreparedGeoPolygon#computeGeometry}, and its external
+ * references, with the even-odd counts of containment tests over them. Geometry is read through accessors, so
+ * that the same counts run over arrays on the heap and over views of a mapped {@link GeoPolygonStore}.
+ */
+abstract class GeoEdgeGeometry {
+
+    /**
+     * Number of edges, which is also the number of vertices
+     */
+    final int edgeCount;
+
+    /**
+     * External reference points, see {@link GeoPolygon#externalReferenceA}
+     */
+    final double refALat;
+    final double refALon;
+    final double refBLat;
+    final double refBLon;
+    final boolean polarReferences;
+
+    /**
+     * @param references lat/lon of reference A then reference B, in radians
+     */
+    GeoEdgeGeometry(int edgeCount, double[] references) {
+        this.edgeCount = edgeCount;
+        refALat = references[0];
+        refALon = references[1];
+        refBLat = references[2];
+        refBLon = references[3];
+        polarReferences = PreparedGeoPolygon.isPolarReferencePair(refALat, refBLat);
+    }
+
+    /**
+     * Cartesian coordinates of vertex i, see {@link PreparedGeoPolygon#x}
+     */
+    abstract double x(int i);
+    abstract double y(int i);
+    abstract double z(int i);
+
+    /**
+     * Unit normal of edge i, see {@link PreparedGeoPolygon#nx}
+     */
+    abstract double nx(int i);
+    abstract double ny(int i);
+    abstract double nz(int i);
+
+    /**
+     * Arc length of edge i in metres
+     */
+    abstract double length(int i);
+
+    /**
+     * @return edge id at position k of the edge index listing, see {@link GeoEdgeIndex#bandEdges}, or k itself
+     * when edges are not tested through an index
+     */
+    abstract int edge(int k);
+
+    /**
+     * Count unique intersections of the test arc with the edges at positions from to to - 1, see
+     * {@link ContainmentMode#INTERSECTION_POINTS}
+     *
+     * @param stats receives details of the test, or null when not instrumented
+     */
+    final int countIntersections(double lat, double lon, int from, int to, GeoMetrics.ContainmentStats stats) {
+        // The shortest arc between the point and external references will be used for testing
+        double lenA = GeoVectors.distance(lat, lon, refALat, refALon);
+        double lenB = GeoVectors.distance(lat, lon, refBLat, refBLon);
+        boolean useA = lenA < lenB;
+        double arcLength = useA ? lenA : lenB;
+        if (stats != null) stats.usedReferenceA = useA;
+
+        // A zero-length test arc cannot intersect anything
+        if (arcLength < GeoArc.TOLERANCE) return 0;
+
+        double px = GeoVectors.x(lat, lon);
+        double py = GeoVectors.y(lat, lon);
+        double pz = GeoVectors.z(lat);
+
+        double refLat = useA ? refALat : refBLat;
+        double refLon = useA ? refALon : refBLon;
+        double rx = GeoVectors.x(refLat, refLon);
+        double ry = GeoVectors.y(refLat, refLon);
+        double rz = GeoVectors.z(refLat);
+
+        // Plane of the test arc, a zero vector indicates antipodal points which have no solution
+        double vx = py * rz - pz * ry;
+        double vy = pz * rx - px * rz;
+        double vz = px * ry - py * rx;
+        double vLenSq = vx * vx + vy * vy + vz * vz;
+        if (vLenSq <= 0) return 0;
+        double vScale = 1 / Math.sqrt(vLenSq);
+        vx *= vScale;
+        vy *= vScale;
+        vz *= vScale;
+
+        // The most recent intersection and any intersection on the first edge are kept for de-duplication
+        int prevEdge = -1;
+        double prevX = 0, prevY = 0, prevZ = 0;
+        boolean hasFirst = false;
+        double firstX = 0, firstY = 0, firstZ = 0;
+
+        int intersections = 0;
+        int duplicates = 0;
+        double[] point = new double[3];
+        for (int k = from; k < to; k++) {
+            int i = edge(k);
+            int j = (i > 0) ? i - 1 : edgeCount - 1;
+            if (!intersectTestArc(px, py, pz, rx, ry, rz, vx, vy, vz,
+                    x(i), y(i), z(i), x(j), y(j), z(j), nx(i), ny(i), nz(i), length(i), point)) {
+                continue;
+            }
+            double sx = point[0];
+            double sy = point[1];
+            double sz = point[2];
+
+            if (i == 0) {
+                // The first edge is compared against the last one, once it is known
+                hasFirst = true;
+                firstX = sx;
+                firstY = sy;
+                firstZ = sz;
+            }
+            else if (!(prevEdge == i - 1 && isDuplicate(prevX, prevY, prevZ, sx, sy, sz))) {
+                intersections++;
+            }
+            else {
+                duplicates++;
+            }
+
+            prevEdge = i;
+            prevX = sx;
+            prevY = sy;
+            prevZ = sz;
+        }
+        if (hasFirst) {
+            if (!(prevEdge == edgeCount - 1 && isDuplicate(prevX, prevY, prevZ, firstX, firstY, firstZ))) {
+                intersections++;
+            }
+            else {
+                duplicates++;
+            }
+        }
+        if (stats != null) stats.duplicatesSuppressed = duplicates;
+        return intersections;
+    }
+
+    /**
+     * Count edges at positions from to to - 1 crossing the test arc, see {@link ContainmentMode#CROSSING_COUNT}
+     *
+     * @param stats receives details of the test, or null when not instrumented
+     */
+    final int countCrossings(double lat, double lon, int from, int to, GeoMetrics.ContainmentStats stats) {
+        boolean useA = PreparedGeoPolygon.usesReferenceA(polarReferences, refALat, refALon, refBLat, refBLon,
+                lat, lon);
+        if (stats != null) stats.usedReferenceA = useA;
+
+        double px = GeoVectors.x(lat, lon);
+        double py = GeoVectors.y(lat, lon);
+        double pz = GeoVectors.z(lat);
+
+        double refLat = useA ? refALat : refBLat;
+        double refLon = useA ? refALon : refBLon;
+        double rx = GeoVectors.x(refLat, refLon);
+        double ry = GeoVectors.y(refLat, refLon);
+        double rz = GeoVectors.z(refLat);
+
+        // Plane of the test arc, a zero vector means the point is at or opposite the reference and has no test arc
+        double vx = py * rz - pz * ry;
+        double vy = pz * rx - px * rz;
+        double vz = px * ry - py * rx;
+        if (vx == 0 && vy == 0 && vz == 0) return 0;
+
+        int crossings = 0;
+        for (int k = from; k < to; k++) {
+            int i = edge(k);
+            int j = (i > 0) ? i - 1 : edgeCount - 1;
+
+            if (crossesTestArc(px, py, pz, rx, ry, rz, vx, vy, vz,
+                    x(i), y(i), z(i), x(j), y(j), z(j), nx(i), ny(i), nz(i))) {
+                crossings++;
+            }
+        }
+        return crossings;
+    }
+
+    /**
+     * Find where an edge meets the test arc, see {@link ContainmentMode#INTERSECTION_POINTS}
+     *
+     * @param vx    unit normal of the test arc's plane, from the point p to the reference r
+     * @param xi    first vertex of the edge, followed by the second vertex and the edge's normal and length
+     * @param point receives the intersection point, if there is one
+     * @return whether the edge meets the test arc at a single point
+     */
+    static boolean intersectTestArc(double px, double py, double pz, double rx, double ry, double rz,
+                                    double vx, double vy, double vz,
+                                    double xi, double yi, double zi, double xj, double yj, double zj,
+                                    double nxi, double nyi, double nzi, double length, double[] point) {
+        if (length < GeoArc.TOLERANCE || (nxi == 0 && nyi == 0 && nzi == 0)) return false;
+
+        // Line where the planes intersect, which passes through both candidate points
+        double cx = vy * nzi - vz * nyi;
+        double cy = vz * nxi - vx * nzi;
+        double cz = vx * nyi - vy * nxi;
+        double cLenSq = cx * cx + cy * cy + cz * cz;
+
+        // Zero vector indicates arcs on the same plane, which would have infinite solutions
+        if (cLenSq <= 0) return false;
+        double cScale = 1 / Math.sqrt(cLenSq);
+        cx *= cScale;
+        cy *= cScale;
+        cz *= cScale;
+
+        if (GeoVectors.onArcFast(px, py, pz, rx, ry, rz, vx, vy, vz, cx, cy, cz) &&
+                GeoVectors.onArcFast(xi, yi, zi, xj, yj, zj, nxi, nyi, nzi, cx, cy, cz)) {
+            point[0] = cx;
+            point[1] = cy;
+            point[2] = cz;
+            return true;
+        }
+        if (GeoVectors.onArcFast(px, py, pz, rx, ry, rz, vx, vy, vz, -cx, -cy, -cz) &&
+                GeoVectors.onArcFast(xi, yi, zi, xj, yj, zj, nxi, nyi, nzi, -cx, -cy, -cz)) {
+            point[0] = -cx;
+            point[1] = -cy;
+            point[2] = -cz;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param vx plane of the test arc from the point p to the reference r, which need not be normalized
+     * @param xi first vertex of the edge, followed by the second vertex and the edge's normal
+     * @return whether an edge crosses the test arc, see {@link ContainmentMode#CROSSING_COUNT}
+     */
+    static boolean crossesTestArc(double px, double py, double pz, double rx, double ry, double rz,
+                                  double vx, double vy, double vz,
+                                  double xi, double yi, double zi, double xj, double yj, double zj,
+                                  double nxi, double nyi, double nzi) {
+        // Each vertex is placed on one side of the test arc's plane, zero always counting as the left
+        boolean leftI = GeoVectors.dot(vx, vy, vz, xi, yi, zi) >= 0;
+        boolean leftJ = GeoVectors.dot(vx, vy, vz, xj, yj, zj) >= 0;
+        if (leftI == leftJ) return false;
+
+        // The test arc's endpoints must then lie on opposite sides of the edge, in the orientation which
+        // places the crossing on the near side of both arcs rather than at the antipode
+        boolean leftOfEdgeP = GeoVectors.dot(nxi, nyi, nzi, px, py, pz) >= 0;
+        boolean leftOfEdgeR = GeoVectors.dot(nxi, nyi, nzi, rx, ry, rz) >= 0;
+        return leftOfEdgeR == leftI && leftOfEdgeP != leftI;
+    }
+
+    /**
+     * Same criteria as the de-duplication in {@link GeoPolygon#contains(GeoPoint)}
+     */
+    static boolean isDuplicate(double ax, double ay, double az, double bx, double by, double bz) {
+        return GeoVectors.distance(ax, ay, az, bx, by, bz) <= GeoPolygon.UNIQUE_INTERSECTION_DIST;
+    }
+
+    /**
+     * Geometry held in arrays, shared with a {@link PreparedGeoPolygon}
+     */
+    static final class Heap extends GeoEdgeGeometry {
+        final double[] x;
+        final double[] y;
+        final double[] z;
+        final double[] nx;
+        final double[] ny;
+        final double[] nz;
+        final double[] length;
+
+        /**
+         * Edge index listing, or null
+         */
+        final int[] listing;
+
+        /**
+         * @param geometry arrays given by {@link PreparedGeoPolygon#computeGeometry}
+         * @param listing  edge index listing which positions refer to, or null when they are edge ids
+         */
+        Heap(double[][] geometry, double[] references, int[] listing) {
+            super(geometry[0].length, references);
+            x = geometry[0];
+            y = geometry[1];
+            z = geometry[2];
+            nx = geometry[3];
+            ny = geometry[4];
+            nz = geometry[5];
+            length = geometry[6];
+            this.listing = listing;
+        }
+
+        @Override
+        double x(int i) {
+            return x[i];
+        }
+
+        @Override
+        double y(int i) {
+            return y[i];
+        }
+
+        @Override
+        double z(int i) {
+            return z[i];
+        }
+
+        @Override
+        double nx(int i) {
+            return nx[i];
+        }
+
+        @Override
+        double ny(int i) {
+            return ny[i];
+        }
+
+        @Override
+        double nz(int i) {
+            return nz[i];
+        }
+
+        @Override
+        double length(int i) {
+            return length[i];
+        }
+
+        @Override
+        int edge(int k) {
+            return (listing != null) ? listing[k] : k;
+        }
+    }
+
+    /**
+     * Geometry read from views of a mapped {@link GeoPolygonStore} without copying it onto the heap
+     */
+    static final class Mapped extends GeoEdgeGeometry {
+        final DoubleBuffer x;
+        final DoubleBuffer y;
+        final DoubleBuffer z;
+        final DoubleBuffer nx;
+        final DoubleBuffer ny;
+        final DoubleBuffer nz;
+        final DoubleBuffer length;
+
+        /**
+         * Edge index listing, or null
+         */
+        final IntBuffer listing;
+
+        /**
+         * @param geometry views of the arrays given by {@link PreparedGeoPolygon#computeGeometry}
+         * @param listing  view of the edge index listing which positions refer to, or null when they are edge ids
+         */
+        Mapped(DoubleBuffer[] geometry, double[] references, IntBuffer listing) {
+            super(geometry[0].capacity(), references);
+            x = geometry[0];
+            y = geometry[1];
+            z = geometry[2];
+            nx = geometry[3];
+            ny = geometry[4];
+            nz = geometry[5];
+            length = geometry[6];
+            this.listing = listing;
+        }
+
+        @Override
+        double x(int i) {
+            return x.get(i);
+        }
+
+        @Override
+        double y(int i) {
+            return y.get(i);
+        }
+
+        @Override
+        double z(int i) {
+            return z.get(i);
+        }
+
+        @Override
+        double nx(int i) {
+            return nx.get(i);
+        }
+
+        @Override
+        double ny(int i) {
+            return ny.get(i);
+        }
+
+        @Override
+        double nz(int i) {
+            return nz.get(i);
+        }
+
+        @Override
+        double length(int i) {
+            return length.get(i);
+        }
+
+        @Override
+        int edge(int k) {
+            return (listing != null) ? listing.get(k) : k;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * Buckets the edges of a polygon into bands of longitude across its bounds, so that only edges which can
+ * cross a given meridian need to be tested
+ */
+final class GeoEdgeIndex {
+
+    /**
+     * Target average number of edges in each band
+     */
+    static final int EDGES_PER_BAND = 4;
+
+    static final int MAX_BANDS = 1 << 16;
+
+    /**
+     * Western limit and eastward extent of the indexed longitudes in radians, from the polygon bounds
+     */
+    final double west;
+    final double lonSpan;
+
+    final int bandCount;
+
+    /**
+     * Number of bands per radian of longitude
+     */
+    final double bandScale;
+
+    /**
+     * Edges in band b are bandEdges[bandStart[b]] to bandEdges[bandStart[b + 1] - 1], in ascending order
+     */
+    final int[] bandStart;
+    final int[] bandEdges;
+
+    /**
+     * First and last band covered by each edge, which wraps around when last < first
+     */
+    final int[] edgeFirstBand;
+    final int[] edgeLastBand;
+
+    /**
+     * Index edges between the given cartesian vertices, where edge i runs from vertex i to vertex i - 1
+     */
+    GeoEdgeIndex(double[] x, double[] y, double[] z, GeoBounds bounds) {
+        int edgeCount = x.length;
+        west = bounds.west;
+        lonSpan = bounds.lonSpan;
+        bandCount = Math.max(1, Math.min(MAX_BANDS, edgeCount / EDGES_PER_BAND));
+        bandScale = bandCount / lonSpan;
+        boolean wraps = lonSpan >= GeoBounds.TWO_PI;
+
+        double[] lon = new double[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            lon[i] = GeoVectors.lon(x[i], y[i]);
+        }
+
+        edgeFirstBand = new int[edgeCount];
+        edgeLastBand = new int[edgeCount];
+        int[] bandSize = new int[bandCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int j = (i > 0) ? i - 1 : edgeCount - 1;
+            int first = 0;
+            int last = bandCount - 1;
+
+            double dLon = GeoBounds.lonDelta(lon[i], lon[j]);
+            double polarLat = GeoBounds.HALF_PI - GeoBounds.POLAR_MARGIN;
+            boolean polar = Math.abs(dLon) >= Math.PI - GeoBounds.LON_MARGIN ||
+                    GeoBounds.arcMaxLat(x[i], y[i], z[i], x[j], y[j], z[j]) > polarLat ||
+                    GeoBounds.arcMaxLat(x[i], y[i], -z[i], x[j], y[j], -z[j]) > polarLat;
+
+            // Edges near a pole may cross any meridian within tolerance
+            if (!polar) {
+                double start = GeoBounds.eastwardSpan(west, (dLon >= 0) ? lon[i] : lon[j]) - GeoBounds.LON_MARGIN;
+                double end = start + Math.abs(dLon) + 2 * GeoBounds.LON_MARGIN;
+                long firstBand = (long)Math.floor(start * bandScale);
+                long lastBand = (long)Math.floor(end * bandScale);
+
+                if (lastBand - firstBand + 1 < bandCount) {
+                    if (wraps) {
+                        first = (int)Math.floorMod(firstBand, (long)bandCount);
+                        last = (int)Math.floorMod(lastBand, (long)bandCount);
+                    }
+                    else {
+                        first = (int)Math.max(0, Math.min(bandCount - 1, firstBand));
+                        last = (int)Math.max(0, Math.min(bandCount - 1, lastBand));
+                    }
+                }
+            }
+
+            edgeFirstBand[i] = first;
+            edgeLastBand[i] = last;
+            for (int b = first; ; b = (b + 1) % bandCount) {
+                bandSize[b]++;
+                if (b == last) break;
+            }
+        }
+
+        bandStart = new int[bandCount + 1];
+        for (int b = 0; b < bandCount; b++) {
+            bandStart[b + 1] = bandStart[b] + bandSize[b];
+        }
+
+        // Fill in edge order, so that each band lists its edges in ascending order
+        bandEdges = new int[bandStart[bandCount]];
+        int[] fill = new int[bandCount];
+        System.arraycopy(bandStart, 0, fill, 0, bandCount);
+        for (int i = 0; i < edgeCount; i++) {
+            for (int b = edgeFirstBand[i]; ; b = (b + 1) % bandCount) {
+                bandEdges[fill[b]++] = i;
+                if (b == edgeLastBand[i]) break;
+            }
+        }
+    }
+
+    /**
+     * Index from arrays previously built by an index of the same bounds, such as one read back from a
+     * {@link GeoPolygonStore}
+     */
+    GeoEdgeIndex(GeoBounds bounds, int[] bandStart, int[] bandEdges, int[] edgeFirstBand, int[] edgeLastBand) {
+        west = bounds.west;
+        lonSpan = bounds.lonSpan;
+        bandCount = bandStart.length - 1;
+        bandScale = bandCount / lonSpan;
+        this.bandStart = bandStart;
+        this.bandEdges = bandEdges;
+        this.edgeFirstBand = edgeFirstBand;
+        this.edgeLastBand = edgeLastBand;
+    }
+
+    /**
+     * @return the band containing the given longitude in radians, or -1 if it is outside the indexed range
+     */
+    int band(double lon) {
+        return band(west, lonSpan, bandScale, bandCount, lon);
+    }
+
+    /**
+     * @return first and last band overlapping the longitudes of the given bounds, as {first, last} with
+     * first <= last, or null if none do. The edges listed in them are bandEdges[bandStart[first]] to
+     * bandEdges[bandStart[last + 1] - 1], which may repeat edges.
+     */
+    int[] bandRange(GeoBounds other) {
+        if (other.lonSpan >= GeoBounds.TWO_PI) return new int[]{0, bandCount - 1};
+        double start = GeoBounds.eastwardSpan(west, other.west);
+        double end = start + other.lonSpan;
+        if (start <= lonSpan) {
+            // Ranges wrapping back into the start of the index are rare, and taken as covering it all
+            if (end >= GeoBounds.TWO_PI) return new int[]{0, bandCount - 1};
+            return new int[]{bandAt(start), bandAt(Math.min(end, lonSpan))};
+        }
+        if (end >= GeoBounds.TWO_PI) return new int[]{0, bandAt(Math.min(end - GeoBounds.TWO_PI, lonSpan))};
+        return null;
+    }
+
+    /**
+     * @return band containing the given eastward offset from the western limit, within the indexed range
+     */
+    private int bandAt(double offset) {
+        return Math.min((int)(offset * bandScale), bandCount - 1);
+    }
+
+    /**
+     * Same as {@link #band(double)}, for an index whose arrays are held elsewhere
+     */
+    static int band(double west, double lonSpan, double bandScale, int bandCount, double lon) {
+        double offset = GeoBounds.eastwardSpan(west, lon);
+        if (offset > lonSpan) return -1;
+        return Math.min((int)(offset * bandScale), bandCount - 1);
+    }
+}
@@ -0,0 +1,240 @@
+package com.github.cadouthat.geojava;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A set of polygons identified by key, such as geofences, which can be changed or replaced as a whole while
+ * queries continue. Each change builds a new immutable {@link Snapshot}, including its spatial index, then
+ * publishes it with a single atomic reference swap. Queries never block, and each one sees either the whole
+ * set before a change or the whole set after it.
+ * <p>
+ * Changes are applied one at a time. {@link #replaceAllAsync} prepares the new set on another thread, holding
+ * no lock until the finished snapshot is swapped in.
+ *
+ * @param <K> type of the keys identifying each polygon
+ */
+public final class GeoFenceRegistry<K> {
+
+    /**
+     * An immutable set of polygons with its spatial index, which may be queried from any thread
+     */
+    public static final class Snapshot<K> {
+
+        /**
+         * Number of changes published before this snapshot
+         */
+        final long version;
+
+        final Map<K, GeoPolygon> fences;
+
+        /**
+         * Key of each indexed polygon. A polygon registered under several keys is indexed once per key, using
+         * copies which share its perimeter.
+         */
+        final Map<GeoPolygon, K> keys;
+
+        final GeoPolygonIndex index;
+
+        /**
+         * Index the given polygons, taking ownership of the map
+         */
+        Snapshot(long version, LinkedHashMap<K, GeoPolygon> fences, double cellDegrees,
+                 Map<GeoPolygon, PreparedGeoPolygon> reusable) {
+            this.version = version;
+            this.fences = Collections.unmodifiableMap(fences);
+            this.keys = new IdentityHashMap<>();
+            this.index = new GeoPolygonIndex(cellDegrees);
+            for (Map.Entry<K, GeoPolygon> fence : fences.entrySet()) {
+                GeoPolygon polygon = fence.getValue();
+                PreparedGeoPolygon prepared = reusable.get(polygon);
+                if (keys.containsKey(polygon)) {
+                    polygon = polygon.withExternalReferences(polygon.externalReferenceA, polygon.externalReferenceB);
+                }
+                keys.put(polygon, fence.getKey());
+                index.add(polygon, (prepared != null) ? prepared : polygon.prepare());
+            }
+        }
+
+        /**
+         * Share the contents of a snapshot built before its version was known
+         */
+        Snapshot(Snapshot<K> snapshot, long version) {
+            this.version = version;
+            this.fences = snapshot.fences;
+            this.keys = snapshot.keys;
+            this.index = snapshot.index;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return fences.size();
+        }
+
+        /**
+         * @return an unmodifiable view of the polygons by key, in the order they were given
+         */
+        public Map<K, GeoPolygon> getFences() {
+            return fences;
+        }
+
+        /**
+         * @return the polygon with the given key, or null if there is none
+         */
+        public GeoPolygon get(K key) {
+            return fences.get(key);
+        }
+
+        /**
+         * @return keys of every polygon which contains the given point
+         */
+        public List<K> findContaining(GeoPoint point) {
+            List<GeoPolygon> found = index.findContaining(point);
+            List<K> result = new ArrayList<>(found.size());
+            for (GeoPolygon polygon : found) {
+                result.add(keys.get(polygon));
+            }
+            return result;
+        }
+
+        /**
+         * Prepared form of each indexed polygon, so that a following snapshot need not prepare them again
+         */
+        Map<GeoPolygon, PreparedGeoPolygon> preparedPolygons() {
+            Map<GeoPolygon, PreparedGeoPolygon> result = new IdentityHashMap<>();
+            for (GeoPolygonIndex.Entry entry : index.entries.values()) {
+                result.put(entry.polygon, entry.prepared);
+            }
+            return result;
+        }
+    }
+
+    final double cellDegrees;
+
+    final AtomicReference<Snapshot<K>> current;
+
+    /**
+     * Held while publishing a change, never by queries
+     */
+    final Object writeLock = new Object();
+
+    public GeoFenceRegistry() {
+        this(GeoPolygonIndex.DEFAULT_CELL_DEGREES);
+    }
+
+    /**
+     * @param cellDegrees size of the spatial index cells, see {@link GeoPolygonIndex#GeoPolygonIndex(double)}
+     */
+    public GeoFenceRegistry(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        Map<GeoPolygon, PreparedGeoPolygon> none = Collections.emptyMap();
+        current = new AtomicReference<>(new Snapshot<>(0, new LinkedHashMap<K, GeoPolygon>(), cellDegrees, none));
+    }
+
+    /**
+     * @return the current set of polygons, which later changes to the registry do not affect
+     */
+    public Snapshot<K> snapshot() {
+        return current.get();
+    }
+
+    public int size() {
+        return current.get().size();
+    }
+
+    public GeoPolygon get(K key) {
+        return current.get().get(key);
+    }
+
+    /**
+     * @return keys of every polygon in the current set which contains the given point
+     */
+    public List<K> findContaining(GeoPoint point) {
+        return current.get().findContaining(point);
+    }
+
+    /**
+     * Add a polygon, replacing any with the same key. Other polygons keep their prepared form, so only their
+     * index placement is rebuilt.
+     *
+     * @return the published snapshot
+     */
+    public Snapshot<K> put(K key, GeoPolygon polygon) {
+        synchronized (writeLock) {
+            Snapshot<K> previous = current.get();
+            LinkedHashMap<K, GeoPolygon> fences = new LinkedHashMap<>(previous.fences);
+            fences.put(key, polygon);
+            return publish(new Snapshot<>(previous.version + 1, fences, cellDegrees, previous.preparedPolygons()));
+        }
+    }
+
+    /**
+     * Remove the polygon with the given key, if present
+     *
+     * @return the published snapshot, or the current one if nothing was removed
+     */
+    public Snapshot<K> remove(K key) {
+        synchronized (writeLock) {
+            Snapshot<K> previous = current.get();
+            if (!previous.fences.containsKey(key)) return previous;
+            LinkedHashMap<K, GeoPolygon> fences = new LinkedHashMap<>(previous.fences);
+            fences.remove(key);
+            return publish(new Snapshot<>(previous.version + 1, fences, cellDegrees, previous.preparedPolygons()));
+        }
+    }
+
+    /**
+     * Replace the whole set of polygons, building the new set on the calling thread
+     *
+     * @return the published snapshot
+     */
+    public Snapshot<K> replaceAll(Map<K, GeoPolygon> fences) {
+        return swapIn(build(new LinkedHashMap<>(fences)));
+    }
+
+    /**
+     * Replace the whole set of polygons, building the new set with the given executor while queries continue
+     * against the current set. The map is copied before this returns, so the caller may reuse it.
+     *
+     * @return a future completed with the published snapshot
+     */
+    public CompletableFuture<Snapshot<K>> replaceAllAsync(Map<K, GeoPolygon> fences, Executor executor) {
+        final LinkedHashMap<K, GeoPolygon> copy = new LinkedHashMap<>(fences);
+        return CompletableFuture.supplyAsync(new Supplier<Snapshot<K>>() {
+            @Override
+            public Snapshot<K> get() {
+                return swapIn(build(copy));
+            }
+        }, executor);
+    }
+
+    /**
+     * Prepare and index a new set of polygons, with a version to be assigned when it is published
+     */
+    Snapshot<K> build(LinkedHashMap<K, GeoPolygon> fences) {
+        Map<GeoPolygon, PreparedGeoPolygon> none = Collections.emptyMap();
+        return new Snapshot<>(-1, fences, cellDegrees, none);
+    }
+
+    Snapshot<K> swapIn(Snapshot<K> built) {
+        synchronized (writeLock) {
+            return publish(new Snapshot<>(built, current.get().version + 1));
+        }
+    }
+
+    Snapshot<K> publish(Snapshot<K> snapshot) {
+        current.set(snapshot);
+        return snapshot;
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * A polygon paired with a simplified version of itself, for answering containment of most points from the
+ * simplified polygon. Every part of the full perimeter lies within the band width of the simplified perimeter,
+ * which defines two hulls: the inner hull is the simplified polygon less the band, and lies entirely inside the
+ * full polygon, while the outer hull is the simplified polygon plus the band, and contains all of it. Only points
+ * in the band between the hulls are tested against the full polygon.
+ * <p>
+ * The band width is the simplification tolerance, plus an allowance for the curvature of the full polygon's
+ * edges between vertices and for the tolerance of containment tests.
+ * <p>
+ * Both polygons are prepared with {@link ContainmentMode#CROSSING_COUNT}, whose exact sign tests give the same
+ * answer on either perimeter for points outside the band. Merging nearby intersection points, as
+ * {@link ContainmentMode#INTERSECTION_POINTS} does, can differ between the two perimeters far from either.
+ */
+public final class GeoHullPolygon {
+
+    final GeoPolygon simplifiedPolygon;
+    final PreparedGeoPolygon simplified;
+    final PreparedGeoPolygon full;
+
+    /**
+     * Width of the band in metres
+     */
+    final double bandWidth;
+
+    /**
+     * @param toleranceMetres greatest distance of a removed vertex from the simplified perimeter
+     */
+    public GeoHullPolygon(GeoPolygon polygon, double toleranceMetres) {
+        simplifiedPolygon = polygon.simplify(toleranceMetres);
+        simplified = new PreparedGeoPolygon(simplifiedPolygon, ContainmentMode.CROSSING_COUNT);
+        full = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT);
+
+        double maxEdgeAngle = GeoSimplifier.maxEdgeAngle(polygon.vertices);
+        bandWidth = toleranceMetres + GeoArc.EARTH_RADIUS_METRES * maxEdgeAngle * maxEdgeAngle / 8 +
+                GeoPolygon.UNIQUE_INTERSECTION_DIST;
+    }
+
+    public GeoPolygon getSimplified() {
+        return simplifiedPolygon;
+    }
+
+    /**
+     * @return distance in metres from the simplified perimeter within which the full perimeter lies
+     */
+    public double getBandWidth() {
+        return bandWidth;
+    }
+
+    /**
+     * @return true if the point is guaranteed to be inside the full polygon
+     */
+    public boolean isInsideInnerHull(GeoPoint point) {
+        return simplified.contains(point) && !inBand(point);
+    }
+
+    /**
+     * @return false if the point is guaranteed to be outside the full polygon
+     */
+    public boolean isInsideOuterHull(GeoPoint point) {
+        return simplified.contains(point) || inBand(point);
+    }
+
+    /**
+     * @return the same result as the full polygon prepared with {@link ContainmentMode#CROSSING_COUNT}, which
+     * may differ from {@link GeoPolygon#contains(GeoPoint)} for points on or very near the perimeter
+     */
+    public boolean contains(GeoPoint point) {
+        return inBand(point) ? full.contains(point) : simplified.contains(point);
+    }
+
+    /**
+     * @return whether the point is within the band width of the simplified perimeter, finding nearby edges
+     * through the simplified polygon's edge index, see {@link PreparedGeoPolygon#isNearBoundary}
+     */
+    boolean inBand(GeoPoint point) {
+        return simplified.isNearBoundary(point, bandWidth);
+    }
+}
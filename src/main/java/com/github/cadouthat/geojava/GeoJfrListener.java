@@ -0,0 +1,91 @@
+package com.github.cadouthat.geojava;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Listener which emits a Java Flight Recorder event for each containment and intersection test, so that they can
+ * be examined alongside the rest of a recording. Events are only built while enabled in the recording settings.
+ * <p>
+ * JFR is part of Java 11 and later and of Java 8 from update 262. Install this listener with
+ * {@link GeoMetrics#installJfrListener()}, which checks that the running JVM supports it, as this class cannot
+ * be loaded otherwise.
+ */
+public final class GeoJfrListener implements GeoMetricsListener {
+
+    @Name("com.github.cadouthat.geojava.Containment")
+    @Label("Containment Test")
+    @Category("GeoJava")
+    @Description("Point in polygon test")
+    static final class ContainmentEvent extends Event {
+        @Label("Rejected By Bounds")
+        boolean rejected;
+
+        @Label("Edges Tested")
+        int edgesTested;
+
+        @Label("Intersections")
+        int intersections;
+
+        @Label("Duplicates Suppressed")
+        int duplicatesSuppressed;
+
+        @Label("Used Reference A")
+        boolean usedReferenceA;
+
+        @Label("Inside")
+        boolean inside;
+
+        @Label("Test Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    @Name("com.github.cadouthat.geojava.Intersection")
+    @Label("Arc Intersection Test")
+    @Category("GeoJava")
+    static final class IntersectionEvent extends Event {
+        @Label("Outcome")
+        String outcome;
+
+        @Label("Test Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    @Override
+    public void containmentRejected(long nanos) {
+        ContainmentEvent event = new ContainmentEvent();
+        if (!event.isEnabled()) return;
+        event.rejected = true;
+        event.nanos = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void containmentTested(int edgesTested, int intersections, int duplicatesSuppressed,
+                                  boolean usedReferenceA, boolean inside, long nanos) {
+        ContainmentEvent event = new ContainmentEvent();
+        if (!event.isEnabled()) return;
+        event.edgesTested = edgesTested;
+        event.intersections = intersections;
+        event.duplicatesSuppressed = duplicatesSuppressed;
+        event.usedReferenceA = usedReferenceA;
+        event.inside = inside;
+        event.nanos = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void intersectionTested(IntersectionOutcome outcome, long nanos) {
+        IntersectionEvent event = new IntersectionEvent();
+        if (!event.isEnabled()) return;
+        event.outcome = outcome.name();
+        event.nanos = nanos;
+        event.commit();
+    }
+}
@@ -0,0 +1,503 @@
+package com.github.cadouthat.geojava;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming reader for Polygon and MultiPolygon geometries in GeoJSON. Input is read through a fixed size
+ * buffer and only one geometry is held at a time, so arbitrarily large feature collections can be processed
+ * one feature after another. Geometries are found wherever they appear (bare, in features, or in geometry
+ * collections), and all other content is skipped without being kept.
+ * <p>
+ * Each geometry becomes a {@link GeoMultiPolygon} holding all of its rings, including holes.
+ */
+public class GeoJsonReader implements Closeable {
+
+    static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Numbers with up to this many significant digits are converted without creating a string, as their digits
+     * fit in an unsigned long
+     */
+    static final int EXACT_DIGITS = 19;
+
+    static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Range of decimal exponents converted by {@link #eiselLemire(long, int)}, beyond which numbers are parsed from
+     * their text. Coordinates need only a small part of the range of doubles.
+     */
+    static final int MIN_POWER_OF_FIVE = -64;
+    static final int MAX_POWER_OF_FIVE = 64;
+
+    /**
+     * Most significant 128 bits of each power of five from {@link #MIN_POWER_OF_FIVE}, as high then low words,
+     * truncated for positive powers and rounded up for negative ones
+     */
+    static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    static final String[] KEYS = {"type", "coordinates"};
+    static final int KEY_TYPE = 0;
+    static final int KEY_COORDINATES = 1;
+
+    static final String[] TYPES = {"Polygon", "MultiPolygon"};
+
+    final Reader reader;
+    final char[] buffer = new char[BUFFER_SIZE];
+    int pos;
+    int limit;
+
+    /**
+     * Characters consumed before the start of the buffer, for error messages
+     */
+    long consumed;
+
+    /**
+     * Open containers, innermost last
+     */
+    int depth;
+    boolean[] isObject = new boolean[16];
+
+    /**
+     * For each open object, the most recent key, whether a key is expected next, whether its type is
+     * polygonal, and any rings read from its coordinates
+     */
+    int[] key = new int[16];
+    boolean[] expectingKey = new boolean[16];
+    boolean[] polygonal = new boolean[16];
+    Object[] rings = new Object[16];
+
+    /**
+     * Text of the current number, only converted to a string when it cannot be converted exactly otherwise, such
+     * as with more than {@link #EXACT_DIGITS} significant digits
+     */
+    final StringBuilder numberText = new StringBuilder();
+
+    public GeoJsonReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read UTF-8 encoded GeoJSON
+     */
+    public GeoJsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the next Polygon or MultiPolygon geometry in the input, or null at the end of the input
+     */
+    @SuppressWarnings("unchecked")
+    public GeoMultiPolygon next() throws IOException {
+        while (true) {
+            int c = nextToken();
+            if (c < 0) {
+                if (depth > 0) throw malformed("Unexpected end of input");
+                return null;
+            }
+            int top = depth - 1;
+            boolean inObject = depth > 0 && isObject[top];
+            switch (c) {
+                case '{':
+                    push(true);
+                    break;
+                case '[':
+                    if (inObject && key[top] == KEY_COORDINATES) {
+                        rings[top] = readCoordinates();
+                    }
+                    else {
+                        push(false);
+                    }
+                    break;
+                case '}':
+                    if (!inObject) throw malformed("Unexpected '}'");
+                    List<GeoPolygon> found = (List<GeoPolygon>)rings[top];
+                    boolean isPolygonal = polygonal[top];
+                    depth--;
+                    if (found != null && isPolygonal) return new GeoMultiPolygon(found);
+                    break;
+                case ']':
+                    if (depth == 0 || inObject) throw malformed("Unexpected ']'");
+                    depth--;
+                    break;
+                case ',':
+                    if (inObject) expectingKey[top] = true;
+                    break;
+                case ':':
+                    break;
+                case '"':
+                    if (inObject && expectingKey[top]) {
+                        key[top] = readString(KEYS);
+                        expectingKey[top] = false;
+                    }
+                    else {
+                        int type = readString(TYPES);
+                        if (inObject && key[top] == KEY_TYPE) polygonal[top] = type >= 0;
+                    }
+                    break;
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        readNumber(c);
+                    }
+                    else if (c >= 'a' && c <= 'z') {
+                        // true, false or null
+                        while (peek() >= 'a' && peek() <= 'z') pos++;
+                    }
+                    else {
+                        throw malformed("Unexpected '" + (char)c + "'");
+                    }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    void push(boolean object) {
+        if (depth == isObject.length) {
+            int length = 2 * depth;
+            isObject = Arrays.copyOf(isObject, length);
+            key = Arrays.copyOf(key, length);
+            expectingKey = Arrays.copyOf(expectingKey, length);
+            polygonal = Arrays.copyOf(polygonal, length);
+            rings = Arrays.copyOf(rings, length);
+        }
+        isObject[depth] = object;
+        key[depth] = -1;
+        expectingKey[depth] = object;
+        polygonal[depth] = false;
+        rings[depth] = null;
+        depth++;
+    }
+
+    /**
+     * Read a coordinates array after its opening bracket
+     *
+     * @return rings of a polygonal geometry, or null for other geometries
+     */
+    List<GeoPolygon> readCoordinates() throws IOException {
+        // Nesting depth of the positions tells the geometry's shape: 3 for a Polygon, 4 for a MultiPolygon
+        int positionLevel = 1;
+        int c = nextToken();
+        while (c == '[') {
+            positionLevel++;
+            c = nextToken();
+        }
+
+        List<GeoPolygon> result = new ArrayList<>();
+        List<GeoPoint> ring = new ArrayList<>();
+        int ringLevel = positionLevel - 1;
+        int level = positionLevel;
+        if (c == ']') {
+            // Empty geometry
+            level--;
+            positionLevel = Integer.MAX_VALUE;
+            c = (level > 0) ? nextToken() : 0;
+        }
+
+        while (level > 0) {
+            if (level == positionLevel) {
+                double lon = readNumber(c);
+                expect(',');
+                double lat = readNumber(nextToken());
+                c = nextToken();
+                while (c == ',') {
+                    // Altitude and any further values are ignored
+                    readNumber(nextToken());
+                    c = nextToken();
+                }
+                if (c != ']') throw malformed("Expected ']'");
+                level--;
+                ring.add(new GeoPoint(lat, lon));
+            }
+            else if (c == ',') {
+                c = nextToken();
+                continue;
+            }
+            else if (c == '[') {
+                level++;
+            }
+            else if (c == ']') {
+                if (level == ringLevel && ringLevel >= 2) {
+                    if (!ring.isEmpty()) result.add(GeoMultiPolygon.closedRing(ring));
+                    ring = new ArrayList<>();
+                }
+                level--;
+            }
+            else {
+                throw malformed((c < 0) ? "Unexpected end of input" : "Unexpected '" + (char)c + "'");
+            }
+            if (level > 0) c = nextToken();
+        }
+        return (positionLevel >= 3 || positionLevel == Integer.MAX_VALUE) ? result : null;
+    }
+
+    /**
+     * Read a string after its opening quote, comparing it against candidates as it is read
+     *
+     * @return index of the candidate which matched, or -1 if none did
+     */
+    int readString(String[] candidates) throws IOException {
+        int matching = (1 << candidates.length) - 1;
+        int length = 0;
+        while (true) {
+            int c = read();
+            if (c < 0) throw malformed("Unterminated string");
+            if (c == '"') break;
+            if (c == '\\') c = readEscape();
+            for (int i = 0; i < candidates.length; i++) {
+                if ((matching & (1 << i)) != 0 &&
+                        (length >= candidates[i].length() || candidates[i].charAt(length) != c)) {
+                    matching &= ~(1 << i);
+                }
+            }
+            length++;
+        }
+        for (int i = 0; i < candidates.length; i++) {
+            if ((matching & (1 << i)) != 0 && candidates[i].length() == length) return i;
+        }
+        return -1;
+    }
+
+    int readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) throw malformed("Invalid unicode escape");
+                    value = value * 16 + digit;
+                }
+                return value;
+            default:
+                if (c < 0) throw malformed("Unterminated string");
+                return c;
+        }
+    }
+
+    /**
+     * Read a number whose first character has already been consumed
+     */
+    double readNumber(int c) throws IOException {
+        numberText.setLength(0);
+        boolean negative = c == '-';
+        if (negative) {
+            numberText.append('-');
+            c = read();
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean any = false;
+        boolean fraction = false;
+        while (true) {
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (mantissa != 0 || c != '0') {
+                    if (digits < EXACT_DIGITS) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        digits++;
+                        if (fraction) exponent--;
+                    }
+                    else {
+                        exact = false;
+                        if (!fraction) exponent++;
+                    }
+                }
+                else if (fraction) {
+                    exponent--;
+                }
+            }
+            else if (c == '.' && !fraction) {
+                fraction = true;
+            }
+            else {
+                break;
+            }
+            numberText.append((char)c);
+            c = peek();
+            if ((c == '.' && !fraction) || (c >= '0' && c <= '9')) pos++;
+        }
+        if (!any) throw malformed("Invalid number");
+
+        if (c == 'e' || c == 'E') {
+            numberText.append('e');
+            pos++;
+            c = read();
+            boolean negativeExponent = c == '-';
+            if (c == '-' || c == '+') {
+                numberText.append((char)c);
+                c = read();
+            }
+            if (c < '0' || c > '9') throw malformed("Invalid number");
+            int value = 0;
+            while (true) {
+                numberText.append((char)c);
+                if (value < 10000) value = value * 10 + (c - '0');
+                c = peek();
+                if (c < '0' || c > '9') break;
+                pos++;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (exact) {
+            double value;
+            if (exponent >= -22 && exponent <= 22 && mantissa >= 0 && mantissa <= 1L << 53) {
+                // Both operands are exact, so the single rounding gives the correctly rounded result
+                value = (exponent >= 0) ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            }
+            else {
+                value = eiselLemire(mantissa, exponent);
+            }
+            if (!Double.isNaN(value)) return negative ? -value : value;
+        }
+        return Double.parseDouble(numberText.toString());
+    }
+
+    static long[] powersOfFive() {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        long[] table = new long[2 * (MAX_POWER_OF_FIVE - MIN_POWER_OF_FIVE + 1)];
+        for (int q = MIN_POWER_OF_FIVE; q <= MAX_POWER_OF_FIVE; q++) {
+            BigInteger power = BigInteger.valueOf(5).pow(Math.abs(q));
+            BigInteger bits;
+            if (q >= 0) {
+                // Truncated to the 128 bits starting at the most significant bit
+                int shift = power.bitLength() - 128;
+                bits = (shift > 0) ? power.shiftRight(shift) : power.shiftLeft(-shift);
+            }
+            else {
+                // 2^b / 5^-q rounded up, with b chosen to keep at least 128 significant bits
+                int z = power.subtract(BigInteger.ONE).bitLength();
+                int b = (q >= -27) ? z + 127 : 2 * z + 128;
+                bits = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+                while (bits.compareTo(two128) >= 0) {
+                    bits = bits.shiftRight(1);
+                }
+            }
+            int index = 2 * (q - MIN_POWER_OF_FIVE);
+            table[index] = bits.shiftRight(64).longValue();
+            table[index + 1] = bits.longValue();
+        }
+        return table;
+    }
+
+    /**
+     * Correctly rounded conversion of w * 10^q, by the Eisel-Lemire algorithm (Lemire, "Number Parsing at a
+     * Gigabyte per Second", 2021), which multiplies by a truncated power of five and only needs the exact
+     * value when the truncation could change the rounding
+     *
+     * @param w unsigned decimal significand, exactly as read
+     * @return the value, or NaN if the rounding cannot be decided this way or the result is out of the range of
+     * normal doubles, in which case the number must be parsed from its text
+     */
+    static double eiselLemire(long w, int q) {
+        if (w == 0) return 0;
+        if (q < MIN_POWER_OF_FIVE || q > MAX_POWER_OF_FIVE) return Double.NaN;
+
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        // Upper 128 bits of the product, refined with the low word of the power only when the 55 bits needed
+        // for rounding could be affected by it
+        int index = 2 * (q - MIN_POWER_OF_FIVE);
+        long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            long secondHigh = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) high++;
+        }
+        if (low == -1 && (q < -27 || q > 55)) return Double.NaN;
+
+        int upperBit = (int)(high >>> 63);
+        long mantissa = high >>> (upperBit + 9);
+        int power2 = (int)(((152170L + 65536) * q) >> 16) + 63 + upperBit - lz + 1023;
+        if (power2 <= 0) return Double.NaN;
+
+        // Halfway cases round to even, when the product is exact
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1 &&
+                (mantissa << (upperBit + 9)) == high) {
+            mantissa &= ~1L;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 1L << 53) {
+            mantissa = 1L << 52;
+            power2++;
+        }
+        mantissa &= ~(1L << 52);
+        if (power2 >= 2047) return Double.NaN;
+        return Double.longBitsToDouble(mantissa | (long)power2 << 52);
+    }
+
+    /**
+     * @return upper 64 bits of the unsigned 128 bit product
+     */
+    static long unsignedMultiplyHigh(long a, long b) {
+        long aLow = a & 0xFFFFFFFFL;
+        long aHigh = a >>> 32;
+        long bLow = b & 0xFFFFFFFFL;
+        long bHigh = b >>> 32;
+        long lowLow = aLow * bLow;
+        long highLow = aHigh * bLow;
+        long lowHigh = aLow * bHigh;
+        long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + (lowHigh & 0xFFFFFFFFL);
+        return aHigh * bHigh + (highLow >>> 32) + (lowHigh >>> 32) + (cross >>> 32);
+    }
+
+    void expect(char expected) throws IOException {
+        if (nextToken() != expected) throw malformed("Expected '" + expected + "'");
+    }
+
+    /**
+     * @return the next character which is not whitespace, or -1 at the end of the input
+     */
+    int nextToken() throws IOException {
+        while (true) {
+            int c = read();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+        }
+    }
+
+    int read() throws IOException {
+        int c = peek();
+        if (c >= 0) pos++;
+        return c;
+    }
+
+    int peek() throws IOException {
+        if (pos == limit) {
+            consumed += limit;
+            pos = 0;
+            limit = Math.max(0, reader.read(buffer));
+            if (limit == 0) return -1;
+        }
+        return buffer[pos];
+    }
+
+    IOException malformed(String message) {
+        return new IOException(message + " at offset " + (consumed + pos));
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.cadouthat.geojava;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of durations in nanoseconds, with a bucket for each power of two. Bucket b counts
+ * durations from 2^(b-1) up to 2^b - 1, with bucket 0 counting zero.
+ * <p>
+ * Each bucket is a {@link LongAdder}, so threads recording at the same time spread their updates over separate
+ * cells instead of contending on a shared counter. Reads sum the cells, so a snapshot taken during recording
+ * may not include the latest durations.
+ */
+public final class GeoLatencyHistogram {
+
+    public static final int BUCKETS = 64;
+
+    final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    public GeoLatencyHistogram() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        counts[bucket(nanos)].increment();
+    }
+
+    static int bucket(long nanos) {
+        return (nanos <= 0) ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket].sum();
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            total += counts[b].sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return upper limit of the bucket containing the given fraction of durations (such as 0.99), or 0 if empty
+     */
+    public long getPercentile(double fraction) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            snapshot[b] = counts[b].sum();
+            total += snapshot[b];
+        }
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long)Math.ceil(fraction * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += snapshot[b];
+            if (seen >= target) return upperLimit(b);
+        }
+        return upperLimit(BUCKETS - 1);
+    }
+
+    static long upperLimit(int bucket) {
+        return (bucket >= BUCKETS - 1) ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    public void reset() {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * Global hook for observing containment and intersection tests, see {@link GeoMetricsListener}. With no listener
+ * installed, tests only pay for reading the hook; timings and details are gathered only while one is installed.
+ */
+public final class GeoMetrics {
+
+    static volatile GeoMetricsListener listener;
+
+    private GeoMetrics() {
+    }
+
+    /**
+     * Install a listener for all subsequent tests, replacing any previous one
+     *
+     * @param listener listener to install, or null to disable instrumentation
+     */
+    public static void setListener(GeoMetricsListener listener) {
+        GeoMetrics.listener = listener;
+    }
+
+    public static GeoMetricsListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Install a {@link GeoJfrListener} for all subsequent tests, replacing any previous listener, if the running
+     * JVM supports Java Flight Recorder
+     *
+     * @return false, leaving the current listener installed, if JFR is not available
+     */
+    public static boolean installJfrListener() {
+        if (!isJfrAvailable()) return false;
+        setListener(new GeoJfrListener());
+        return true;
+    }
+
+    /**
+     * @return whether the JFR event API is present, which is checked without loading {@link GeoJfrListener}
+     */
+    static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, GeoMetrics.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Details of one containment test, gathered only while a listener is installed
+     */
+    static final class ContainmentStats {
+        boolean rejected;
+        int edgesTested;
+        int intersections;
+        int duplicatesSuppressed;
+        boolean usedReferenceA;
+
+        void report(GeoMetricsListener listener, boolean inside, long nanos) {
+            if (rejected) {
+                listener.containmentRejected(nanos);
+            }
+            else {
+                listener.containmentTested(edgesTested, intersections, duplicatesSuppressed, usedReferenceA,
+                        inside, nanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * Receives measurements from containment and intersection tests while installed with
+ * {@link GeoMetrics#setListener(GeoMetricsListener)}. Calls are made on the thread performing the test, so
+ * implementations must be thread-safe and fast. Every method does nothing by default.
+ */
+public interface GeoMetricsListener {
+
+    /**
+     * Result of an arc intersection test
+     */
+    enum IntersectionOutcome {
+        /**
+         * A unique intersection point was found
+         */
+        FOUND,
+        /**
+         * The arcs do not intersect
+         */
+        NONE,
+        /**
+         * One of the arcs is shorter than the tolerance
+         */
+        DEGENERATE_ARC,
+        /**
+         * One of the arcs joins antipodal points, so its great circle is undefined
+         */
+        ANTIPODAL,
+        /**
+         * The arcs lie on the same great circle
+         */
+        COPLANAR
+    }
+
+    /**
+     * A containment test rejected the point using the polygon's bounds, without testing any edges
+     */
+    default void containmentRejected(long nanos) {
+    }
+
+    /**
+     * A containment test compared the test arc against the polygon's edges
+     *
+     * @param edgesTested number of edges compared against the test arc
+     * @param intersections intersections or crossings counted towards the even-odd rule
+     * @param duplicatesSuppressed intersections not counted because they repeat one on the adjacent edge
+     * @param usedReferenceA whether the test arc ran to external reference A rather than B
+     */
+    default void containmentTested(int edgesTested, int intersections, int duplicatesSuppressed,
+                                   boolean usedReferenceA, boolean inside, long nanos) {
+    }
+
+    /**
+     * {@link GeoArc#intersect(GeoArc)} or {@link GeoArc#intersect(GeoArc, MutableGeoPoint)} was called
+     */
+    default void intersectionTested(IntersectionOutcome outcome, long nanos) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.cadouthat.geojava;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener which accumulates counters and latency histograms, for exporting to a monitoring system
+ */
+public class GeoMetricsRecorder implements GeoMetricsListener {
+
+    final LongAdder containmentTests = new LongAdder();
+    final LongAdder boundsRejections = new LongAdder();
+    final LongAdder edgesTested = new LongAdder();
+    final LongAdder intersections = new LongAdder();
+    final LongAdder duplicatesSuppressed = new LongAdder();
+    final LongAdder referenceAChosen = new LongAdder();
+    final LongAdder referenceBChosen = new LongAdder();
+
+    final LongAdder[] intersectionOutcomes = new LongAdder[IntersectionOutcome.values().length];
+
+    final GeoLatencyHistogram containmentLatency = new GeoLatencyHistogram();
+    final GeoLatencyHistogram intersectionLatency = new GeoLatencyHistogram();
+
+    public GeoMetricsRecorder() {
+        for (int i = 0; i < intersectionOutcomes.length; i++) {
+            intersectionOutcomes[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void containmentRejected(long nanos) {
+        containmentTests.increment();
+        boundsRejections.increment();
+        containmentLatency.record(nanos);
+    }
+
+    @Override
+    public void containmentTested(int edgesTested, int intersections, int duplicatesSuppressed,
+                                  boolean usedReferenceA, boolean inside, long nanos) {
+        containmentTests.increment();
+        this.edgesTested.add(edgesTested);
+        this.intersections.add(intersections);
+        this.duplicatesSuppressed.add(duplicatesSuppressed);
+        (usedReferenceA ? referenceAChosen : referenceBChosen).increment();
+        containmentLatency.record(nanos);
+    }
+
+    @Override
+    public void intersectionTested(IntersectionOutcome outcome, long nanos) {
+        intersectionOutcomes[outcome.ordinal()].increment();
+        intersectionLatency.record(nanos);
+    }
+
+    /**
+     * @return number of containment tests, including those rejected by bounds
+     */
+    public long getContainmentTests() {
+        return containmentTests.sum();
+    }
+
+    public long getBoundsRejections() {
+        return boundsRejections.sum();
+    }
+
+    public long getEdgesTested() {
+        return edgesTested.sum();
+    }
+
+    public long getIntersections() {
+        return intersections.sum();
+    }
+
+    public long getDuplicatesSuppressed() {
+        return duplicatesSuppressed.sum();
+    }
+
+    public long getReferenceAChosen() {
+        return referenceAChosen.sum();
+    }
+
+    public long getReferenceBChosen() {
+        return referenceBChosen.sum();
+    }
+
+    public long getIntersectionTests(IntersectionOutcome outcome) {
+        return intersectionOutcomes[outcome.ordinal()].sum();
+    }
+
+    public GeoLatencyHistogram getContainmentLatency() {
+        return containmentLatency;
+    }
+
+    public GeoLatencyHistogram getIntersectionLatency() {
+        return intersectionLatency;
+    }
+
+    public void reset() {
+        containmentTests.reset();
+        boundsRejections.reset();
+        edgesTested.reset();
+        intersections.reset();
+        duplicatesSuppressed.reset();
+        referenceAChosen.reset();
+        referenceBChosen.reset();
+        for (LongAdder outcome : intersectionOutcomes) {
+            outcome.reset();
+        }
+        containmentLatency.reset();
+        intersectionLatency.reset();
+    }
+}
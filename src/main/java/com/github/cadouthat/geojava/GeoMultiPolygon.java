@@ -0,0 +1,50 @@
+package com.github.cadouthat.geojava;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An area made up of several rings, such as a polygon with holes or a set of separate polygons. A point is
+ * inside if it is inside an odd number of the rings, so holes need no special treatment as long as rings do
+ * not cross each other.
+ */
+public class GeoMultiPolygon {
+
+    final List<GeoPolygon> rings;
+
+    public GeoMultiPolygon(List<GeoPolygon> rings) {
+        this.rings = new ArrayList<>(rings);
+    }
+
+    /**
+     * Build a ring from vertices whose first vertex may be repeated at the end, as in GeoJSON and WKB, taking
+     * ownership of the list
+     */
+    static GeoPolygon closedRing(List<GeoPoint> vertices) {
+        int last = vertices.size() - 1;
+        if (last > 0 && vertices.get(0).lat == vertices.get(last).lat &&
+                vertices.get(0).lon == vertices.get(last).lon) {
+            vertices.remove(last);
+        }
+        return new GeoPolygon(vertices, false);
+    }
+
+    /**
+     * @return the rings in the order they were given, outer rings and holes alike
+     */
+    public List<GeoPolygon> getRings() {
+        return Collections.unmodifiableList(rings);
+    }
+
+    /**
+     * @return true if the given point lies inside an odd number of the rings
+     */
+    public boolean contains(GeoPoint point) {
+        boolean inside = false;
+        for (GeoPolygon ring : rings) {
+            if (ring.contains(point)) inside = !inside;
+        }
+        return inside;
+    }
+}
@@ -3,72 +3,98 @@ package com.github.cadouthat.geojava;
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 
 /**
- * Represents a point on the Earth's surface, defined by latitude and longitude
+ * Represents a point on the Earth's surface, defined by latitude and longitude. Points are immutable, so they
+ * may be shared between threads without synchronization.
  */
 public class GeoPoint {
 
-    final double PI = Math.PI;
-    final double TWO_PI = Math.PI * 2;
-    final double HALF_PI = Math.PI / 2;
+    static final double PI = Math.PI;
+    static final double TWO_PI = Math.PI * 2;
+    static final double HALF_PI = Math.PI / 2;
 
     /**
      * Latitude in radians
      */
-    double lat;
+    final double lat;
     /**
      * Longitude in radians
      */
-    double lon;
+    final double lon;
 
     /**
-     * Without changing the final position, bring the lat/lon angles into [-PI/2, PI/2]/(-PI, PI] ranges
+     * @return latitude in radians brought into [-PI/2, PI/2], see {@link #normalizeLon(double, double)}
      */
-    void normalize() {
+    static double normalizeLat(double lat) {
         // Bring latitude into (-TWO_PI, TWO_PI)
         lat = lat % TWO_PI;
         // Bring latitude into [-PI, PI]
         if (lat > PI) lat -= TWO_PI;
         if (lat < -PI) lat += TWO_PI;
 
-        // Bring latitude into [-HALF_PI, HALF_PI], flipping longitude as needed
+        // Bring latitude into [-HALF_PI, HALF_PI]
         if (Math.abs(lat) > HALF_PI) {
-            lon += PI;
             if (lat > 0) lat = PI - lat;
             else lat = -PI - lat;
         }
+        return lat;
+    }
+
+    /**
+     * @return longitude in radians brought into (-PI, PI], flipped as needed to keep the same position once
+     * the latitude is normalized
+     */
+    static double normalizeLon(double lat, double lon) {
+        // Latitude beyond a pole continues down the opposite meridian
+        lat = lat % TWO_PI;
+        if (lat > PI) lat -= TWO_PI;
+        if (lat < -PI) lat += TWO_PI;
+        if (Math.abs(lat) > HALF_PI) lon += PI;
 
         // Bring longitude into (-TWO_PI, TWO_PI)
         lon = lon % TWO_PI;
         // Bring longitude into (-PI, PI]
         if (lon > PI) lon -= TWO_PI;
         if (lon <= -PI) lon += TWO_PI;
+        return lon;
     }
 
     /**
      * Construct from lat/lon in degrees
      */
     public GeoPoint(double latDegrees, double lonDegrees) {
-        this.lat = latDegrees / 180 * Math.PI;
-        this.lon = lonDegrees / 180 * Math.PI;
-        normalize();
+        this(latDegrees / 180 * Math.PI, lonDegrees / 180 * Math.PI, true);
     }
 
     /**
      * Construct from lat/lon strings in degrees
      */
     public GeoPoint(String latDegrees, String lonDegrees) {
-        this.lat = Double.parseDouble(latDegrees) / 180 * Math.PI;
-        this.lon = Double.parseDouble(lonDegrees) / 180 * Math.PI;
-        normalize();
+        this(Double.parseDouble(latDegrees), Double.parseDouble(lonDegrees));
     }
 
     /**
      * Construct from cartesian coordinates
      */
     public GeoPoint(Vector3D vec) {
-        this.lat = vec.getDelta();
-        this.lon = vec.getAlpha();
-        normalize();
+        this(vec.getDelta(), vec.getAlpha(), true);
+    }
+
+    /**
+     * Construct from the direction of a cartesian vector
+     */
+    GeoPoint(double x, double y, double z) {
+        this(GeoVectors.lat(x, y, z), GeoVectors.lon(x, y), true);
+    }
+
+    /**
+     * Construct from lat/lon in radians
+     *
+     * @param normalize whether to bring the angles into [-PI/2, PI/2]/(-PI, PI] without changing the position,
+     * or false if they are already in range
+     */
+    GeoPoint(double lat, double lon, boolean normalize) {
+        this.lat = normalize ? normalizeLat(lat) : lat;
+        this.lon = normalize ? normalizeLon(lat, lon) : lon;
     }
 
     public double getLatDegrees() {
@@ -0,0 +1,220 @@
+package com.github.cadouthat.geojava;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-size array of points stored as primitive coordinates rather than {@link GeoPoint} objects. Coordinates
+ * are normalized on the way in, the same as {@link GeoPoint#GeoPoint(double, double)}.
+ * <p>
+ * Three layouts are available: {@link #onHeap} and {@link #offHeap} keep each point as two doubles (16 bytes),
+ * giving exactly the same results as the equivalent GeoPoint, while {@link #packed} keeps each point in one
+ * long of fixed-point coordinates (8 bytes) accurate to within {@link #PACKED_PRECISION_METRES}.
+ * <p>
+ * Reads may run concurrently, but not with writes to the same array.
+ */
+public abstract class GeoPointArray {
+
+    /**
+     * Maximum distance between a point and its stored position in a {@link #packed} array
+     */
+    public static final double PACKED_PRECISION_METRES = 0.01;
+
+    final int size;
+
+    GeoPointArray(int size) {
+        if (size < 0) throw new IllegalArgumentException("Size cannot be negative");
+        this.size = size;
+    }
+
+    /**
+     * @return an array of the given size backed by double arrays on the heap
+     */
+    public static GeoPointArray onHeap(int size) {
+        return new Heap(size);
+    }
+
+    /**
+     * @return an array of the given size backed by a direct buffer outside the heap
+     */
+    public static GeoPointArray offHeap(int size) {
+        return new OffHeap(size);
+    }
+
+    /**
+     * @return an array of the given size storing each point's coordinates as 32-bit fixed point values
+     */
+    public static GeoPointArray packed(int size) {
+        return new Packed(size);
+    }
+
+    /**
+     * @return an on-heap array holding the given columns of lat/lon in degrees
+     */
+    public static GeoPointArray ofDegrees(double[] latsDegrees, double[] lonsDegrees) {
+        if (latsDegrees.length != lonsDegrees.length) {
+            throw new IllegalArgumentException("Latitude and longitude counts differ");
+        }
+        GeoPointArray array = onHeap(latsDegrees.length);
+        for (int i = 0; i < latsDegrees.length; i++) {
+            array.set(i, latsDegrees[i], lonsDegrees[i]);
+        }
+        return array;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Store a point given as lat/lon in degrees
+     */
+    public void set(int index, double latDegrees, double lonDegrees) {
+        checkIndex(index);
+        double lat = latDegrees / 180 * Math.PI;
+        double lon = lonDegrees / 180 * Math.PI;
+        store(index, GeoPoint.normalizeLat(lat), GeoPoint.normalizeLon(lat, lon));
+    }
+
+    public void set(int index, GeoPoint point) {
+        checkIndex(index);
+        store(index, point.lat, point.lon);
+    }
+
+    /**
+     * @return a new point at the stored position
+     */
+    public GeoPoint get(int index) {
+        checkIndex(index);
+        return new GeoPoint(lat(index), lon(index), false);
+    }
+
+    public double getLatDegrees(int index) {
+        checkIndex(index);
+        return lat(index) / Math.PI * 180;
+    }
+
+    public double getLonDegrees(int index) {
+        checkIndex(index);
+        return lon(index) / Math.PI * 180;
+    }
+
+    void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for size %d", index, size));
+        }
+    }
+
+    /**
+     * Store normalized lat/lon in radians, without checking the index
+     */
+    abstract void store(int index, double lat, double lon);
+
+    /**
+     * @return normalized latitude in radians, without checking the index
+     */
+    abstract double lat(int index);
+
+    /**
+     * @return normalized longitude in radians, without checking the index
+     */
+    abstract double lon(int index);
+
+    static final class Heap extends GeoPointArray {
+        final double[] lats;
+        final double[] lons;
+
+        Heap(int size) {
+            super(size);
+            lats = new double[size];
+            lons = new double[size];
+        }
+
+        @Override
+        void store(int index, double lat, double lon) {
+            lats[index] = lat;
+            lons[index] = lon;
+        }
+
+        @Override
+        double lat(int index) {
+            return lats[index];
+        }
+
+        @Override
+        double lon(int index) {
+            return lons[index];
+        }
+    }
+
+    static final class OffHeap extends GeoPointArray {
+        static final int BYTES_PER_POINT = 16;
+
+        /**
+         * Latitude then longitude of each point in radians, in native byte order
+         */
+        final ByteBuffer buffer;
+
+        OffHeap(int size) {
+            super(size);
+            if (size > Integer.MAX_VALUE / BYTES_PER_POINT) {
+                throw new IllegalArgumentException("Too many points for a single buffer");
+            }
+            buffer = ByteBuffer.allocateDirect(size * BYTES_PER_POINT).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        void store(int index, double lat, double lon) {
+            buffer.putDouble(index * BYTES_PER_POINT, lat);
+            buffer.putDouble(index * BYTES_PER_POINT + 8, lon);
+        }
+
+        @Override
+        double lat(int index) {
+            return buffer.getDouble(index * BYTES_PER_POINT);
+        }
+
+        @Override
+        double lon(int index) {
+            return buffer.getDouble(index * BYTES_PER_POINT + 8);
+        }
+    }
+
+    static final class Packed extends GeoPointArray {
+        /**
+         * Fixed point units per radian. Latitude uses the full int range over [-PI/2, PI/2] and longitude over
+         * [-PI, PI), which is about 5mm and 9mm per unit respectively.
+         */
+        static final double LAT_SCALE = Integer.MAX_VALUE / GeoPoint.HALF_PI;
+        static final double LON_SCALE = (1L << 31) / GeoPoint.PI;
+
+        /**
+         * Latitude in the upper 32 bits and longitude in the lower 32 bits of each point
+         */
+        final long[] values;
+
+        Packed(int size) {
+            super(size);
+            values = new long[size];
+        }
+
+        @Override
+        void store(int index, double lat, double lon) {
+            long fixedLat = Math.round(lat * LAT_SCALE);
+            // Longitude PI wraps around to -PI, which is the same meridian
+            long fixedLon = (int)Math.round(lon * LON_SCALE);
+            values[index] = (fixedLat << 32) | (fixedLon & 0xFFFFFFFFL);
+        }
+
+        @Override
+        double lat(int index) {
+            return (int)(values[index] >> 32) / LAT_SCALE;
+        }
+
+        @Override
+        double lon(int index) {
+            double lon = (int)values[index] / LON_SCALE;
+            return (lon <= -GeoPoint.PI) ? GeoPoint.PI : lon;
+        }
+    }
+}
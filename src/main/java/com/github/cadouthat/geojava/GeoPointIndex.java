@@ -0,0 +1,378 @@
+package com.github.cadouthat.geojava;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Immutable spatial index over a set of points, for finding those nearest to or within a distance of a query
+ * point. Points are held as unit vectors in an implicit k-d tree, where straight-line (chord) distance orders
+ * points the same way as distance along the surface. Results are exact: candidates are ranked by the same
+ * haversine distance as {@link GeoArc#length()}, with ties broken by the order in which points were given.
+ * <p>
+ * Queries may run concurrently.
+ */
+public class GeoPointIndex {
+
+    /**
+     * Subtrees with more points than this are built in parallel
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * Relative allowance for rounding when converting a distance limit to a chord, so that pruning never
+     * discards a point the haversine distance would accept
+     */
+    static final double CHORD_SLACK = 1e-9;
+
+    /**
+     * Points in tree order, where the node for positions lo to hi - 1 is at (lo + hi) / 2, with positions before
+     * it in its left subtree and positions after it in its right subtree
+     */
+    final GeoPoint[] points;
+
+    /**
+     * Position of each point in the collection the index was built from
+     */
+    final int[] ids;
+
+    final double[] x;
+    final double[] y;
+    final double[] z;
+    final double[] cosLat;
+
+    /**
+     * Coordinate (0 for x, 1 for y, 2 for z) which each node splits its subtrees on. Points in the left subtree
+     * are not greater than the node in that coordinate, and points in the right subtree are not less.
+     */
+    final byte[] splitDim;
+
+    /**
+     * Build an index over the given points, using the common fork-join pool for large sets
+     */
+    public GeoPointIndex(Collection<GeoPoint> points) {
+        int count = points.size();
+        GeoPoint[] input = points.toArray(new GeoPoint[count]);
+
+        double[][] coords = new double[3][count];
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            coords[0][i] = GeoVectors.x(input[i].lat, input[i].lon);
+            coords[1][i] = GeoVectors.y(input[i].lat, input[i].lon);
+            coords[2][i] = GeoVectors.z(input[i].lat);
+            order[i] = i;
+        }
+
+        splitDim = new byte[count];
+        Build build = new Build(coords, order, splitDim, 0, count);
+        if (count > PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(build);
+        }
+        else {
+            build.compute();
+        }
+
+        // Store everything in tree order, so that queries read nearby memory as they descend
+        this.points = new GeoPoint[count];
+        ids = order;
+        x = new double[count];
+        y = new double[count];
+        z = new double[count];
+        cosLat = new double[count];
+        for (int i = 0; i < count; i++) {
+            int id = order[i];
+            this.points[i] = input[id];
+            x[i] = coords[0][id];
+            y[i] = coords[1][id];
+            z[i] = coords[2][id];
+            cosLat[i] = Math.cos(input[id].lat);
+        }
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * @return up to k indexed points nearest to the given point, closest first
+     */
+    public List<GeoPoint> nearest(GeoPoint point, int k) {
+        if (k < 0) throw new IllegalArgumentException("Neighbour count cannot be negative");
+        Search search = new Search(point, Math.min(k, points.length));
+        if (search.capacity > 0) search.nearest(0, points.length);
+        return search.results();
+    }
+
+    /**
+     * @return every indexed point whose distance from the given point is at most the given radius, closest first
+     */
+    public List<GeoPoint> withinRadius(GeoPoint point, double metres) {
+        Search search = new Search(point, points.length);
+        if (metres >= 0) {
+            search.setLimit(metres);
+            search.within(0, points.length, metres);
+        }
+        return search.results();
+    }
+
+    /**
+     * Median-split construction of the subtree for positions lo to hi - 1 of order
+     */
+    static final class Build extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final double[][] coords;
+        final int[] order;
+        final byte[] splitDim;
+        final int lo;
+        final int hi;
+
+        Build(double[][] coords, int[] order, byte[] splitDim, int lo, int hi) {
+            this.coords = coords;
+            this.order = order;
+            this.splitDim = splitDim;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            build(lo, hi);
+        }
+
+        void build(int lo, int hi) {
+            if (hi - lo <= 0) return;
+            int mid = (lo + hi) >>> 1;
+            int dim = widestDim(lo, hi);
+            select(coords[dim], lo, hi, mid);
+            splitDim[mid] = (byte)dim;
+
+            if (hi - lo > PARALLEL_THRESHOLD) {
+                invokeAll(new Build(coords, order, splitDim, lo, mid),
+                        new Build(coords, order, splitDim, mid + 1, hi));
+            }
+            else {
+                build(lo, mid);
+                build(mid + 1, hi);
+            }
+        }
+
+        /**
+         * @return the coordinate with the greatest spread over the range
+         */
+        int widestDim(int lo, int hi) {
+            int widest = 0;
+            double widestSpread = -1;
+            for (int dim = 0; dim < 3; dim++) {
+                double[] key = coords[dim];
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int i = lo; i < hi; i++) {
+                    double value = key[order[i]];
+                    if (value < min) min = value;
+                    if (value > max) max = value;
+                }
+                if (max - min > widestSpread) {
+                    widest = dim;
+                    widestSpread = max - min;
+                }
+            }
+            return widest;
+        }
+
+        /**
+         * Partially sort the range so that position k holds the element it would in sorted order, with no greater
+         * elements before it and no lesser ones after it
+         */
+        void select(double[] key, int lo, int hi, int k) {
+            hi--;
+            while (hi > lo) {
+                double pivot = key[order[(lo + hi) >>> 1]];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (key[order[i]] < pivot) i++;
+                    while (key[order[j]] > pivot) j--;
+                    if (i <= j) {
+                        int swap = order[i];
+                        order[i] = order[j];
+                        order[j] = swap;
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) hi = j;
+                else if (k >= i) lo = i;
+                else return;
+            }
+        }
+    }
+
+    /**
+     * State of one query, holding the best candidates found so far as a max-heap of tree positions
+     */
+    final class Search {
+        final double qx;
+        final double qy;
+        final double qz;
+        final double qLat;
+        final double qLon;
+        final double qCosLat;
+
+        final int capacity;
+        int[] heap;
+        double[] heapDist;
+        int count;
+
+        /**
+         * Squared chord beyond which no more points are wanted
+         */
+        double limitSq = Double.POSITIVE_INFINITY;
+
+        Search(GeoPoint point, int capacity) {
+            qx = GeoVectors.x(point.lat, point.lon);
+            qy = GeoVectors.y(point.lat, point.lon);
+            qz = GeoVectors.z(point.lat);
+            qLat = point.lat;
+            qLon = point.lon;
+            qCosLat = Math.cos(point.lat);
+            this.capacity = capacity;
+            heap = new int[Math.min(capacity, 16)];
+            heapDist = new double[heap.length];
+        }
+
+        void setLimit(double metres) {
+            double angle = Math.min(metres / GeoArc.EARTH_RADIUS_METRES, Math.PI);
+            double chord = 2 * Math.sin(angle / 2) * (1 + CHORD_SLACK) + CHORD_SLACK;
+            limitSq = chord * chord;
+        }
+
+        double distance(int pos) {
+            return GeoVectors.haversine(qLat, qLon, qCosLat, points[pos].lat, points[pos].lon, cosLat[pos]);
+        }
+
+        /**
+         * Offset of the query from the node at pos along its split coordinate
+         */
+        double splitOffset(int pos) {
+            switch (splitDim[pos]) {
+                case 0: return qx - x[pos];
+                case 1: return qy - y[pos];
+                default: return qz - z[pos];
+            }
+        }
+
+        void nearest(int lo, int hi) {
+            if (lo >= hi) return;
+            int mid = (lo + hi) >>> 1;
+            offer(mid, distance(mid));
+
+            double offset = splitOffset(mid);
+            if (offset < 0) {
+                nearest(lo, mid);
+                if (offset * offset <= limitSq) nearest(mid + 1, hi);
+            }
+            else {
+                nearest(mid + 1, hi);
+                if (offset * offset <= limitSq) nearest(lo, mid);
+            }
+        }
+
+        void within(int lo, int hi, double metres) {
+            if (lo >= hi) return;
+            int mid = (lo + hi) >>> 1;
+            double dx = qx - x[mid];
+            double dy = qy - y[mid];
+            double dz = qz - z[mid];
+            if (dx * dx + dy * dy + dz * dz <= limitSq) {
+                double distance = distance(mid);
+                if (distance <= metres) add(mid, distance);
+            }
+
+            double offset = splitOffset(mid);
+            if (offset < 0 || offset * offset <= limitSq) within(lo, mid, metres);
+            if (offset >= 0 || offset * offset <= limitSq) within(mid + 1, hi, metres);
+        }
+
+        /**
+         * @return true if the candidate at position a should be ranked after the one at position b
+         */
+        boolean isAfter(double distA, int a, double distB, int b) {
+            return distA > distB || (distA == distB && ids[a] > ids[b]);
+        }
+
+        void offer(int pos, double distance) {
+            if (count < capacity) {
+                add(pos, distance);
+                if (count == capacity) setLimit(heapDist[0]);
+            }
+            else if (isAfter(heapDist[0], heap[0], distance, pos)) {
+                heap[0] = pos;
+                heapDist[0] = distance;
+                siftDown(0);
+                setLimit(heapDist[0]);
+            }
+        }
+
+        void add(int pos, double distance) {
+            if (count == heap.length) {
+                heap = Arrays.copyOf(heap, Math.min(capacity, 2 * count));
+                heapDist = Arrays.copyOf(heapDist, heap.length);
+            }
+            int i = count++;
+            heap[i] = pos;
+            heapDist[i] = distance;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!isAfter(heapDist[i], heap[i], heapDist[parent], heap[parent])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < count && isAfter(heapDist[left], heap[left], heapDist[largest], heap[largest])) {
+                    largest = left;
+                }
+                if (right < count && isAfter(heapDist[right], heap[right], heapDist[largest], heap[largest])) {
+                    largest = right;
+                }
+                if (largest == i) return;
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        void swap(int a, int b) {
+            int pos = heap[a];
+            heap[a] = heap[b];
+            heap[b] = pos;
+            double distance = heapDist[a];
+            heapDist[a] = heapDist[b];
+            heapDist[b] = distance;
+        }
+
+        /**
+         * @return points in the heap, closest first
+         */
+        List<GeoPoint> results() {
+            GeoPoint[] sorted = new GeoPoint[count];
+            while (count > 0) {
+                sorted[count - 1] = points[heap[0]];
+                swap(0, --count);
+                siftDown(0);
+            }
+            List<GeoPoint> result = new ArrayList<>(sorted.length);
+            Collections.addAll(result, sorted);
+            return result;
+        }
+    }
+}
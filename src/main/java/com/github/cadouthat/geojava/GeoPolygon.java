@@ -6,8 +6,11 @@ import java.util.List;
 
 /**
  * Represents an enclosed area on Earth's surface, defined by a sequence of points connected by arcs
+ * <p>
+ * Polygons are immutable, so a polygon may be shared between threads without synchronization. Use
+ * {@link #withExternalReferences} for a polygon with different external reference points.
  */
-public class GeoPolygon {
+public final class GeoPolygon {
 
     /**
      * The minimum distance between intersection points for them to be considered unique, in metres
@@ -18,49 +21,206 @@ public class GeoPolygon {
      * Any point known to be outside the polygon, used as the destination for even-odd intersection tests,
      * defaults to the North Pole
      */
-    GeoPoint externalReferenceA = new GeoPoint(90, 0);
+    final GeoPoint externalReferenceA;
 
     /**
      * Another point known to be outside the polygon, used as an alternative reference point whenever
      * it is closer to the point being tested, defaults to the South Pole
      */
-    GeoPoint externalReferenceB = new GeoPoint(-90, 0);
+    final GeoPoint externalReferenceB;
 
     /**
      * Vertices of the polygon in sequence around the perimeter, the last will be connected to the first to
      * form a complete loop. Must contain at least 3 vertices to define a valid polygon.
      */
-    List<GeoPoint> vertices;
+    final List<GeoPoint> vertices;
+
+    /**
+     * Conservative bounds of the perimeter, computed at construction
+     */
+    final GeoBounds bounds;
+
+    /**
+     * Whether the perimeter may separate the poles, see {@link GeoBounds#mayCross(double, double, boolean)}
+     */
+    final boolean polesSeparated;
 
     public GeoPolygon(List<GeoPoint> vertices) {
-        this.vertices = new ArrayList<>(vertices);
+        this(vertices, true);
+    }
+
+    /**
+     * @param copy whether to copy the vertex list, or take ownership of it when the caller has just built it
+     */
+    GeoPolygon(List<GeoPoint> vertices, boolean copy) {
+        this.vertices = copy ? new ArrayList<>(vertices) : vertices;
+        this.bounds = GeoBounds.ofRing(this.vertices);
+        this.polesSeparated = GeoBounds.mayRingSeparatePoles(this.vertices);
+        this.externalReferenceA = new GeoPoint(90, 0);
+        this.externalReferenceB = new GeoPoint(-90, 0);
     }
 
     public GeoPolygon(GeoPoint... vertices) {
         this(Arrays.asList(vertices));
     }
 
-    public void setExternalReferenceA(GeoPoint externalReferenceA) {
+    /**
+     * Share the perimeter of another polygon, which is never modified after construction
+     */
+    private GeoPolygon(GeoPolygon polygon, GeoPoint externalReferenceA, GeoPoint externalReferenceB) {
+        this.vertices = polygon.vertices;
+        this.bounds = polygon.bounds;
+        this.polesSeparated = polygon.polesSeparated;
         this.externalReferenceA = externalReferenceA;
+        this.externalReferenceB = externalReferenceB;
     }
 
-    public void setExternalReferenceB(GeoPoint externalReferenceB) {
-        this.externalReferenceB = externalReferenceB;
+    /**
+     * @return a polygon with the same perimeter and the given external reference points, see
+     * {@link #externalReferenceA} and {@link #externalReferenceB}
+     */
+    public GeoPolygon withExternalReferences(GeoPoint externalReferenceA, GeoPoint externalReferenceB) {
+        return new GeoPolygon(this, externalReferenceA, externalReferenceB);
+    }
+
+    /**
+     * @return conservative latitude/longitude bounds of the perimeter
+     */
+    public GeoBounds getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Determine whether the external references are the North and South Poles (in either order), which allows
+     * points to be rejected using the bounds
+     */
+    static boolean isPolarReferencePair(GeoPoint referenceA, GeoPoint referenceB) {
+        double halfPi = Math.PI / 2;
+        return (referenceA.lat == halfPi && referenceB.lat == -halfPi) ||
+                (referenceA.lat == -halfPi && referenceB.lat == halfPi);
+    }
+
+    /**
+     * Simplify the perimeter with the Douglas-Peucker algorithm, keeping the same external reference points
+     *
+     * @param toleranceMetres greatest distance of a removed vertex from the simplified perimeter
+     */
+    public GeoPolygon simplify(double toleranceMetres) {
+        GeoPolygon simplified = new GeoPolygon(GeoSimplifier.simplifyRing(vertices, toleranceMetres), false);
+        return simplified.withExternalReferences(externalReferenceA, externalReferenceB);
+    }
+
+    /**
+     * Find every crossing between two edges of the perimeter, where edge i runs from vertex i to vertex i - 1.
+     * The even-odd rule gives no consistent inside to a perimeter which crosses itself, so containment tests of
+     * such polygons may give unexpected results.
+     */
+    public List<GeoArcIntersector.Crossing> findSelfIntersections() {
+        return GeoArcIntersector.findRingCrossings(vertices, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return true if the polygon has at least 3 vertices and its perimeter does not cross itself
+     */
+    public boolean isSimple() {
+        return vertices.size() >= 3 && GeoArcIntersector.findRingCrossings(vertices, 1).isEmpty();
+    }
+
+    /**
+     * @return true if the two polygons share any area, see {@link PreparedGeoPolygon#intersects}. Both polygons
+     * are prepared on every call, so callers testing a polygon more than once should {@link #prepare()} it once
+     * and use the prepared form.
+     */
+    public boolean intersects(GeoPolygon other) {
+        return prepare().intersects(other.prepare());
+    }
+
+    /**
+     * @return true if every point inside the other polygon is also inside this one, see
+     * {@link PreparedGeoPolygon#contains(PreparedGeoPolygon)}. Both polygons are prepared on every call.
+     */
+    public boolean contains(GeoPolygon other) {
+        return prepare().contains(other.prepare());
+    }
+
+    /**
+     * @return true if the two polygons share no area. Both polygons are prepared on every call.
+     */
+    public boolean isDisjoint(GeoPolygon other) {
+        return !intersects(other);
+    }
+
+    /**
+     * @return distance in metres from the point to the nearest point of the perimeter, see
+     * {@link PreparedGeoPolygon#distanceToBoundary}. The polygon is prepared on every call, so callers measuring
+     * more than one point should {@link #prepare()} it once and use the prepared form.
+     */
+    public double distanceToBoundary(GeoPoint point) {
+        return prepare().distanceToBoundary(point);
+    }
+
+    /**
+     * @return true if the point is inside the polygon grown by a buffer distance, or shrunk for a negative
+     * buffer, see {@link PreparedGeoPolygon#containsBuffered}. The polygon is prepared on every call, so callers
+     * testing more than one point should {@link #prepare()} it once and use the prepared form.
+     */
+    public boolean containsBuffered(GeoPoint point, double bufferMetres) {
+        return prepare().containsBuffered(point, bufferMetres);
+    }
+
+    /**
+     * @return an immutable snapshot of this polygon with its edge geometry precomputed for repeated
+     * containment tests
+     */
+    public PreparedGeoPolygon prepare() {
+        return new PreparedGeoPolygon(this);
     }
 
     /**
      * @return true if the given point lies inside the polygon, based on the even-odd rule
      */
     public boolean contains(GeoPoint point) {
+        GeoMetricsListener listener = GeoMetrics.listener;
+        if (listener == null) return contains(point, null);
+
+        long start = System.nanoTime();
+        GeoMetrics.ContainmentStats stats = new GeoMetrics.ContainmentStats();
+        boolean inside = contains(point, stats);
+        stats.report(listener, inside, System.nanoTime() - start);
+        return inside;
+    }
+
+    /**
+     * @param stats receives details of the test, or null when not instrumented
+     */
+    private boolean contains(GeoPoint point, GeoMetrics.ContainmentStats stats) {
         // Fewer than 3 vertices do not define a polygon and cannot contain anything
-        if (vertices.size() < 3) return false;
+        if (vertices.size() < 3) {
+            if (stats != null) stats.rejected = true;
+            return false;
+        }
+
+        GeoPoint referenceA = externalReferenceA;
+        GeoPoint referenceB = externalReferenceB;
+
+        // Points which no test arc from could cross the perimeter are rejected without checking each edge
+        if (isPolarReferencePair(referenceA, referenceB) &&
+                !bounds.mayCross(point.lat, point.lon, polesSeparated)) {
+            if (stats != null) stats.rejected = true;
+            return false;
+        }
 
         // The shortest arc between the point and external references will be used for testing
-        GeoArc pointArcA = new GeoArc(point, externalReferenceA);
-        GeoArc pointArcB = new GeoArc(point, externalReferenceB);
-        GeoArc pointArc = (pointArcA.length() < pointArcB.length()) ? pointArcA : pointArcB;
+        GeoArc pointArcA = new GeoArc(point, referenceA);
+        GeoArc pointArcB = new GeoArc(point, referenceB);
+        boolean useA = pointArcA.length() < pointArcB.length();
+        GeoArc pointArc = useA ? pointArcA : pointArcB;
 
-        GeoPoint[] intersectionPoints = new GeoPoint[vertices.size()];
+        // Intersections are counted in a single pass, skipping any that duplicate one on the previous edge
+        GeoPoint firstPoint = null;
+        GeoPoint prevPoint = null;
+        int intersections = 0;
+        int duplicates = 0;
         for (int i = 0; i < vertices.size(); i++) {
             // Check each arc between adjacent vertices
             GeoPoint vertex1 = vertices.get(i);
@@ -69,32 +229,41 @@ public class GeoPolygon {
                     vertices.get(vertices.size() - 1);
             GeoArc vertexArc = new GeoArc(vertex1, vertex2);
 
-            // Store the intersection point on this edge (if any)
-            intersectionPoints[i] = pointArc.intersect(vertexArc);
-        }
+            // The intersection point on this edge (if any)
+            GeoPoint iPoint = pointArc.intersect(vertexArc);
 
-        // Count the number of unique intersections
-        int intersections = 0;
-        for (int i = 0; i < intersectionPoints.length; i++) {
-            GeoPoint iPoint = intersectionPoints[i];
-            if (iPoint == null) continue;
-
-            // If there was an intersection on the previous edge, determine if iPoint is a duplicate
-            GeoPoint prevPoint = (i > 0) ?
-                    intersectionPoints[i - 1] :
-                    intersectionPoints[intersectionPoints.length - 1];
-            if (prevPoint != null) {
-                GeoArc comparisonArc = new GeoArc(prevPoint, iPoint);
-                if (comparisonArc.length() <= UNIQUE_INTERSECTION_DIST) {
-                    // iPoint will not be counted, but prevPoint has or will be
-                    iPoint = null;
-                }
+            if (i == 0) {
+                // The first edge is compared against the last one, once it is known
+                firstPoint = iPoint;
+            }
+            else if (iPoint != null) {
+                if (!isDuplicate(prevPoint, iPoint)) intersections++;
+                else duplicates++;
             }
+            prevPoint = iPoint;
+        }
+        if (firstPoint != null) {
+            if (!isDuplicate(prevPoint, firstPoint)) intersections++;
+            else duplicates++;
+        }
 
-            if (iPoint != null) intersections++;
+        if (stats != null) {
+            stats.edgesTested = vertices.size();
+            stats.intersections = intersections;
+            stats.duplicatesSuppressed = duplicates;
+            stats.usedReferenceA = useA;
         }
 
         // The point is considered inside the polygon if the number of intersections is odd
         return (intersections % 2) > 0;
     }
+
+    /**
+     * @return true if an intersection point on the previous edge (if any) is too close for iPoint to be unique
+     */
+    static boolean isDuplicate(GeoPoint prevPoint, GeoPoint iPoint) {
+        if (prevPoint == null) return false;
+        GeoArc comparisonArc = new GeoArc(prevPoint, iPoint);
+        return comparisonArc.length() <= UNIQUE_INTERSECTION_DIST;
+    }
 }
@@ -0,0 +1,306 @@
+package com.github.cadouthat.geojava;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spatial index over a set of polygons, for finding which of them contain a point. Polygons are placed in a
+ * grid of latitude/longitude cells by their bounds, so that only those near a point are tested exactly.
+ * <p>
+ * Polygons are prepared once when added. Queries may run concurrently with each other, but not with
+ * {@link #add} or {@link #remove}.
+ */
+public class GeoPolygonIndex {
+
+    public static final double DEFAULT_CELL_DEGREES = 1;
+
+    /**
+     * Polygons whose bounds would cover more cells than this are kept in a separate list which every query checks
+     */
+    static final int MAX_CELLS_PER_POLYGON = 4096;
+
+    static class Entry {
+        final GeoPolygon polygon;
+        final PreparedGeoPolygon prepared;
+        final GeoBounds bounds;
+
+        Entry(GeoPolygon polygon, PreparedGeoPolygon prepared) {
+            this.polygon = polygon;
+            this.prepared = prepared;
+            this.bounds = prepared.containmentBounds;
+        }
+    }
+
+    final double cellRadians;
+    final int rows;
+    final int cols;
+
+    /**
+     * Entries overlapping each cell, indexed by row * cols + col and created as needed
+     */
+    final List<Entry>[] cells;
+
+    /**
+     * Entries with bounds too large to place in cells
+     */
+    final List<Entry> oversized = new ArrayList<>();
+
+    final Map<GeoPolygon, Entry> entries = new IdentityHashMap<>();
+
+    public GeoPolygonIndex() {
+        this(DEFAULT_CELL_DEGREES);
+    }
+
+    /**
+     * @param cellDegrees size of each grid cell, smaller cells suit smaller and more densely packed polygons
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public GeoPolygonIndex(double cellDegrees) {
+        if (!(cellDegrees > 0 && cellDegrees <= 180)) {
+            throw new IllegalArgumentException("Cell size must be in (0, 180] degrees");
+        }
+        rows = (int)Math.ceil(180 / cellDegrees);
+        cols = (int)Math.ceil(360 / cellDegrees);
+        cellRadians = cellDegrees / 180 * Math.PI;
+        cells = new List[rows * cols];
+    }
+
+    /**
+     * Bulk load the given polygons into an index with the default cell size
+     */
+    public GeoPolygonIndex(Collection<GeoPolygon> polygons) {
+        this();
+
+        // Count entries per cell first, so that each cell list is allocated once at its final size
+        List<Entry> added = new ArrayList<>(polygons.size());
+        final int[] cellSize = new int[cells.length];
+        CellAction count = new CellAction() {
+            @Override
+            public void apply(int cell) {
+                cellSize[cell]++;
+            }
+        };
+        for (GeoPolygon polygon : polygons) {
+            if (entries.containsKey(polygon)) continue;
+            Entry entry = new Entry(polygon, polygon.prepare());
+            entries.put(polygon, entry);
+            added.add(entry);
+            forEachCell(entry, count);
+        }
+
+        for (Entry entry : added) {
+            place(entry, cellSize);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Add a polygon to the index, replacing it if already present
+     */
+    public void add(GeoPolygon polygon) {
+        add(polygon, polygon.prepare());
+    }
+
+    /**
+     * Add a polygon using an existing prepared form of it
+     */
+    void add(GeoPolygon polygon, PreparedGeoPolygon prepared) {
+        remove(polygon);
+        Entry entry = new Entry(polygon, prepared);
+        entries.put(polygon, entry);
+        place(entry, null);
+    }
+
+    public void addAll(Collection<GeoPolygon> polygons) {
+        for (GeoPolygon polygon : polygons) {
+            add(polygon);
+        }
+    }
+
+    /**
+     * @return true if the polygon was in the index
+     */
+    public boolean remove(GeoPolygon polygon) {
+        final Entry entry = entries.remove(polygon);
+        if (entry == null) return false;
+
+        boolean inCells = forEachCell(entry, new CellAction() {
+            @Override
+            public void apply(int cell) {
+                cells[cell].remove(entry);
+                if (cells[cell].isEmpty()) cells[cell] = null;
+            }
+        });
+        if (!inCells) oversized.remove(entry);
+        return true;
+    }
+
+    interface CellAction {
+        void apply(int cell);
+    }
+
+    /**
+     * Apply an action to every cell covered by the bounds of an entry, of which there are none for empty bounds
+     *
+     * @return false without applying the action if the entry is too large to place in cells
+     */
+    boolean forEachCell(Entry entry, CellAction action) {
+        if (entry.bounds.isEmpty()) return true;
+        if (cellCount(entry.bounds) > MAX_CELLS_PER_POLYGON) return false;
+
+        int firstRow = row(entry.bounds.minLat);
+        int lastRow = row(entry.bounds.maxLat);
+        int firstCol = col(entry.bounds.west);
+        int colCount = colCount(entry.bounds);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = 0; c < colCount; c++) {
+                action.apply(r * cols + (firstCol + c) % cols);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Place an entry in the cells it covers, or the oversized list
+     *
+     * @param cellSize final number of entries in each cell when known, to allocate new cell lists at, or null
+     */
+    void place(final Entry entry, final int[] cellSize) {
+        boolean inCells = forEachCell(entry, new CellAction() {
+            @Override
+            public void apply(int cell) {
+                if (cells[cell] == null) {
+                    cells[cell] = (cellSize != null) ? new ArrayList<Entry>(cellSize[cell]) : new ArrayList<Entry>();
+                }
+                cells[cell].add(entry);
+            }
+        });
+        if (!inCells) oversized.add(entry);
+    }
+
+    /**
+     * @return every polygon in the index which contains the given point
+     */
+    public List<GeoPolygon> findContaining(GeoPoint point) {
+        List<GeoPolygon> result = new ArrayList<>();
+        List<Entry> cell = cells[row(point.lat) * cols + col(point.lon)];
+        if (cell != null) {
+            for (Entry entry : cell) {
+                if (entry.bounds.contains(point.lat, point.lon) && entry.prepared.contains(point.lat, point.lon)) {
+                    result.add(entry.polygon);
+                }
+            }
+        }
+        for (Entry entry : oversized) {
+            if (entry.bounds.contains(point.lat, point.lon) && entry.prepared.contains(point.lat, point.lon)) {
+                result.add(entry.polygon);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find candidate polygons for a region. Only bounds are compared, so the result may include polygons which
+     * do not actually reach into the region.
+     *
+     * @return every polygon in the index whose bounds intersect the region
+     */
+    public List<GeoPolygon> findIntersectingRegion(GeoBounds region) {
+        List<GeoPolygon> result = new ArrayList<>();
+        if (region.isEmpty()) return result;
+
+        int firstRow = row(region.minLat);
+        int lastRow = row(region.maxLat);
+        int firstCol = col(region.west);
+        int colCount = colCount(region);
+
+        // Entries can only be found more than once when the region spans several cells
+        Set<Entry> seen = (firstRow == lastRow && colCount == 1) ?
+                null :
+                Collections.newSetFromMap(new IdentityHashMap<Entry, Boolean>());
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = 0; c < colCount; c++) {
+                List<Entry> cell = cells[r * cols + (firstCol + c) % cols];
+                if (cell == null) continue;
+                for (Entry entry : cell) {
+                    if (entry.bounds.intersects(region) && (seen == null || seen.add(entry))) {
+                        result.add(entry.polygon);
+                    }
+                }
+            }
+        }
+        for (Entry entry : oversized) {
+            if (entry.bounds.intersects(region)) {
+                result.add(entry.polygon);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return every polygon in the index which shares any area with the given polygon, see
+     * {@link PreparedGeoPolygon#intersects}. A polygon which is itself in the index is found along with the
+     * others, and is not prepared again.
+     */
+    public List<GeoPolygon> findIntersecting(GeoPolygon polygon) {
+        Entry own = entries.get(polygon);
+        PreparedGeoPolygon prepared = (own != null) ? own.prepared : polygon.prepare();
+        List<GeoPolygon> result = new ArrayList<>();
+        for (GeoPolygon candidate : findIntersectingRegion(prepared.containmentBounds)) {
+            if (entries.get(candidate).prepared.intersects(prepared)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return every polygon in the index which contains the point or whose perimeter passes within the given
+     * distance of it, see {@link PreparedGeoPolygon#containsBuffered}
+     */
+    public List<GeoPolygon> findWithinDistance(GeoPoint point, double metres) {
+        if (!(metres >= 0)) return findContaining(point);
+        GeoBounds region = GeoBounds.around(point.lat, point.lon, metres / GeoArc.EARTH_RADIUS_METRES);
+        List<GeoPolygon> result = new ArrayList<>();
+        for (GeoPolygon candidate : findIntersectingRegion(region)) {
+            if (entries.get(candidate).prepared.containsBuffered(point, metres)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    int row(double lat) {
+        int row = (int)Math.floor((lat + GeoBounds.HALF_PI) / cellRadians);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    int col(double lon) {
+        int col = (int)Math.floor((lon + Math.PI) / cellRadians);
+        return Math.max(0, Math.min(cols - 1, col));
+    }
+
+    /**
+     * @return number of columns spanned eastward from the western limit of the bounds
+     */
+    int colCount(GeoBounds bounds) {
+        if (bounds.lonSpan >= GeoBounds.TWO_PI) return cols;
+        int first = col(bounds.west);
+        int last = col(GeoBounds.normalizeLon(bounds.west + bounds.lonSpan));
+        int count = last - first + 1;
+        if (count <= 0 || (count == 1 && bounds.lonSpan > Math.PI)) count += cols;
+        return Math.min(count, cols);
+    }
+
+    long cellCount(GeoBounds bounds) {
+        return (long)(row(bounds.maxLat) - row(bounds.minLat) + 1) * colCount(bounds);
+    }
+}
@@ -0,0 +1,315 @@
+package com.github.cadouthat.geojava;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders polygon containment onto an equirectangular grid of pixels, such as for coverage masks and image
+ * overlays. Pixel (x, y) represents the point at longitude minLon + x / width * lonSpan and latitude
+ * maxLat - y / height * latSpan, in degrees.
+ * <p>
+ * With the default polar external references, containment tests cast arcs along the point's meridian, so all
+ * pixels in a column share the same test meridian. Each column finds where edges cross its meridian once,
+ * then classifies its pixels by counting the crossings between each pixel and the nearer pole. This is the
+ * same rule as {@link ContainmentMode#CROSSING_COUNT}, so results agree with containment tests except for
+ * pixels within rounding error of the perimeter. Pixels at the poles, and polygons with other external
+ * references, are tested one pixel at a time.
+ * <p>
+ * Columns are rendered in parallel on the common fork-join pool. A rasterizer may be used concurrently.
+ */
+public class GeoPolygonRasterizer {
+
+    /**
+     * Columns rendered by each parallel task, a multiple of 64 so that tasks never share words of a bit mask
+     */
+    static final int TILE_COLUMNS = 64;
+
+    final int width;
+    final int height;
+
+    final double minLatDegrees;
+    final double minLonDegrees;
+    final double latSpanDegrees;
+    final double lonSpanDegrees;
+
+    /**
+     * Normalized latitude of each row and longitude of each column in radians
+     */
+    final double[] rowLat;
+    final double[] columnLon;
+
+    public GeoPolygonRasterizer(int width, int height, GeoPoint minBound, GeoPoint maxBound) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Grid must have at least one pixel");
+        this.width = width;
+        this.height = height;
+        minLatDegrees = minBound.getLatDegrees();
+        minLonDegrees = minBound.getLonDegrees();
+        latSpanDegrees = maxBound.getLatDegrees() - minLatDegrees;
+        lonSpanDegrees = maxBound.getLonDegrees() - minLonDegrees;
+
+        rowLat = new double[height];
+        for (int y = 0; y < height; y++) {
+            rowLat[y] = GeoPoint.normalizeLat(latDegrees(y) / 180 * Math.PI);
+        }
+        columnLon = new double[width];
+        for (int x = 0; x < width; x++) {
+            columnLon[x] = GeoPoint.normalizeLon(0, lonDegrees(x) / 180 * Math.PI);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return number of longs in each row of a bit mask, see {@link #rasterize(PreparedGeoPolygon, long[])}
+     */
+    public int getMaskWordsPerRow() {
+        return (width + 63) / 64;
+    }
+
+    /**
+     * @return whether the pixel is set in a bit mask, see {@link #rasterize(PreparedGeoPolygon, long[])}
+     */
+    public boolean isSet(long[] mask, int x, int y) {
+        return (mask[y * getMaskWordsPerRow() + x / 64] & (1L << x)) != 0;
+    }
+
+    /**
+     * @return the pixel column nearest to the point's longitude, clamped to the grid
+     */
+    public int projectX(GeoPoint point) {
+        double normX = (point.getLonDegrees() - minLonDegrees) / lonSpanDegrees;
+        int x = (int)Math.round(normX * width);
+        return Math.max(0, Math.min(width - 1, x));
+    }
+
+    /**
+     * @return the pixel row nearest to the point's latitude, clamped to the grid
+     */
+    public int projectY(GeoPoint point) {
+        double normY = (point.getLatDegrees() - minLatDegrees) / latSpanDegrees;
+        int y = (int)Math.round((1 - normY) * height);
+        return Math.max(0, Math.min(height - 1, y));
+    }
+
+    /**
+     * @return the point represented by a pixel
+     */
+    public GeoPoint unProject(int x, int y) {
+        return new GeoPoint(latDegrees(y), lonDegrees(x));
+    }
+
+    double latDegrees(int y) {
+        double normY = y / (double)height;
+        return (1 - normY) * latSpanDegrees + minLatDegrees;
+    }
+
+    double lonDegrees(int x) {
+        double normX = x / (double)width;
+        return normX * lonSpanDegrees + minLonDegrees;
+    }
+
+    /**
+     * Fill a row-major buffer of width * height values, such as ARGB pixels
+     */
+    public void rasterize(GeoPolygon polygon, int[] pixels, int insideValue, int outsideValue) {
+        rasterize(prepare(polygon), pixels, insideValue, outsideValue);
+    }
+
+    public void rasterize(PreparedGeoPolygon polygon, int[] pixels, int insideValue, int outsideValue) {
+        if (pixels.length < width * height) throw new IllegalArgumentException("Buffer is smaller than the grid");
+        render(polygon, null, pixels, insideValue, outsideValue);
+    }
+
+    /**
+     * Set or clear a bit for every pixel. Each row starts at a new word, so the bit for pixel (x, y) is bit x % 64
+     * of mask[y * {@link #getMaskWordsPerRow()} + x / 64].
+     */
+    public void rasterize(GeoPolygon polygon, long[] mask) {
+        rasterize(prepare(polygon), mask);
+    }
+
+    public void rasterize(PreparedGeoPolygon polygon, long[] mask) {
+        if (mask.length < getMaskWordsPerRow() * height) {
+            throw new IllegalArgumentException("Mask is smaller than the grid");
+        }
+        render(polygon, mask, null, 0, 0);
+    }
+
+    static PreparedGeoPolygon prepare(GeoPolygon polygon) {
+        return new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT, true);
+    }
+
+    void render(PreparedGeoPolygon polygon, long[] mask, int[] pixels, int insideValue, int outsideValue) {
+        Render task = new Render(polygon, mask, pixels, insideValue, outsideValue, 0, width);
+        if (width > TILE_COLUMNS) {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        else {
+            task.compute();
+        }
+    }
+
+    /**
+     * Rendering of columns from to to - 1
+     */
+    final class Render extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final PreparedGeoPolygon polygon;
+        final long[] mask;
+        final int[] pixels;
+        final int insideValue;
+        final int outsideValue;
+        final int from;
+        final int to;
+
+        /**
+         * Latitudes where edges cross the current column's meridian
+         */
+        double[] crossings = new double[16];
+
+        Render(PreparedGeoPolygon polygon, long[] mask, int[] pixels, int insideValue, int outsideValue,
+               int from, int to) {
+            this.polygon = polygon;
+            this.mask = mask;
+            this.pixels = pixels;
+            this.insideValue = insideValue;
+            this.outsideValue = outsideValue;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int mid = from + (to - from) / 2 / TILE_COLUMNS * TILE_COLUMNS;
+            if (mid > from) {
+                invokeAll(new Render(polygon, mask, pixels, insideValue, outsideValue, from, mid),
+                        new Render(polygon, mask, pixels, insideValue, outsideValue, mid, to));
+                return;
+            }
+            for (int x = from; x < to; x++) {
+                renderColumn(x);
+            }
+        }
+
+        void renderColumn(int x) {
+            double lon = columnLon[x];
+            if (!polygon.boundsApplicable || polygon.edgeCount < 3) {
+                for (int y = 0; y < height; y++) {
+                    set(x, y, polygon.contains(rowLat[y], lon));
+                }
+                return;
+            }
+
+            int count = findCrossings(lon);
+            Arrays.sort(crossings, 0, count);
+
+            boolean northIsA = polygon.refALat > 0;
+            for (int y = 0; y < height; y++) {
+                double lat = rowLat[y];
+                boolean inside;
+                if (Math.abs(lat) >= GeoBounds.HALF_PI) {
+                    inside = polygon.contains(lat, lon);
+                }
+                else {
+                    // Test arcs run to the nearer pole, with the equator going to reference B
+                    boolean useA = northIsA ? lat > 0 : lat < 0;
+                    boolean north = useA == northIsA;
+                    int below = countBelow(count, lat);
+                    inside = ((north ? count - below : below) % 2) > 0;
+                }
+                set(x, y, inside);
+            }
+        }
+
+        /**
+         * Find latitudes where edges cross the meridian at the given longitude, classifying vertices by the
+         * side of the meridian's plane they lie on in the same way as {@link ContainmentMode#CROSSING_COUNT}
+         *
+         * @return number of crossings written to the start of the crossings array
+         */
+        int findCrossings(double lon) {
+            // Normal of the meridian's plane, and the direction of the meridian from the axis
+            double mx = Math.sin(lon);
+            double my = -Math.cos(lon);
+            double ex = -my;
+            double ey = mx;
+
+            int[] candidates = null;
+            int start = 0;
+            int end = polygon.edgeCount;
+            GeoEdgeIndex edgeIndex = polygon.edgeIndex;
+            if (edgeIndex != null) {
+                int band = edgeIndex.band(lon);
+                if (band < 0) return 0;
+                candidates = edgeIndex.bandEdges;
+                start = edgeIndex.bandStart[band];
+                end = edgeIndex.bandStart[band + 1];
+            }
+
+            double[] x = polygon.x;
+            double[] y = polygon.y;
+            double[] z = polygon.z;
+            int count = 0;
+            for (int k = start; k < end; k++) {
+                int i = (candidates != null) ? candidates[k] : k;
+                int j = (i > 0) ? i - 1 : polygon.edgeCount - 1;
+                double da = mx * x[i] + my * y[i];
+                double db = mx * x[j] + my * y[j];
+                if ((da >= 0) == (db >= 0)) continue;
+
+                // Point on the edge's chord where it meets the plane, weighted to lie between the vertices
+                double px, py, pz;
+                if (db >= 0) {
+                    px = x[i] * db - x[j] * da;
+                    py = y[i] * db - y[j] * da;
+                    pz = z[i] * db - z[j] * da;
+                }
+                else {
+                    px = x[j] * da - x[i] * db;
+                    py = y[j] * da - y[i] * db;
+                    pz = z[j] * da - z[i] * db;
+                }
+
+                // Crossings of the opposite meridian are not on any test arc from this column
+                if (px * ex + py * ey <= 0) continue;
+
+                if (count == crossings.length) crossings = Arrays.copyOf(crossings, 2 * count);
+                crossings[count++] = GeoVectors.lat(px, py, pz);
+            }
+            return count;
+        }
+
+        /**
+         * @return number of sorted crossings with latitude less than the given latitude
+         */
+        int countBelow(int count, double lat) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (crossings[mid] < lat) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        void set(int x, int y, boolean inside) {
+            if (pixels != null) {
+                pixels[y * width + x] = inside ? insideValue : outsideValue;
+            }
+            else {
+                int word = y * getMaskWordsPerRow() + x / 64;
+                if (inside) mask[word] |= 1L << x;
+                else mask[word] &= ~(1L << x);
+            }
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.github.cadouthat.geojava;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only set of prepared polygons loaded from a binary file by memory mapping, so that the precomputed edge
+ * geometry and edge indexes do not need to be parsed or recalculated at startup, and so that processes loading
+ * the same file share it through the page cache. Containment tests read the geometry directly from the mapping,
+ * and an index of polygons by longitude band in the file limits each query to the polygons near the point.
+ * Polygons are identified by their position in the list they were written from.
+ * <p>
+ * The file is little-endian, with a 16 byte header (magic number, format version, polygon count, polygon band
+ * count), then an 88 byte table record per polygon (data offset, vertex count, flags, external references,
+ * perimeter bounds and edge index sizes), then the polygon band index as int arrays (see {@link GeoEdgeIndex},
+ * with polygons in place of edges and bands across all longitudes). Each polygon's data follows, as its vertex
+ * coordinates, edge normals and edge lengths as arrays of doubles, then for polygons with an edge index the
+ * arrays of that index as ints. Each section is padded to a multiple of 8 bytes.
+ * <p>
+ * Queries may run concurrently.
+ */
+public final class GeoPolygonStore {
+
+    static final int MAGIC = 0x504F4547;
+    static final int VERSION = 2;
+
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 88;
+
+    static final int FLAG_POLES_SEPARATED = 1;
+
+    /**
+     * Target average number of polygons in each band of the polygon band index
+     */
+    static final int POLYGONS_PER_BAND = 4;
+
+    final ByteBuffer data;
+    final int count;
+    final ContainmentMode mode;
+
+    /**
+     * Bounds of every point each polygon can contain, for rejecting polygons without reading their geometry
+     */
+    final GeoBounds[] containmentBounds;
+
+    /**
+     * Polygons whose containment bounds reach into band b are bandPolygons[bandStart[b]] to
+     * bandPolygons[bandStart[b + 1] - 1], in ascending order
+     */
+    final int bandCount;
+    final IntBuffer bandStart;
+    final IntBuffer bandPolygons;
+
+    final AtomicReferenceArray<MappedGeoPolygon> mapped;
+    final AtomicReferenceArray<PreparedGeoPolygon> prepared;
+
+    GeoPolygonStore(ByteBuffer data, ContainmentMode mode) throws IOException {
+        this.data = data;
+        this.mode = mode;
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a polygon store");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported polygon store version " + data.getInt(4));
+        }
+        count = data.getInt(8);
+        bandCount = data.getInt(12);
+        long indexStart = HEADER_BYTES + (long)count * RECORD_BYTES;
+        if (count < 0 || bandCount < 1 || bandCount > GeoEdgeIndex.MAX_BANDS ||
+                indexStart + (bandCount + 1) * 4L > data.capacity()) {
+            throw new IOException("Polygon store is truncated");
+        }
+        int listed = data.getInt((int)indexStart + bandCount * 4);
+        if (listed < 0 || indexStart + (bandCount + 1L + listed) * 4 > data.capacity()) {
+            throw new IOException("Polygon store is truncated");
+        }
+        bandStart = intView((int)indexStart, bandCount + 1);
+        bandPolygons = intView((int)indexStart + (bandCount + 1) * 4, listed);
+        for (int k = 0; k < listed; k++) {
+            int polygon = bandPolygons.get(k);
+            if (polygon < 0 || polygon >= count) throw new IOException("Polygon store index is corrupt");
+        }
+
+        containmentBounds = new GeoBounds[count];
+        for (int i = 0; i < count; i++) {
+            int record = HEADER_BYTES + i * RECORD_BYTES;
+            long offset = data.getLong(record);
+            int vertexCount = data.getInt(record + 8);
+            int edgeBands = data.getInt(record + 80);
+            int edgeListed = data.getInt(record + 84);
+            if (offset < 0 || vertexCount < 0 || edgeBands < 0 || edgeBands > GeoEdgeIndex.MAX_BANDS ||
+                    edgeListed < 0 || offset + polygonBytes(vertexCount, edgeBands, edgeListed) > data.capacity()) {
+                throw new IOException("Polygon store is truncated");
+            }
+            containmentBounds[i] = PreparedGeoPolygon.containmentBounds(bounds(record),
+                    PreparedGeoPolygon.isPolarReferencePair(data.getDouble(record + 16), data.getDouble(record + 32)),
+                    (data.getInt(record + 12) & FLAG_POLES_SEPARATED) != 0);
+        }
+        mapped = new AtomicReferenceArray<>(count);
+        prepared = new AtomicReferenceArray<>(count);
+    }
+
+    /**
+     * Map a store file, using the default containment mode
+     */
+    public static GeoPolygonStore open(Path file) throws IOException {
+        return open(file, ContainmentMode.INTERSECTION_POINTS);
+    }
+
+    /**
+     * Map a store file. The file must not be modified while the store is in use.
+     */
+    public static GeoPolygonStore open(Path file, ContainmentMode mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Polygon store is too large to map");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new GeoPolygonStore(mapped, mode);
+        }
+    }
+
+    /**
+     * Write polygons to a store file, including their current external reference points
+     */
+    public static void write(List<GeoPolygon> polygons, Path file) throws IOException {
+        int count = polygons.size();
+        int[][] polygonIndex = polygonIndex(polygons);
+        ByteBuffer table = ByteBuffer.allocate(HEADER_BYTES + count * RECORD_BYTES +
+                padded((polygonIndex[0].length + polygonIndex[1].length) * 4)).order(ByteOrder.LITTLE_ENDIAN);
+        table.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(polygonIndex[0].length - 1);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Polygon data is written after the table, which is filled in as each polygon's index sizes are known
+            long offset = table.capacity();
+            channel.position(offset);
+            for (GeoPolygon polygon : polygons) {
+                int vertexCount = polygon.vertices.size();
+                double[][] geometry = PreparedGeoPolygon.computeGeometry(polygon.vertices);
+                double[] references = references(polygon);
+                GeoEdgeIndex edgeIndex = (vertexCount >= PreparedGeoPolygon.EDGE_INDEX_MIN_VERTICES) ?
+                        PreparedGeoPolygon.buildEdgeIndex(geometry, references, polygon.bounds) :
+                        null;
+                int edgeBands = (edgeIndex != null) ? edgeIndex.bandCount : 0;
+                int edgeListed = (edgeIndex != null) ? edgeIndex.bandEdges.length : 0;
+
+                GeoBounds bounds = polygon.bounds;
+                table.putLong(offset)
+                        .putInt(vertexCount)
+                        .putInt(polygon.polesSeparated ? FLAG_POLES_SEPARATED : 0)
+                        .putDouble(references[0])
+                        .putDouble(references[1])
+                        .putDouble(references[2])
+                        .putDouble(references[3])
+                        .putDouble(bounds.minLat)
+                        .putDouble(bounds.maxLat)
+                        .putDouble(bounds.west)
+                        .putDouble(bounds.lonSpan)
+                        .putInt(edgeBands)
+                        .putInt(edgeListed);
+
+                long size = polygonBytes(vertexCount, edgeBands, edgeListed);
+                ByteBuffer buffer = ByteBuffer.allocate((int)size).order(ByteOrder.LITTLE_ENDIAN);
+                DoubleBuffer doubles = buffer.asDoubleBuffer();
+                for (double[] values : geometry) {
+                    doubles.put(values);
+                }
+                if (edgeIndex != null) {
+                    buffer.position(vertexCount * geometry.length * 8);
+                    IntBuffer ints = buffer.asIntBuffer();
+                    ints.put(edgeIndex.bandStart).put(edgeIndex.bandEdges)
+                            .put(edgeIndex.edgeFirstBand).put(edgeIndex.edgeLastBand);
+                    buffer.position(0);
+                }
+                writeFully(channel, buffer);
+                offset += size;
+            }
+
+            // The band index follows the table records
+            table.asIntBuffer().put(polygonIndex[0]).put(polygonIndex[1]);
+            table.position(0);
+            channel.position(0);
+            writeFully(channel, table);
+        }
+    }
+
+    /**
+     * @return lat/lon in radians of external reference A, then of external reference B
+     */
+    private static double[] references(GeoPolygon polygon) {
+        return new double[] {
+                polygon.externalReferenceA.lat, polygon.externalReferenceA.lon,
+                polygon.externalReferenceB.lat, polygon.externalReferenceB.lon
+        };
+    }
+
+    /**
+     * Index polygons by the longitude bands their containment bounds reach into, with a margin so that points
+     * on the edge of the bounds are never placed in an unlisted band
+     *
+     * @return band starts, then the polygons listed in each band
+     */
+    static int[][] polygonIndex(List<GeoPolygon> polygons) {
+        int count = polygons.size();
+        int bands = Math.max(1, Math.min(GeoEdgeIndex.MAX_BANDS, count / POLYGONS_PER_BAND));
+        double scale = bands / GeoBounds.TWO_PI;
+
+        int[] first = new int[count];
+        int[] last = new int[count];
+        int[] bandSize = new int[bands];
+        for (int i = 0; i < count; i++) {
+            GeoPolygon polygon = polygons.get(i);
+            GeoBounds bounds = PreparedGeoPolygon.containmentBounds(polygon.bounds,
+                    GeoPolygon.isPolarReferencePair(polygon.externalReferenceA, polygon.externalReferenceB),
+                    polygon.polesSeparated);
+            if (bounds.isEmpty()) {
+                first[i] = -1;
+                continue;
+            }
+            first[i] = 0;
+            last[i] = bands - 1;
+            double start = GeoBounds.eastwardSpan(-Math.PI, bounds.west) - GeoBounds.LON_MARGIN;
+            double end = start + bounds.lonSpan + 2 * GeoBounds.LON_MARGIN;
+            long firstBand = (long)Math.floor(start * scale);
+            long lastBand = (long)Math.floor(end * scale);
+            if (lastBand - firstBand + 1 < bands) {
+                first[i] = (int)Math.floorMod(firstBand, (long)bands);
+                last[i] = (int)Math.floorMod(lastBand, (long)bands);
+            }
+            for (int b = first[i]; ; b = (b + 1) % bands) {
+                bandSize[b]++;
+                if (b == last[i]) break;
+            }
+        }
+
+        int[] bandStart = new int[bands + 1];
+        for (int b = 0; b < bands; b++) {
+            bandStart[b + 1] = bandStart[b] + bandSize[b];
+        }
+        int[] bandPolygons = new int[bandStart[bands]];
+        int[] fill = Arrays.copyOf(bandStart, bands);
+        for (int i = 0; i < count; i++) {
+            if (first[i] < 0) continue;
+            for (int b = first[i]; ; b = (b + 1) % bands) {
+                bandPolygons[fill[b]++] = i;
+                if (b == last[i]) break;
+            }
+        }
+        return new int[][] {bandStart, bandPolygons};
+    }
+
+    /**
+     * @return bytes of data for a polygon, with its edge index arrays if it has one
+     */
+    static long polygonBytes(int vertexCount, int edgeBands, int edgeListed) {
+        long bytes = (long)vertexCount * PreparedGeoPolygon.GEOMETRY_ARRAYS * 8;
+        if (edgeBands > 0) bytes += padded((edgeBands + 1L + edgeListed + 2L * vertexCount) * 4);
+        return bytes;
+    }
+
+    private static long padded(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static int padded(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getVertexCount(int polygon) {
+        return data.getInt(record(polygon) + 8);
+    }
+
+    /**
+     * @return conservative latitude/longitude bounds of the polygon's perimeter
+     */
+    public GeoBounds getBounds(int polygon) {
+        return bounds(record(polygon));
+    }
+
+    /**
+     * @return the prepared polygon at the given position, copying its geometry and edge index out of the file
+     * if not yet copied. Containment tests through the store do not need this copy.
+     */
+    public PreparedGeoPolygon get(int polygon) {
+        PreparedGeoPolygon result = prepared.get(polygon);
+        if (result == null) {
+            result = load(polygon);
+            if (!prepared.compareAndSet(polygon, null, result)) {
+                result = prepared.get(polygon);
+            }
+        }
+        return result;
+    }
+
+    public boolean contains(int polygon, GeoPoint point) {
+        return containmentBounds[polygon].contains(point.lat, point.lon) &&
+                mapped(polygon).contains(point.lat, point.lon);
+    }
+
+    /**
+     * @return positions of every polygon in the store which contains the given point, in ascending order
+     */
+    public int[] findContaining(GeoPoint point) {
+        int band = Math.min((int)(GeoBounds.eastwardSpan(-Math.PI, point.lon) * bandCount / GeoBounds.TWO_PI),
+                bandCount - 1);
+        int[] result = new int[4];
+        int found = 0;
+        for (int k = bandStart.get(band); k < bandStart.get(band + 1); k++) {
+            int i = bandPolygons.get(k);
+            if (containmentBounds[i].contains(point.lat, point.lon) && mapped(i).contains(point.lat, point.lon)) {
+                if (found == result.length) result = Arrays.copyOf(result, 2 * found);
+                result[found++] = i;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    int record(int polygon) {
+        if (polygon < 0 || polygon >= count) {
+            throw new IndexOutOfBoundsException(String.format("Polygon %d out of bounds for size %d", polygon, count));
+        }
+        return HEADER_BYTES + polygon * RECORD_BYTES;
+    }
+
+    GeoBounds bounds(int record) {
+        return new GeoBounds(data.getDouble(record + 48), data.getDouble(record + 56),
+                data.getDouble(record + 64), data.getDouble(record + 72));
+    }
+
+    double[] references(int record) {
+        return new double[] {
+                data.getDouble(record + 16), data.getDouble(record + 24),
+                data.getDouble(record + 32), data.getDouble(record + 40)
+        };
+    }
+
+    /**
+     * @return little-endian view of part of the mapping
+     */
+    private ByteBuffer view(int position, int bytes) {
+        ByteBuffer view = data.duplicate();
+        view.position(position);
+        view.limit(position + bytes);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private IntBuffer intView(int position, int ints) {
+        return view(position, ints * 4).asIntBuffer();
+    }
+
+    /**
+     * @return views of the geometry arrays of a polygon, see {@link PreparedGeoPolygon#computeGeometry}
+     */
+    private DoubleBuffer[] geometryViews(int record) {
+        int offset = (int)data.getLong(record);
+        int vertexCount = data.getInt(record + 8);
+        DoubleBuffer[] geometry = new DoubleBuffer[PreparedGeoPolygon.GEOMETRY_ARRAYS];
+        for (int a = 0; a < geometry.length; a++) {
+            geometry[a] = view(offset + a * vertexCount * 8, vertexCount * 8).asDoubleBuffer();
+        }
+        return geometry;
+    }
+
+    /**
+     * @return views of the edge index arrays of a polygon (band starts, band edges, first and last band of each
+     * edge), or null if it has no edge index
+     */
+    private IntBuffer[] edgeIndexViews(int record) {
+        int edgeBands = data.getInt(record + 80);
+        if (edgeBands == 0) return null;
+        int vertexCount = data.getInt(record + 8);
+        int position = (int)data.getLong(record) + vertexCount * PreparedGeoPolygon.GEOMETRY_ARRAYS * 8;
+        int[] lengths = {edgeBands + 1, data.getInt(record + 84), vertexCount, vertexCount};
+        IntBuffer[] views = new IntBuffer[lengths.length];
+        for (int a = 0; a < views.length; a++) {
+            views[a] = intView(position, lengths[a]);
+            position += lengths[a] * 4;
+        }
+        return views;
+    }
+
+    /**
+     * @return the polygon at the given position as views of the mapping, creating them if not yet created
+     */
+    MappedGeoPolygon mapped(int polygon) {
+        MappedGeoPolygon result = mapped.get(polygon);
+        if (result == null) {
+            int record = record(polygon);
+            IntBuffer[] edgeIndex = edgeIndexViews(record);
+            result = new MappedGeoPolygon(mode, geometryViews(record), references(record), bounds(record),
+                    (data.getInt(record + 12) & FLAG_POLES_SEPARATED) != 0,
+                    (edgeIndex != null) ? edgeIndex[0] : null, (edgeIndex != null) ? edgeIndex[1] : null);
+            if (!mapped.compareAndSet(polygon, null, result)) {
+                result = mapped.get(polygon);
+            }
+        }
+        return result;
+    }
+
+    PreparedGeoPolygon load(int polygon) {
+        int record = record(polygon);
+
+        // Bulk copy each array out of the mapping
+        DoubleBuffer[] views = geometryViews(record);
+        double[][] geometry = new double[views.length][];
+        for (int a = 0; a < views.length; a++) {
+            geometry[a] = new double[views[a].capacity()];
+            views[a].get(geometry[a]);
+        }
+
+        GeoBounds bounds = bounds(record);
+        GeoEdgeIndex edgeIndex = null;
+        IntBuffer[] indexViews = edgeIndexViews(record);
+        if (indexViews != null) {
+            int[][] arrays = new int[indexViews.length][];
+            for (int a = 0; a < indexViews.length; a++) {
+                arrays[a] = new int[indexViews[a].capacity()];
+                indexViews[a].get(arrays[a]);
+            }
+            edgeIndex = new GeoEdgeIndex(bounds, arrays[0], arrays[1], arrays[2], arrays[3]);
+        }
+
+        boolean polesSeparated = (data.getInt(record + 12) & FLAG_POLES_SEPARATED) != 0;
+        return new PreparedGeoPolygon(mode, geometry, references(record), bounds, polesSeparated, edgeIndex);
+    }
+}
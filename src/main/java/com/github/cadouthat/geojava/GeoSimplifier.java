@@ -0,0 +1,115 @@
+package com.github.cadouthat.geojava;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Douglas-Peucker simplification of closed rings on the sphere, measuring the distance of each removed vertex
+ * to the arc which replaces it
+ */
+final class GeoSimplifier {
+
+    private GeoSimplifier() {
+    }
+
+    /**
+     * @return vertices of the ring which must be kept so that every removed vertex is within the tolerance of
+     * the simplified ring, always keeping at least 4 vertices of rings which have them
+     */
+    static List<GeoPoint> simplifyRing(List<GeoPoint> ring, double toleranceMetres) {
+        int n = ring.size();
+        if (n <= 4) return new ArrayList<>(ring);
+
+        double[][] geometry = PreparedGeoPolygon.computeGeometry(ring);
+        double[] x = geometry[0];
+        double[] y = geometry[1];
+        double[] z = geometry[2];
+        double tolerance = toleranceMetres / GeoArc.EARTH_RADIUS_METRES;
+
+        // The ring is split at the first vertex and the vertex farthest from it, and the farthest vertex from
+        // each half's arc is always kept so that the result remains a polygon
+        int far = 1;
+        double farAngle = -1;
+        for (int i = 1; i < n; i++) {
+            double angle = GeoVectors.angle(x[0], y[0], z[0], x[i], y[i], z[i]);
+            if (angle > farAngle) {
+                far = i;
+                farAngle = angle;
+            }
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[far] = true;
+
+        // Spans between kept vertices as start/end pairs, where index n refers back to the first vertex
+        int[] stack = new int[64];
+        int depth = 0;
+        int[] halves = {0, far, far, n};
+        for (int h = 0; h < halves.length; h += 2) {
+            int split = farthestFromArc(x, y, z, halves[h], halves[h + 1]);
+            if (split < 0) continue;
+            keep[split] = true;
+            stack[depth++] = halves[h];
+            stack[depth++] = split;
+            stack[depth++] = split;
+            stack[depth++] = halves[h + 1];
+        }
+
+        while (depth > 0) {
+            int end = stack[--depth];
+            int start = stack[--depth];
+            int split = farthestFromArc(x, y, z, start, end);
+            if (split < 0 || angleToArc(x, y, z, split, start, end) <= tolerance) continue;
+
+            keep[split] = true;
+            if (depth + 4 > stack.length) stack = Arrays.copyOf(stack, 2 * stack.length);
+            stack[depth++] = start;
+            stack[depth++] = split;
+            stack[depth++] = split;
+            stack[depth++] = end;
+        }
+
+        List<GeoPoint> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) result.add(ring.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the vertex between start and end farthest from the arc joining them, or -1 if there are
+     * none, where an end of the ring's size refers to the first vertex
+     */
+    private static int farthestFromArc(double[] x, double[] y, double[] z, int start, int end) {
+        int farthest = -1;
+        double farthestAngle = -1;
+        for (int k = start + 1; k < end; k++) {
+            double angle = angleToArc(x, y, z, k, start, end);
+            if (angle > farthestAngle) {
+                farthest = k;
+                farthestAngle = angle;
+            }
+        }
+        return farthest;
+    }
+
+    private static double angleToArc(double[] x, double[] y, double[] z, int k, int start, int end) {
+        int e = end % x.length;
+        return GeoVectors.angleToArc(x[k], y[k], z[k], x[start], y[start], z[start], x[e], y[e], z[e]);
+    }
+
+    /**
+     * @return the longest edge of the ring as an angle in radians
+     */
+    static double maxEdgeAngle(List<GeoPoint> ring) {
+        double max = 0;
+        for (int i = 0; i < ring.size(); i++) {
+            GeoPoint a = ring.get(i);
+            GeoPoint b = ring.get((i > 0) ? i - 1 : ring.size() - 1);
+            max = Math.max(max, GeoVectors.distance(a.lat, a.lon, b.lat, b.lon) / GeoArc.EARTH_RADIUS_METRES);
+        }
+        return max;
+    }
+}
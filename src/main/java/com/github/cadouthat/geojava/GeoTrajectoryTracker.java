@@ -0,0 +1,272 @@
+package com.github.cadouthat.geojava;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks which of a set of polygons contain each moving object, such as a vehicle reporting its position, and
+ * reports when it enters or leaves them. Rather than testing every position from scratch, each polygon's state
+ * is carried over from the previous position and flipped once for each time the arc between the two positions
+ * crosses the perimeter. Only polygons whose bounds meet that arc are considered, and of those only the edges
+ * near it are tested, using the longitude index of polygons large enough to have one.
+ * <p>
+ * Positions where the sign tests cannot decide (such as an arc passing exactly through a vertex), which are
+ * more than a quarter of the globe from the previous position, or whose containment test would use a different
+ * external reference than the previous position's (such as across the equator, for polygons which may separate
+ * the poles) are instead tested from scratch. Results agree with {@link ContainmentMode#CROSSING_COUNT}
+ * containment tests except for positions within rounding error of a perimeter.
+ * <p>
+ * Polygons are identified by their position in the list they were given in. The tracker is immutable and may
+ * be shared by any number of {@link Trajectory} instances updated concurrently, each by one thread at a time.
+ */
+public final class GeoTrajectoryTracker {
+
+    /**
+     * Receives enter and exit events from {@link Trajectory#update}
+     */
+    public interface Listener {
+
+        void entered(Trajectory trajectory, int polygon, GeoPoint point);
+
+        void exited(Trajectory trajectory, int polygon, GeoPoint point);
+    }
+
+    final List<GeoPolygon> polygons;
+
+    final PreparedGeoPolygon[] prepared;
+
+    final GeoPolygonIndex index;
+
+    /**
+     * Position of each indexed polygon. A polygon given more than once is indexed once per position, using
+     * copies which share its perimeter.
+     */
+    final Map<GeoPolygon, Integer> positions = new IdentityHashMap<>();
+
+    public GeoTrajectoryTracker(List<GeoPolygon> polygons) {
+        this(polygons, GeoPolygonIndex.DEFAULT_CELL_DEGREES);
+    }
+
+    /**
+     * @param cellDegrees size of the spatial index cells, see {@link GeoPolygonIndex#GeoPolygonIndex(double)}
+     */
+    public GeoTrajectoryTracker(List<GeoPolygon> polygons, double cellDegrees) {
+        this.polygons = new ArrayList<>(polygons);
+        prepared = new PreparedGeoPolygon[this.polygons.size()];
+        index = new GeoPolygonIndex(cellDegrees);
+        for (int i = 0; i < prepared.length; i++) {
+            GeoPolygon polygon = this.polygons.get(i);
+            prepared[i] = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT);
+            if (positions.containsKey(polygon)) {
+                polygon = polygon.withExternalReferences(polygon.externalReferenceA, polygon.externalReferenceB);
+            }
+            positions.put(polygon, i);
+            index.add(polygon, prepared[i]);
+        }
+    }
+
+    public int size() {
+        return prepared.length;
+    }
+
+    public GeoPolygon getPolygon(int polygon) {
+        return polygons.get(polygon);
+    }
+
+    /**
+     * Start tracking a new object, whose first position is tested from scratch
+     */
+    public Trajectory newTrajectory() {
+        return new Trajectory();
+    }
+
+    /**
+     * Containment state of one moving object, which must only be updated by one thread at a time
+     */
+    public final class Trajectory {
+
+        /**
+         * Polygons containing the most recent position
+         */
+        final BitSet inside = new BitSet();
+
+        /**
+         * Most recent position, or null before the first update
+         */
+        GeoPoint last;
+        double lastX;
+        double lastY;
+        double lastZ;
+
+        /**
+         * Candidate edges of the polygon being updated
+         */
+        int[] edges = new int[16];
+
+        Trajectory() {
+        }
+
+        public GeoTrajectoryTracker getTracker() {
+            return GeoTrajectoryTracker.this;
+        }
+
+        /**
+         * @return the most recent position, or null if there has been none
+         */
+        public GeoPoint getPosition() {
+            return last;
+        }
+
+        /**
+         * @return true if the most recent position is inside the given polygon
+         */
+        public boolean isInside(int polygon) {
+            return inside.get(polygon);
+        }
+
+        /**
+         * @return positions of every polygon containing the most recent position, in ascending order
+         */
+        public int[] getInside() {
+            return inside.stream().toArray();
+        }
+
+        /**
+         * Move to a new position, reporting each polygon entered or left since the previous position. On the
+         * first update, every polygon containing the position is reported as entered.
+         */
+        public void update(GeoPoint point, Listener listener) {
+            double x = GeoVectors.x(point.lat, point.lon);
+            double y = GeoVectors.y(point.lat, point.lon);
+            double z = GeoVectors.z(point.lat);
+
+            if (last == null || GeoVectors.dot(lastX, lastY, lastZ, x, y, z) <= 0) {
+                // Far from the previous position, so test every polygon which could contain the point
+                BitSet now = new BitSet();
+                for (GeoPolygon polygon : index.findContaining(point)) {
+                    now.set(positions.get(polygon));
+                }
+                for (int i = inside.nextSetBit(0); i >= 0; i = inside.nextSetBit(i + 1)) {
+                    if (!now.get(i)) setInside(i, false, point, listener);
+                }
+                for (int i = now.nextSetBit(0); i >= 0; i = now.nextSetBit(i + 1)) {
+                    if (!inside.get(i)) setInside(i, true, point, listener);
+                }
+            }
+            else {
+                // Any crossing of a perimeter lies within the bounds of the arc from the previous position
+                GeoBounds arcBounds = GeoBounds.ofArc(last.lat, last.lon, lastX, lastY, lastZ,
+                        point.lat, point.lon, x, y, z);
+                double nx = lastY * z - lastZ * y;
+                double ny = lastZ * x - lastX * z;
+                double nz = lastX * y - lastY * x;
+                for (GeoPolygon polygon : index.findIntersectingRegion(arcBounds)) {
+                    int i = positions.get(polygon);
+                    PreparedGeoPolygon p = prepared[i];
+                    boolean now;
+                    if ((p.polesSeparated || !p.boundsApplicable) &&
+                            p.usesReferenceA(last.lat, last.lon) != p.usesReferenceA(point.lat, point.lon)) {
+                        // Tests of the two positions use different references, which may not be on the same side
+                        now = p.contains(point.lat, point.lon);
+                    }
+                    else {
+                        if (!p.bounds.intersects(arcBounds)) continue;
+                        int crossings = countCrossings(p, arcBounds, nx, ny, nz, x, y, z);
+                        now = (crossings < 0) ?
+                                p.contains(point.lat, point.lon) :
+                                inside.get(i) ^ (crossings % 2 > 0);
+                    }
+                    if (now != inside.get(i)) setInside(i, now, point, listener);
+                }
+            }
+
+            last = point;
+            lastX = x;
+            lastY = y;
+            lastZ = z;
+        }
+
+        void setInside(int polygon, boolean now, GeoPoint point, Listener listener) {
+            inside.set(polygon, now);
+            if (listener == null) return;
+            if (now) listener.entered(this, polygon, point);
+            else listener.exited(this, polygon, point);
+        }
+
+        /**
+         * Count crossings of the perimeter by the arc from the previous position to (x, y, z)
+         *
+         * @param nx normal of the arc's plane (need not be unit length)
+         * @return number of crossings, or -1 if they cannot be counted reliably
+         */
+        int countCrossings(PreparedGeoPolygon p, GeoBounds arcBounds, double nx, double ny, double nz,
+                           double x, double y, double z) {
+            int count = candidateEdges(p, arcBounds);
+            boolean allEdges = count < 0;
+            if (allEdges) count = p.edgeCount;
+            int crossings = 0;
+            for (int k = 0; k < count; k++) {
+                int i = allEdges ? k : edges[k];
+                int j = (i > 0) ? i - 1 : p.edgeCount - 1;
+                if (p.nx[i] == 0 && p.ny[i] == 0 && p.nz[i] == 0) continue;
+
+                // Sides of the arc's great circle which the edge's endpoints lie on
+                double si = nx * p.x[i] + ny * p.y[i] + nz * p.z[i];
+                double sj = nx * p.x[j] + ny * p.y[j] + nz * p.z[j];
+                if ((si > 0 && sj > 0) || (si < 0 && sj < 0)) continue;
+
+                // Sides of the edge's great circle which the arc's endpoints lie on
+                double ta = p.nx[i] * lastX + p.ny[i] * lastY + p.nz[i] * lastZ;
+                double tb = p.nx[i] * x + p.ny[i] * y + p.nz[i] * z;
+                if (si == 0 || sj == 0 || ta == 0 || tb == 0) {
+                    if ((ta > 0 && tb > 0) || (ta < 0 && tb < 0)) continue;
+                    return -1;
+                }
+
+                // Same sign test as GeoVectors#arcsCross, with the edge running from vertex i to vertex j
+                if (si * tb > 0 && si * ta < 0) crossings++;
+            }
+            return crossings;
+        }
+
+        /**
+         * Find edges which may cross an arc with the given bounds, sorted and without duplicates
+         *
+         * @return number of candidate edges written to the edges array, or -1 if every edge is a candidate
+         */
+        int candidateEdges(PreparedGeoPolygon p, GeoBounds arcBounds) {
+            GeoEdgeIndex edgeIndex = p.edgeIndex;
+            int first = (edgeIndex != null) ? edgeIndex.band(arcBounds.west) : -1;
+            int last = (edgeIndex != null) ?
+                    edgeIndex.band(GeoBounds.normalizeLon(arcBounds.west + arcBounds.lonSpan)) :
+                    -1;
+            if (edgeIndex == null || (first < 0 && last < 0) || arcBounds.lonSpan >= Math.PI) return -1;
+            if (first < 0) first = 0;
+            if (last < 0) last = edgeIndex.bandCount - 1;
+
+            int count = 0;
+            for (int b = first; ; b = (b + 1) % edgeIndex.bandCount) {
+                int start = edgeIndex.bandStart[b];
+                int end = edgeIndex.bandStart[b + 1];
+                if (count + end - start > edges.length) {
+                    edges = Arrays.copyOf(edges, Math.max(2 * edges.length, count + end - start));
+                }
+                System.arraycopy(edgeIndex.bandEdges, start, edges, count, end - start);
+                count += end - start;
+                if (b == last) break;
+            }
+
+            // Edges spanning several bands are listed in each of them
+            Arrays.sort(edges, 0, count);
+            int unique = 0;
+            for (int k = 0; k < count; k++) {
+                if (unique == 0 || edges[k] != edges[unique - 1]) edges[unique++] = edges[k];
+            }
+            return unique;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * Allocation-free math on points of the unit sphere, passed as separate x/y/z or lat/lon (radians) doubles
+ */
+final class GeoVectors {
+
+    /**
+     * Allowed overshoot past an arc endpoint in {@link #onArcFast}, as the sine of the angle. Matches
+     * {@link GeoArc#TOLERANCE}, which bounds the overshoot in both directions combined.
+     */
+    static final double ON_ARC_TOLERANCE = GeoArc.TOLERANCE / 2 / GeoArc.EARTH_RADIUS_METRES;
+
+    /**
+     * Arcs whose squared chord is below this are treated as zero-length, matching {@link GeoArc#TOLERANCE}
+     */
+    static final double SHORT_CHORD_SQ =
+            (GeoArc.TOLERANCE / GeoArc.EARTH_RADIUS_METRES) * (GeoArc.TOLERANCE / GeoArc.EARTH_RADIUS_METRES);
+
+    private GeoVectors() {
+    }
+
+    /**
+     * Distance between two points along the sphere surface using the haversine formula, the same as
+     * {@link GeoArc#length()}
+     *
+     * @return distance in metres
+     */
+    static double distance(double lat1, double lon1, double lat2, double lon2) {
+        return haversine(lat1, lon1, Math.cos(lat1), lat2, lon2, Math.cos(lat2));
+    }
+
+    /**
+     * Haversine distance with the cosine of each latitude already known, giving exactly the same result as
+     * {@link #distance(double, double, double, double)}
+     *
+     * @return distance in metres
+     */
+    static double haversine(double lat1, double lon1, double cosLat1, double lat2, double lon2, double cosLat2) {
+        return haversineToMetres(haversineTerm(lat1, lon1, cosLat1, lat2, lon2, cosLat2));
+    }
+
+    /**
+     * The haversine of the angle between two points, sin^2(angle / 2), which increases with distance and so can
+     * rank points without the inverse sine. Equal to a quarter of the squared chord between the unit vectors.
+     *
+     * @return value in [0, 1]
+     */
+    static double haversineTerm(double lat1, double lon1, double cosLat1, double lat2, double lon2, double cosLat2) {
+        double dLat = lat2 - lat1;
+        double dLon = lon2 - lon1;
+
+        double sinHaLat = Math.sin(dLat / 2);
+        double sinHaLon = Math.sin(dLon / 2);
+
+        double h = sinHaLat * sinHaLat +
+                cosLat1 * cosLat2 * sinHaLon * sinHaLon;
+
+        // Clamp rounding errors to real range
+        if (h > 1) h = 1;
+        if (h < 0) h = 0;
+        return h;
+    }
+
+    /**
+     * @return distance in metres for the given value of {@link #haversineTerm}
+     */
+    static double haversineToMetres(double h) {
+        double theta = Math.asin(Math.sqrt(h));
+        return GeoArc.EARTH_RADIUS_METRES * 2 * theta;
+    }
+
+    /**
+     * Distance between two points in the given mode, see {@link DistanceMode}
+     *
+     * @return distance in metres
+     */
+    static double distance(double lat1, double lon1, double lat2, double lon2, DistanceMode mode) {
+        if (mode == DistanceMode.FAST) {
+            double dLat = lat2 - lat1;
+            double dLon = GeoBounds.lonDelta(lon1, lon2);
+            if (Math.abs(dLat) <= DistanceMode.FAST_MAX_DELTA && Math.abs(dLon) <= DistanceMode.FAST_MAX_DELTA) {
+                // Flat projection around the mean latitude
+                double dx = dLon * Math.cos(0.5 * (lat1 + lat2));
+                return GeoArc.EARTH_RADIUS_METRES * Math.sqrt(dx * dx + dLat * dLat);
+            }
+        }
+        return distance(lat1, lon1, lat2, lon2);
+    }
+
+    /**
+     * Distance between two unit vectors along the sphere surface
+     *
+     * @return distance in metres
+     */
+    static double distance(double ax, double ay, double az, double bx, double by, double bz) {
+        return GeoArc.EARTH_RADIUS_METRES * angle(ax, ay, az, bx, by, bz);
+    }
+
+    /**
+     * @return angle between two vectors in radians, accurate at any separation
+     */
+    static double angle(double ax, double ay, double az, double bx, double by, double bz) {
+        double cx = ay * bz - az * by;
+        double cy = az * bx - ax * bz;
+        double cz = ax * by - ay * bx;
+        return Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), dot(ax, ay, az, bx, by, bz));
+    }
+
+    static double dot(double ax, double ay, double az, double bx, double by, double bz) {
+        return ax * bx + ay * by + az * bz;
+    }
+
+    /**
+     * @return (a x b) . c, which is positive when c lies to the left of the great circle from a to b
+     */
+    static double tripleProduct(double ax, double ay, double az, double bx, double by, double bz,
+                                double cx, double cy, double cz) {
+        return (ay * bz - az * by) * cx + (az * bx - ax * bz) * cy + (ax * by - ay * bx) * cz;
+    }
+
+    /**
+     * Exact sign test of whether the arcs a-b and c-d cross at a point interior to both. Arcs which only touch,
+     * such as at a shared endpoint, do not cross.
+     */
+    static boolean arcsCross(double ax, double ay, double az, double bx, double by, double bz,
+                             double cx, double cy, double cz, double dx, double dy, double dz) {
+        // c and d must be on opposite sides of a-b, and a and b on opposite sides of c-d, with the signs
+        // agreeing so that the crossing is on the near side of both great circles
+        double acb = -tripleProduct(ax, ay, az, bx, by, bz, cx, cy, cz);
+        double bda = tripleProduct(ax, ay, az, bx, by, bz, dx, dy, dz);
+        if (acb * bda <= 0) return false;
+        double cbd = -tripleProduct(cx, cy, cz, dx, dy, dz, bx, by, bz);
+        double dac = tripleProduct(cx, cy, cz, dx, dy, dz, ax, ay, az);
+        return acb * cbd > 0 && acb * dac > 0;
+    }
+
+    static double x(double lat, double lon) {
+        return Math.cos(lat) * Math.cos(lon);
+    }
+
+    static double y(double lat, double lon) {
+        return Math.cos(lat) * Math.sin(lon);
+    }
+
+    static double z(double lat) {
+        return Math.sin(lat);
+    }
+
+    /**
+     * @return latitude in radians of the direction of a (not necessarily unit) vector
+     */
+    static double lat(double x, double y, double z) {
+        return Math.atan2(z, Math.sqrt(x * x + y * y));
+    }
+
+    /**
+     * @return longitude in radians of the direction of a vector
+     */
+    static double lon(double x, double y) {
+        return Math.atan2(y, x);
+    }
+
+    /**
+     * Given a point on the same great circle, determine whether it lies within the arc between a and b using
+     * only sign tests, equivalent to {@link GeoArc#contains(GeoPoint)} within tolerance but without any transcendental functions
+     *
+     * @param nx unit normal of the arc's plane, in the direction of a x b
+     */
+    static boolean onArcFast(double ax, double ay, double az, double bx, double by, double bz,
+                             double nx, double ny, double nz,
+                             double px, double py, double pz) {
+        // For p on the circle, (a x p) . n is the sine of the angle from a to p in the direction of the arc
+        return tripleProduct(ax, ay, az, px, py, pz, nx, ny, nz) > -ON_ARC_TOLERANCE &&
+                tripleProduct(px, py, pz, bx, by, bz, nx, ny, nz) > -ON_ARC_TOLERANCE;
+    }
+
+    /**
+     * @return true if the arc between two unit vectors is shorter than {@link GeoArc#TOLERANCE}
+     */
+    static boolean isShort(double ax, double ay, double az, double bx, double by, double bz) {
+        double dx = ax - bx;
+        double dy = ay - by;
+        double dz = az - bz;
+        return dx * dx + dy * dy + dz * dz < SHORT_CHORD_SQ;
+    }
+
+    /**
+     * Exact test of whether p, lying on the great circle through a and b, is on the minor arc between them
+     *
+     * @param nx normal of the arc's plane, a x b (need not be unit length)
+     */
+    static boolean isBetween(double ax, double ay, double az, double bx, double by, double bz,
+                             double nx, double ny, double nz,
+                             double px, double py, double pz) {
+        // (a x p) . n and (p x b) . n are both non-negative only between a and b
+        return tripleProduct(ax, ay, az, px, py, pz, nx, ny, nz) >= 0 &&
+                tripleProduct(px, py, pz, bx, by, bz, nx, ny, nz) >= 0;
+    }
+
+    /**
+     * @return angle in radians from unit vector p to the nearest point on the minor arc between unit vectors a
+     * and b
+     */
+    static double angleToArc(double px, double py, double pz, double ax, double ay, double az,
+                             double bx, double by, double bz) {
+        double nx = ay * bz - az * by;
+        double ny = az * bx - ax * bz;
+        double nz = ax * by - ay * bx;
+        double nLen = Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+        // When p projects onto the arc's interior the nearest point is its projection, otherwise an endpoint
+        if (nLen > 0 && isBetween(ax, ay, az, bx, by, bz, nx, ny, nz, px, py, pz)) {
+            double sinAngle = Math.abs(dot(nx, ny, nz, px, py, pz)) / nLen;
+            return Math.asin(Math.min(1, sinAngle));
+        }
+        return Math.min(angle(px, py, pz, ax, ay, az), angle(px, py, pz, bx, by, bz));
+    }
+}
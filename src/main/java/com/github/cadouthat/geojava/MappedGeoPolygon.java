@@ -0,0 +1,104 @@
+package com.github.cadouthat.geojava;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Containment tests of a polygon in a {@link GeoPolygonStore}, read directly from the mapped geometry and edge
+ * index without copying them onto the heap. Results are the same as those of the {@link PreparedGeoPolygon}
+ * loaded from the same record.
+ */
+final class MappedGeoPolygon {
+
+    final int edgeCount;
+
+    /**
+     * Views of the mapped geometry and edge index listing
+     */
+    final GeoEdgeGeometry edges;
+
+    final double refALat;
+    final double refALon;
+    final double refBLat;
+    final double refBLon;
+
+    final GeoBounds bounds;
+    final boolean boundsApplicable;
+    final boolean polesSeparated;
+    final ContainmentMode mode;
+
+    /**
+     * View of the mapped edge index band starts, see {@link GeoEdgeIndex#bandStart}, or null when the polygon has
+     * no edge index
+     */
+    final IntBuffer bandStart;
+    final int bandCount;
+    final double bandScale;
+
+    /**
+     * @param geometry  views of the arrays given by {@link PreparedGeoPolygon#computeGeometry}
+     * @param bandStart view of the edge index band starts, or null when the polygon has no edge index
+     */
+    MappedGeoPolygon(ContainmentMode mode, DoubleBuffer[] geometry, double[] references, GeoBounds bounds,
+                     boolean polesSeparated, IntBuffer bandStart, IntBuffer bandEdges) {
+        this.mode = mode;
+        edges = new GeoEdgeGeometry.Mapped(geometry, references, bandEdges);
+        edgeCount = edges.edgeCount;
+
+        refALat = references[0];
+        refALon = references[1];
+        refBLat = references[2];
+        refBLon = references[3];
+
+        this.bounds = bounds;
+        this.polesSeparated = polesSeparated;
+        boundsApplicable = PreparedGeoPolygon.isPolarReferencePair(refALat, refBLat);
+
+        this.bandStart = bandStart;
+        bandCount = (bandStart != null) ? bandStart.capacity() - 1 : 0;
+        bandScale = bandCount / bounds.lonSpan;
+    }
+
+    /**
+     * Containment test for a point given as normalized lat/lon in radians, see
+     * {@link PreparedGeoPolygon#contains(GeoPoint)}
+     */
+    boolean contains(double lat, double lon) {
+        GeoMetricsListener listener = GeoMetrics.listener;
+        if (listener == null) return contains(lat, lon, null);
+
+        long start = System.nanoTime();
+        GeoMetrics.ContainmentStats stats = new GeoMetrics.ContainmentStats();
+        boolean inside = contains(lat, lon, stats);
+        stats.report(listener, inside, System.nanoTime() - start);
+        return inside;
+    }
+
+    private boolean contains(double lat, double lon, GeoMetrics.ContainmentStats stats) {
+        if (edgeCount < 3 || (boundsApplicable && !bounds.mayCross(lat, lon, polesSeparated))) {
+            if (stats != null) stats.rejected = true;
+            return false;
+        }
+
+        int from = 0;
+        int to = edgeCount;
+        if (bandStart != null) {
+            int band = GeoEdgeIndex.band(bounds.west, bounds.lonSpan, bandScale, bandCount, lon);
+            if (band < 0) {
+                if (stats != null) stats.rejected = true;
+                return false;
+            }
+            from = bandStart.get(band);
+            to = bandStart.get(band + 1);
+        }
+
+        int count = (mode == ContainmentMode.CROSSING_COUNT) ?
+                edges.countCrossings(lat, lon, from, to, stats) :
+                edges.countIntersections(lat, lon, from, to, stats);
+        if (stats != null) {
+            stats.edgesTested = to - from;
+            stats.intersections = count;
+        }
+        return count % 2 > 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.cadouthat.geojava;
+
+/**
+ * A reusable point on the Earth's surface, which operations can write results into instead of allocating
+ */
+public final class MutableGeoPoint {
+
+    /**
+     * Location as a unit-length cartesian vector, lat/lon is only computed when requested
+     */
+    double x;
+    double y;
+    double z;
+
+    public MutableGeoPoint() {
+    }
+
+    void setCartesian(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public double getLatDegrees() {
+        return GeoVectors.lat(x, y, z) / Math.PI * 180;
+    }
+
+    public double getLonDegrees() {
+        return GeoVectors.lon(x, y) / Math.PI * 180;
+    }
+
+    /**
+     * @return an immutable copy of the current position
+     */
+    public GeoPoint toGeoPoint() {
+        return new GeoPoint(x, y, z);
+    }
+
+    /**
+     * @return latitude/longitude string in decimal degrees
+     */
+    public String toString() {
+        return String.format("%f, %f", this.getLatDegrees(), this.getLonDegrees());
+    }
+}
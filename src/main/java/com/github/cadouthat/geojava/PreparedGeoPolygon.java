@@ -0,0 +1,669 @@
+package com.github.cadouthat.geojava;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable form of a {@link GeoPolygon} with the geometry of every edge computed once up front, so that
+ * containment tests only perform the math that depends on the point being tested
+ */
+public final class PreparedGeoPolygon {
+
+    /**
+     * Number of edges, which is also the number of vertices
+     */
+    final int edgeCount;
+
+    /**
+     * Cartesian coordinates of each vertex. Edge i runs from vertex i to vertex i - 1 (wrapping around),
+     * the same order in which {@link GeoPolygon#contains(GeoPoint)} tests them.
+     */
+    final double[] x;
+    final double[] y;
+    final double[] z;
+
+    /**
+     * Unit normal of the plane on which each edge lies, or zero for edges that have no unique plane
+     */
+    final double[] nx;
+    final double[] ny;
+    final double[] nz;
+
+    /**
+     * Arc length of each edge in metres
+     */
+    final double[] length;
+
+    /**
+     * The arrays above, with the edge index listing when containment tests use it
+     */
+    final GeoEdgeGeometry edges;
+
+    /**
+     * External reference points, see {@link GeoPolygon#externalReferenceA}
+     */
+    final double refALat;
+    final double refALon;
+    final double refBLat;
+    final double refBLon;
+
+    /**
+     * Conservative bounds of the perimeter, see {@link GeoPolygon#bounds}
+     */
+    final GeoBounds bounds;
+
+    /**
+     * Whether points can be rejected using the bounds, see {@link GeoBounds#mayCross(double, double, boolean)}
+     */
+    final boolean boundsApplicable;
+    final boolean polesSeparated;
+
+    /**
+     * Conservative bounds of every point the polygon can contain, which extend beyond the perimeter bounds when
+     * those cannot be used to reject points
+     */
+    final GeoBounds containmentBounds;
+
+    /**
+     * Optional index of edges by longitude, or null to test every edge
+     */
+    final GeoEdgeIndex edgeIndex;
+
+    final ContainmentMode mode;
+
+    /**
+     * Optional classification of cells for answering containment without edge tests, or null
+     */
+    final GeoCellCovering covering;
+
+    /**
+     * Bounds of each edge, computed when first compared against another polygon or measured from a point
+     */
+    private volatile GeoBounds[] edgeBounds;
+
+    /**
+     * Polygons with at least this many vertices are given an edge index by default
+     */
+    static final int EDGE_INDEX_MIN_VERTICES = 32;
+
+    /**
+     * Prepare a snapshot of the given polygon, including its current external reference points. Large polygons
+     * are given an edge index.
+     */
+    public PreparedGeoPolygon(GeoPolygon polygon) {
+        this(polygon, ContainmentMode.INTERSECTION_POINTS);
+    }
+
+    /**
+     * Prepare a snapshot of the given polygon, including its current external reference points
+     *
+     * @param buildEdgeIndex whether to index edges by longitude, so that containment tests only check edges
+     *                       near the point being tested (requires the default polar external references)
+     */
+    public PreparedGeoPolygon(GeoPolygon polygon, boolean buildEdgeIndex) {
+        this(polygon, ContainmentMode.INTERSECTION_POINTS, buildEdgeIndex);
+    }
+
+    /**
+     * Prepare a snapshot of the given polygon using the given containment mode. Large polygons are given an
+     * edge index.
+     */
+    public PreparedGeoPolygon(GeoPolygon polygon, ContainmentMode mode) {
+        this(polygon, mode, polygon.vertices.size() >= EDGE_INDEX_MIN_VERTICES);
+    }
+
+    /**
+     * Prepare a snapshot of the given polygon, including its current external reference points
+     *
+     * @param mode           how containment tests count crossings of the perimeter
+     * @param buildEdgeIndex whether to index edges by longitude, see {@link #PreparedGeoPolygon(GeoPolygon, boolean)}
+     */
+    public PreparedGeoPolygon(GeoPolygon polygon, ContainmentMode mode, boolean buildEdgeIndex) {
+        this(mode, computeGeometry(polygon.vertices),
+                new double[] {
+                        polygon.externalReferenceA.lat, polygon.externalReferenceA.lon,
+                        polygon.externalReferenceB.lat, polygon.externalReferenceB.lon
+                },
+                polygon.bounds, polygon.polesSeparated, buildEdgeIndex);
+    }
+
+    /**
+     * Prepare from geometry which has already been computed, such as by a previous preparation
+     *
+     * @param geometry   vertex coordinates x, y, z, edge normals nx, ny, nz and edge lengths, as given by
+     *                   {@link #computeGeometry(List)}
+     * @param references lat/lon in radians of external reference A, then of external reference B
+     */
+    PreparedGeoPolygon(ContainmentMode mode, double[][] geometry, double[] references,
+                       GeoBounds bounds, boolean polesSeparated, boolean buildEdgeIndex) {
+        this(mode, geometry, references, bounds, polesSeparated,
+                buildEdgeIndex ? buildEdgeIndex(geometry, references, bounds) : null);
+    }
+
+    /**
+     * Prepare from geometry and an edge index which have already been computed
+     *
+     * @param edgeIndex index of the edges, or null to test every edge
+     */
+    PreparedGeoPolygon(ContainmentMode mode, double[][] geometry, double[] references,
+                       GeoBounds bounds, boolean polesSeparated, GeoEdgeIndex edgeIndex) {
+        this.mode = mode;
+        x = geometry[0];
+        y = geometry[1];
+        z = geometry[2];
+        nx = geometry[3];
+        ny = geometry[4];
+        nz = geometry[5];
+        length = geometry[6];
+        edgeCount = x.length;
+
+        refALat = references[0];
+        refALon = references[1];
+        refBLat = references[2];
+        refBLon = references[3];
+
+        this.bounds = bounds;
+        this.polesSeparated = polesSeparated;
+        boundsApplicable = isPolarReferencePair(refALat, refBLat);
+        containmentBounds = containmentBounds(bounds, boundsApplicable, polesSeparated);
+
+        this.edgeIndex = edgeIndex;
+        edges = new GeoEdgeGeometry.Heap(geometry, references,
+                (edgeIndex != null && boundsApplicable) ? edgeIndex.bandEdges : null);
+        covering = null;
+    }
+
+    /**
+     * @return an index of the edges in the given geometry, or null if the polygon cannot use one because it has
+     * too few vertices, no bounds or non-polar external references
+     */
+    static GeoEdgeIndex buildEdgeIndex(double[][] geometry, double[] references, GeoBounds bounds) {
+        if (!isPolarReferencePair(references[0], references[2]) || geometry[0].length < 3 || bounds.isEmpty()) {
+            return null;
+        }
+        return new GeoEdgeIndex(geometry[0], geometry[1], geometry[2], bounds);
+    }
+
+    /**
+     * Copy of a prepared polygon with a cell covering, sharing its geometry
+     */
+    private PreparedGeoPolygon(PreparedGeoPolygon source, GeoCellCovering covering) {
+        mode = source.mode;
+        x = source.x;
+        y = source.y;
+        z = source.z;
+        nx = source.nx;
+        ny = source.ny;
+        nz = source.nz;
+        length = source.length;
+        edges = source.edges;
+        edgeCount = source.edgeCount;
+        refALat = source.refALat;
+        refALon = source.refALon;
+        refBLat = source.refBLat;
+        refBLon = source.refBLon;
+        bounds = source.bounds;
+        polesSeparated = source.polesSeparated;
+        boundsApplicable = source.boundsApplicable;
+        containmentBounds = source.containmentBounds;
+        edgeIndex = source.edgeIndex;
+        edgeBounds = source.edgeBounds;
+        this.covering = covering;
+    }
+
+    /**
+     * Compute a covering of cells down to the given level (see {@link GeoCell}), so that points in cells entirely
+     * inside or outside the polygon are answered without edge tests. Finer levels answer more points from the
+     * covering, at the cost of more time to compute it and more memory to hold it.
+     *
+     * @return a copy of this polygon which uses the covering
+     */
+    public PreparedGeoPolygon withCellCovering(int level) {
+        PreparedGeoPolygon uncovered = (covering == null) ? this : new PreparedGeoPolygon(this, null);
+        return new PreparedGeoPolygon(uncovered, new GeoCellCovering(uncovered, level));
+    }
+
+    /**
+     * @return the cell covering, or null if the polygon has none
+     */
+    public GeoCellCovering getCellCovering() {
+        return covering;
+    }
+
+    /**
+     * Number of arrays in the geometry given by {@link #computeGeometry(List)}
+     */
+    static final int GEOMETRY_ARRAYS = 7;
+
+    /**
+     * @return vertex coordinates x, y, z, edge normals nx, ny, nz and edge lengths for the given vertices
+     */
+    static double[][] computeGeometry(List<GeoPoint> vertices) {
+        int edgeCount = vertices.size();
+        double[] x = new double[edgeCount];
+        double[] y = new double[edgeCount];
+        double[] z = new double[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            GeoPoint vertex = vertices.get(i);
+            x[i] = GeoVectors.x(vertex.lat, vertex.lon);
+            y[i] = GeoVectors.y(vertex.lat, vertex.lon);
+            z[i] = GeoVectors.z(vertex.lat);
+        }
+
+        double[] nx = new double[edgeCount];
+        double[] ny = new double[edgeCount];
+        double[] nz = new double[edgeCount];
+        double[] length = new double[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int j = (i > 0) ? i - 1 : edgeCount - 1;
+            length[i] = new GeoArc(vertices.get(i), vertices.get(j)).length();
+
+            double cx = y[i] * z[j] - z[i] * y[j];
+            double cy = z[i] * x[j] - x[i] * z[j];
+            double cz = x[i] * y[j] - y[i] * x[j];
+            double lenSq = cx * cx + cy * cy + cz * cz;
+            if (lenSq > 0) {
+                double scale = 1 / Math.sqrt(lenSq);
+                nx[i] = cx * scale;
+                ny[i] = cy * scale;
+                nz[i] = cz * scale;
+            }
+        }
+        return new double[][] {x, y, z, nx, ny, nz, length};
+    }
+
+    /**
+     * Same as {@link GeoPolygon#isPolarReferencePair(GeoPoint, GeoPoint)}, given the latitude of each reference
+     */
+    static boolean isPolarReferencePair(double refALat, double refBLat) {
+        return (refALat == GeoBounds.HALF_PI && refBLat == -GeoBounds.HALF_PI) ||
+                (refALat == -GeoBounds.HALF_PI && refBLat == GeoBounds.HALF_PI);
+    }
+
+    /**
+     * @return conservative bounds of every point a polygon with the given perimeter bounds can contain
+     */
+    static GeoBounds containmentBounds(GeoBounds bounds, boolean boundsApplicable, boolean polesSeparated) {
+        if (!boundsApplicable) {
+            return GeoBounds.ofDegrees(-90, 90, -180, 180);
+        }
+        else if (polesSeparated && !bounds.isEmpty()) {
+            // Test arcs run towards the nearer pole, so points up to the equator may be inside
+            return new GeoBounds(
+                    Math.min(bounds.minLat, -GeoBounds.LAT_MARGIN),
+                    Math.max(bounds.maxLat, GeoBounds.LAT_MARGIN),
+                    bounds.west, bounds.lonSpan);
+        }
+        return bounds;
+    }
+
+    /**
+     * Prepare a polygon from its vertices, using the default external reference points
+     */
+    public PreparedGeoPolygon(List<GeoPoint> vertices) {
+        this(new GeoPolygon(vertices));
+    }
+
+    public int getVertexCount() {
+        return edgeCount;
+    }
+
+    public boolean hasEdgeIndex() {
+        return edgeIndex != null;
+    }
+
+    public ContainmentMode getContainmentMode() {
+        return mode;
+    }
+
+    /**
+     * @return conservative latitude/longitude bounds of the perimeter
+     */
+    public GeoBounds getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return true if the given point lies inside the polygon, based on the even-odd rule. In the default
+     * {@link ContainmentMode#INTERSECTION_POINTS} mode, gives the same result as
+     * {@link GeoPolygon#contains(GeoPoint)} on the polygon this was prepared from.
+     */
+    public boolean contains(GeoPoint point) {
+        return contains(point.lat, point.lon);
+    }
+
+    /**
+     * Test a column of points given as lat/lon in degrees, without allocating per point. Points are taken from
+     * index offset to offset + len - 1, and each result is written to the same index of out.
+     */
+    public void containsAll(double[] latsDegrees, double[] lonsDegrees, int offset, int len, boolean[] out) {
+        checkBatchRange(latsDegrees, lonsDegrees, offset, len, out.length);
+        for (int i = offset; i < offset + len; i++) {
+            out[i] = containsDegrees(latsDegrees[i], lonsDegrees[i]);
+        }
+    }
+
+    /**
+     * Test a column of points given as lat/lon in degrees, setting or clearing the bit at each point's index
+     */
+    public void containsAll(double[] latsDegrees, double[] lonsDegrees, int offset, int len, BitSet out) {
+        checkBatchRange(latsDegrees, lonsDegrees, offset, len, Integer.MAX_VALUE);
+        for (int i = offset; i < offset + len; i++) {
+            out.set(i, containsDegrees(latsDegrees[i], lonsDegrees[i]));
+        }
+    }
+
+    /**
+     * Test points from index offset to offset + len - 1 of the array, writing each result to the same index of out
+     */
+    public void containsAll(GeoPointArray points, int offset, int len, boolean[] out) {
+        checkBatchRange(points.size(), offset, len, out.length);
+        for (int i = offset; i < offset + len; i++) {
+            out[i] = contains(points.lat(i), points.lon(i));
+        }
+    }
+
+    /**
+     * Test points from index offset to offset + len - 1 of the array, setting or clearing the bit at each index
+     */
+    public void containsAll(GeoPointArray points, int offset, int len, BitSet out) {
+        checkBatchRange(points.size(), offset, len, Integer.MAX_VALUE);
+        for (int i = offset; i < offset + len; i++) {
+            out.set(i, contains(points.lat(i), points.lon(i)));
+        }
+    }
+
+    /**
+     * @return true if the two polygons share any area, based on the even-odd rule. Unless one polygon contains a
+     * vertex of the other, they can only intersect where their perimeters cross, which are compared only where
+     * their bounds meet. Polygons which only touch along their perimeters may give either result.
+     */
+    public boolean intersects(PreparedGeoPolygon other) {
+        if (!mayOverlap(other)) return false;
+        // Vertex tests are cheaper than comparing perimeters, and settle most overlapping pairs
+        if (containsVertex(other, 0) || other.containsVertex(this, 0)) return true;
+        return GeoArcIntersector.perimetersCross(this, other);
+    }
+
+    /**
+     * @return true if every point inside the other polygon is also inside this one, based on the even-odd rule.
+     * Polygons which touch along their perimeters may give either result.
+     */
+    public boolean contains(PreparedGeoPolygon other) {
+        if (!mayOverlap(other)) return false;
+        if (!containsVertex(other, 0) || other.containsVertex(this, 0)) return false;
+        return !GeoArcIntersector.perimetersCross(this, other);
+    }
+
+    /**
+     * @return true if the two polygons share no area, the opposite of {@link #intersects(PreparedGeoPolygon)}
+     */
+    public boolean isDisjoint(PreparedGeoPolygon other) {
+        return !intersects(other);
+    }
+
+    /**
+     * @return bounds of each edge, where edge i runs from vertex i to vertex i - 1
+     */
+    GeoBounds[] edgeBounds() {
+        GeoBounds[] result = edgeBounds;
+        if (result != null) return result;
+
+        double[] lat = new double[edgeCount];
+        double[] lon = new double[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            lat[i] = GeoVectors.lat(x[i], y[i], z[i]);
+            lon[i] = GeoVectors.lon(x[i], y[i]);
+        }
+        result = new GeoBounds[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int j = (i > 0) ? i - 1 : edgeCount - 1;
+            result[i] = GeoBounds.ofArc(lat[i], lon[i], x[i], y[i], z[i], lat[j], lon[j], x[j], y[j], z[j]);
+        }
+        // Computing twice on a race gives the same bounds, so no lock is needed
+        edgeBounds = result;
+        return result;
+    }
+
+    /**
+     * @return distance in metres from the point to the nearest point of the perimeter, whether the point is inside
+     * or outside, or infinity if the polygon has no vertices. With an edge index, only edges in the longitude
+     * bands nearest the point are measured, working outward until no farther band can hold a nearer edge.
+     */
+    public double distanceToBoundary(GeoPoint point) {
+        return GeoArc.EARTH_RADIUS_METRES * angleToBoundary(point.lat, point.lon, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return true if the perimeter passes within the given distance of the point, whether inside or outside
+     */
+    public boolean isNearBoundary(GeoPoint point, double metres) {
+        if (!(metres >= 0)) return false;
+        double limit = metres / GeoArc.EARTH_RADIUS_METRES;
+        return angleToBoundary(point.lat, point.lon, Math.nextUp(limit)) <= limit;
+    }
+
+    /**
+     * Containment test against the polygon grown by a buffer distance, or shrunk for a negative buffer
+     *
+     * @return for a buffer of zero or more, true if the point is inside or within the buffer distance of the
+     * perimeter; for a negative buffer, true if the point is inside and farther than the buffer distance from
+     * the perimeter
+     */
+    public boolean containsBuffered(GeoPoint point, double bufferMetres) {
+        if (bufferMetres >= 0) return contains(point) || isNearBoundary(point, bufferMetres);
+        return contains(point) && !isNearBoundary(point, -bufferMetres);
+    }
+
+    /**
+     * @param limit angle beyond which the nearest point of the perimeter need not be found
+     * @return angle in radians from the point to the nearest point of the perimeter, or limit if none is nearer
+     */
+    double angleToBoundary(double lat, double lon, double limit) {
+        double px = GeoVectors.x(lat, lon);
+        double py = GeoVectors.y(lat, lon);
+        double pz = GeoVectors.z(lat);
+        double cosLat = Math.cos(lat);
+        double latGap = Math.max(0, Math.max(lat - bounds.maxLat, bounds.minLat - lat));
+        double best = limit;
+        double sinBest = (best < GeoBounds.HALF_PI) ? Math.sin(best) : 2;
+        GeoBounds[] edgeBounds = edgeBounds();
+
+        if (edgeIndex == null) {
+            if (edgeCount == 0) return best;
+            double lonGap = lonGap(GeoBounds.eastwardSpan(bounds.west, lon), 0, bounds.lonSpan);
+            if (lowerBound(lat, cosLat, latGap, lonGap) >= best) return best;
+            for (int i = 0; i < edgeCount; i++) {
+                double angle = angleToEdge(i, px, py, pz, lat, best, sinBest, edgeBounds);
+                if (angle < best) {
+                    best = angle;
+                    sinBest = (best < GeoBounds.HALF_PI) ? Math.sin(best) : 2;
+                }
+            }
+            return best;
+        }
+
+        // Visit bands in order of their least possible distance, walking east and west from the point's band.
+        // Unvisited bands always lie between the two fronts, and none can be nearer than both fronts.
+        int n = edgeIndex.bandCount;
+        double width = edgeIndex.lonSpan / n;
+        double offset = GeoBounds.eastwardSpan(edgeIndex.west, lon);
+        int center;
+        if (offset <= edgeIndex.lonSpan) center = Math.min((int)(offset * edgeIndex.bandScale), n - 1);
+        else center = (offset - edgeIndex.lonSpan < GeoBounds.TWO_PI - offset) ? n - 1 : 0;
+        int east = center;
+        int west = center - 1;
+        for (int remaining = n; remaining > 0; remaining--) {
+            int eastBand = Math.floorMod(east, n);
+            int westBand = Math.floorMod(west, n);
+            double eastBound = lowerBound(lat, cosLat, latGap,
+                    lonGap(offset, eastBand * width, (eastBand + 1) * width));
+            double westBound = lowerBound(lat, cosLat, latGap,
+                    lonGap(offset, westBand * width, (westBand + 1) * width));
+            int b;
+            if (eastBound <= westBound) {
+                if (eastBound >= best) break;
+                b = eastBand;
+                east++;
+            }
+            else {
+                if (westBound >= best) break;
+                b = westBand;
+                west--;
+            }
+
+            for (int k = edgeIndex.bandStart[b]; k < edgeIndex.bandStart[b + 1]; k++) {
+                double angle = angleToEdge(edgeIndex.bandEdges[k], px, py, pz, lat, best, sinBest, edgeBounds);
+                if (angle < best) {
+                    best = angle;
+                    sinBest = (best < GeoBounds.HALF_PI) ? Math.sin(best) : 2;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param best    nearest distance found so far
+     * @param sinBest sine of best, or more than 1 if it is not below a right angle
+     * @return angle in radians from the point to the edge, or infinity if it cannot be nearer than best
+     */
+    private double angleToEdge(int i, double px, double py, double pz, double lat, double best, double sinBest,
+                               GeoBounds[] edgeBounds) {
+        // Edges at least as far in latitude, or from their great circles, as the nearest found cannot be nearer
+        GeoBounds b = edgeBounds[i];
+        if (lat - b.maxLat >= best || b.minLat - lat >= best) return Double.POSITIVE_INFINITY;
+        if (Math.abs(GeoVectors.dot(nx[i], ny[i], nz[i], px, py, pz)) >= sinBest) return Double.POSITIVE_INFINITY;
+        int j = (i > 0) ? i - 1 : edgeCount - 1;
+        return GeoVectors.angleToArc(px, py, pz, x[i], y[i], z[i], x[j], y[j], z[j]);
+    }
+
+    /**
+     * @return change in longitude from an offset east of the bounds' western limit to the nearest offset in
+     * [start, end], less the longitude padding
+     */
+    private static double lonGap(double offset, double start, double end) {
+        if (end - start >= GeoBounds.TWO_PI || (offset >= start && offset <= end)) return 0;
+        double gap = Math.min(GeoBounds.eastwardSpan(end, offset), GeoBounds.eastwardSpan(offset, start));
+        return Math.max(0, gap - GeoBounds.LON_MARGIN);
+    }
+
+    /**
+     * @return least angle from a point to anything separated from it by the given latitude and longitude
+     */
+    private static double lowerBound(double lat, double cosLat, double latGap, double lonGap) {
+        // Distance to the great circle of a meridian, or past a right angle of longitude, to the nearer pole
+        double lonBound = (lonGap >= GeoBounds.HALF_PI) ?
+                GeoBounds.HALF_PI - Math.abs(lat) :
+                Math.asin(Math.min(1, cosLat * Math.sin(lonGap)));
+        return Math.max(latGap, lonBound);
+    }
+
+    private boolean mayOverlap(PreparedGeoPolygon other) {
+        return edgeCount >= 3 && other.edgeCount >= 3 && containmentBounds.intersects(other.containmentBounds);
+    }
+
+    /**
+     * @return true if the given vertex of another polygon lies inside this one
+     */
+    private boolean containsVertex(PreparedGeoPolygon other, int vertex) {
+        double vx = other.x[vertex];
+        double vy = other.y[vertex];
+        double vz = other.z[vertex];
+        return contains(GeoVectors.lat(vx, vy, vz), GeoVectors.lon(vx, vy));
+    }
+
+    private static void checkBatchRange(double[] lats, double[] lons, int offset, int len, int outLength) {
+        checkBatchRange(Math.min(lats.length, lons.length), offset, len, outLength);
+    }
+
+    private static void checkBatchRange(int inLength, int offset, int len, int outLength) {
+        if (offset < 0 || len < 0 || offset + len > inLength || offset + len > outLength) {
+            throw new IndexOutOfBoundsException(String.format("Range [%d, %d) out of bounds", offset, offset + len));
+        }
+    }
+
+    /**
+     * Containment test for lat/lon in degrees, normalized the same way as {@link GeoPoint#GeoPoint(double, double)}
+     */
+    boolean containsDegrees(double latDegrees, double lonDegrees) {
+        double lat = latDegrees / 180 * Math.PI;
+        double lon = lonDegrees / 180 * Math.PI;
+        return contains(GeoPoint.normalizeLat(lat), GeoPoint.normalizeLon(lat, lon));
+    }
+
+    /**
+     * Containment test for a point given as normalized lat/lon in radians
+     */
+    boolean contains(double lat, double lon) {
+        GeoMetricsListener listener = GeoMetrics.listener;
+        if (listener == null) return contains(lat, lon, null);
+
+        long start = System.nanoTime();
+        GeoMetrics.ContainmentStats stats = new GeoMetrics.ContainmentStats();
+        boolean inside = contains(lat, lon, stats);
+        stats.report(listener, inside, System.nanoTime() - start);
+        return inside;
+    }
+
+    /**
+     * @param stats receives details of the test, or null when not instrumented
+     */
+    private boolean contains(double lat, double lon, GeoMetrics.ContainmentStats stats) {
+        // Fewer than 3 vertices do not define a polygon and cannot contain anything, and points which no test
+        // arc from could cross the perimeter are rejected without checking each edge
+        if (edgeCount < 3 || (boundsApplicable && !bounds.mayCross(lat, lon, polesSeparated))) {
+            if (stats != null) stats.rejected = true;
+            return false;
+        }
+
+        // Points in cells which the perimeter does not pass through take the state of the cell
+        if (covering != null) {
+            GeoCellCovering.State state = covering.state(GeoVectors.x(lat, lon), GeoVectors.y(lat, lon),
+                    GeoVectors.z(lat));
+            if (state != GeoCellCovering.State.BOUNDARY) {
+                if (stats != null) stats.rejected = state == GeoCellCovering.State.OUTSIDE;
+                return state == GeoCellCovering.State.INSIDE;
+            }
+        }
+
+        // With polar references the test arc follows the point's meridian, so only edges in its band can cross it
+        int from = 0;
+        int to = edgeCount;
+        if (edgeIndex != null && boundsApplicable) {
+            int band = edgeIndex.band(lon);
+            if (band < 0) {
+                if (stats != null) stats.rejected = true;
+                return false;
+            }
+            from = edgeIndex.bandStart[band];
+            to = edgeIndex.bandStart[band + 1];
+        }
+
+        int count = (mode == ContainmentMode.CROSSING_COUNT) ?
+                edges.countCrossings(lat, lon, from, to, stats) :
+                edges.countIntersections(lat, lon, from, to, stats);
+        if (stats != null) {
+            stats.edgesTested = to - from;
+            stats.intersections = count;
+        }
+        return count % 2 > 0;
+    }
+
+    /**
+     * @return whether a {@link ContainmentMode#CROSSING_COUNT} test of the given point uses external reference A
+     */
+    boolean usesReferenceA(double lat, double lon) {
+        return usesReferenceA(boundsApplicable, refALat, refALon, refBLat, refBLon, lat, lon);
+    }
+
+    /**
+     * Same as {@link #usesReferenceA(double, double)}, given the polygon's external references
+     */
+    static boolean usesReferenceA(boolean polarReferences, double refALat, double refALon,
+                                  double refBLat, double refBLon, double lat, double lon) {
+        // With polar references the nearer one is chosen by hemisphere, with ties going to B as in the distance test
+        if (polarReferences) return (refALat > 0) ? lat > 0 : lat < 0;
+        return GeoVectors.distance(lat, lon, refALat, refALon) < GeoVectors.distance(lat, lon, refBLat, refBLon);
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.cadouthat.geojava;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for a sequence of well-known binary (WKB) geometries, such as a file of concatenated
+ * records, read through a fixed size buffer one geometry at a time. Polygon and MultiPolygon geometries (and
+ * geometry collections containing them) are returned, while other geometries are skipped.
+ * <p>
+ * Both byte orders are supported, along with Z/M coordinates in ISO and extended (PostGIS) form and an
+ * embedded SRID, which is ignored. Coordinates are taken as longitude then latitude in degrees.
+ */
+public class WkbReader implements Closeable {
+
+    static final int BUFFER_SIZE = 8192;
+
+    static final int POLYGON = 3;
+    static final int MULTI_POLYGON = 6;
+    static final int GEOMETRY_COLLECTION = 7;
+
+    /**
+     * Most points a ring's list is sized for up front, as point counts come from the input and are not trusted
+     * until that many points have actually been read
+     */
+    static final int MAX_INITIAL_RING_CAPACITY = BUFFER_SIZE / 16;
+
+    static final int EWKB_Z = 0x80000000;
+    static final int EWKB_M = 0x40000000;
+    static final int EWKB_SRID = 0x20000000;
+
+    final InputStream in;
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    int pos;
+    int limit;
+
+    public WkbReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return the next polygonal geometry in the input, or null at the end of the input
+     */
+    public GeoMultiPolygon next() throws IOException {
+        while (fill(1)) {
+            List<GeoPolygon> rings = new ArrayList<>();
+            if (readGeometry(rings)) return new GeoMultiPolygon(rings);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Read one geometry, adding any polygon rings it contains
+     *
+     * @return true if the geometry is polygonal
+     */
+    boolean readGeometry(List<GeoPolygon> rings) throws IOException {
+        int order = readByte();
+        if (order != 0 && order != 1) throw new IOException("Invalid WKB byte order " + order);
+        boolean littleEndian = order == 1;
+
+        int typeCode = readInt(littleEndian);
+        int dimensions = 2;
+        if ((typeCode & EWKB_Z) != 0) dimensions++;
+        if ((typeCode & EWKB_M) != 0) dimensions++;
+        if ((typeCode & EWKB_SRID) != 0) readInt(littleEndian);
+        typeCode &= 0x0FFFFFFF;
+
+        // ISO codes add 1000 for Z, 2000 for M and 3000 for both
+        int extra = typeCode / 1000;
+        if (extra == 1 || extra == 2) dimensions++;
+        else if (extra == 3) dimensions += 2;
+        int type = typeCode % 1000;
+
+        switch (type) {
+            case 1:
+                skip(8L * dimensions);
+                return false;
+            case 2:
+                skip(8L * dimensions * readCount(littleEndian));
+                return false;
+            case POLYGON:
+                int ringCount = readCount(littleEndian);
+                for (int r = 0; r < ringCount; r++) {
+                    int pointCount = readCount(littleEndian);
+                    List<GeoPoint> ring = new ArrayList<>(Math.min(pointCount, MAX_INITIAL_RING_CAPACITY));
+                    for (int i = 0; i < pointCount; i++) {
+                        double lon = readDouble(littleEndian);
+                        double lat = readDouble(littleEndian);
+                        skip(8L * (dimensions - 2));
+                        ring.add(new GeoPoint(lat, lon));
+                    }
+                    if (!ring.isEmpty()) rings.add(GeoMultiPolygon.closedRing(ring));
+                }
+                return true;
+            case 4:
+            case 5:
+            case MULTI_POLYGON:
+            case GEOMETRY_COLLECTION:
+                boolean polygonal = type == MULTI_POLYGON;
+                int count = readCount(littleEndian);
+                for (int i = 0; i < count; i++) {
+                    polygonal |= readGeometry(rings);
+                }
+                return polygonal;
+            default:
+                throw new IOException("Unsupported WKB geometry type " + typeCode);
+        }
+    }
+
+    int readCount(boolean littleEndian) throws IOException {
+        int count = readInt(littleEndian);
+        if (count < 0) throw new IOException("Invalid WKB element count " + count);
+        return count;
+    }
+
+    int readByte() throws IOException {
+        require(1);
+        return buffer[pos++] & 0xFF;
+    }
+
+    int readInt(boolean littleEndian) throws IOException {
+        require(4);
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = buffer[pos + (littleEndian ? 3 - i : i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        pos += 4;
+        return value;
+    }
+
+    double readDouble(boolean littleEndian) throws IOException {
+        require(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            long b = buffer[pos + (littleEndian ? 7 - i : i)] & 0xFF;
+            bits = (bits << 8) | b;
+        }
+        pos += 8;
+        return Double.longBitsToDouble(bits);
+    }
+
+    void skip(long bytes) throws IOException {
+        while (bytes > 0) {
+            require(1);
+            int step = (int)Math.min(bytes, limit - pos);
+            pos += step;
+            bytes -= step;
+        }
+    }
+
+    void require(int bytes) throws IOException {
+        if (!fill(bytes)) throw new EOFException("Unexpected end of WKB input");
+    }
+
+    /**
+     * Make at least the given number of bytes available in the buffer
+     *
+     * @return false if the input ends first
+     */
+    boolean fill(int bytes) throws IOException {
+        if (limit - pos >= bytes) return true;
+        System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while (limit < bytes) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) return false;
+            limit += read;
+        }
+        return true;
+    }
+}
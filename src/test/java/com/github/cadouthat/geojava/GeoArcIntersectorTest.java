@@ -0,0 +1,147 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GeoArcIntersectorTest {
+
+    static GeoArc randomArc(Random random, double minLat, double maxLat, double minLon, double maxLon,
+                            double lengthDegrees) {
+        double lat = minLat + (maxLat - minLat) * random.nextDouble();
+        double lon = minLon + (maxLon - minLon) * random.nextDouble();
+        double angle = 2 * Math.PI * random.nextDouble();
+        double length = lengthDegrees * random.nextDouble();
+        return new GeoArc(new GeoPoint(lat, lon),
+                new GeoPoint(lat + length * Math.sin(angle), lon + length * Math.cos(angle)));
+    }
+
+    static Set<String> bruteForce(List<GeoArc> arcs) {
+        Set<String> pairs = new HashSet<>();
+        for (int i = 0; i < arcs.size(); i++) {
+            for (int j = i + 1; j < arcs.size(); j++) {
+                GeoArc a = arcs.get(i);
+                GeoArc b = arcs.get(j);
+                if (GeoVectors.arcsCross(
+                        GeoVectors.x(a.pointA.lat, a.pointA.lon), GeoVectors.y(a.pointA.lat, a.pointA.lon),
+                        GeoVectors.z(a.pointA.lat),
+                        GeoVectors.x(a.pointB.lat, a.pointB.lon), GeoVectors.y(a.pointB.lat, a.pointB.lon),
+                        GeoVectors.z(a.pointB.lat),
+                        GeoVectors.x(b.pointA.lat, b.pointA.lon), GeoVectors.y(b.pointA.lat, b.pointA.lon),
+                        GeoVectors.z(b.pointA.lat),
+                        GeoVectors.x(b.pointB.lat, b.pointB.lon), GeoVectors.y(b.pointB.lat, b.pointB.lon),
+                        GeoVectors.z(b.pointB.lat))) {
+                    pairs.add(i + "," + j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    static Set<String> pairs(List<GeoArcIntersector.Crossing> crossings) {
+        Set<String> pairs = new HashSet<>();
+        for (GeoArcIntersector.Crossing crossing : crossings) {
+            assertTrue(pairs.add(crossing.getFirst() + "," + crossing.getSecond()));
+        }
+        return pairs;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(41);
+        List<GeoArc> arcs = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            arcs.add(randomArc(random, -10, 10, -20, 20, 3));
+        }
+        // Across the 180th meridian, near a pole, and long enough to be tested against every arc
+        for (int i = 0; i < 100; i++) {
+            arcs.add(randomArc(random, -5, 5, 175, 185, 3));
+            arcs.add(randomArc(random, 85, 90, -180, 180, 5));
+        }
+        for (int i = 0; i < 10; i++) {
+            arcs.add(randomArc(random, -10, 10, -20, 20, 120));
+        }
+
+        List<GeoArcIntersector.Crossing> crossings = GeoArcIntersector.findCrossings(arcs);
+        assertFalse(crossings.isEmpty());
+        assertEquals(bruteForce(arcs), pairs(crossings));
+
+        for (GeoArcIntersector.Crossing crossing : crossings) {
+            GeoArc a = arcs.get(crossing.getFirst());
+            GeoArc b = arcs.get(crossing.getSecond());
+            GeoPoint expected = a.intersect(b);
+            if (expected != null) {
+                assertEquals(0, new GeoArc(expected, crossing.getPoint()).length(), 1);
+            }
+        }
+    }
+
+    @Test
+    public void testTouchingArcs() {
+        GeoPoint shared = new GeoPoint(0, 0);
+        List<GeoArc> arcs = new ArrayList<>();
+        arcs.add(new GeoArc(new GeoPoint(-1, -1), shared));
+        arcs.add(new GeoArc(shared, new GeoPoint(1, -1)));
+        arcs.add(new GeoArc(new GeoPoint(-1, 1), shared));
+        assertTrue(GeoArcIntersector.findCrossings(arcs).isEmpty());
+
+        arcs.add(new GeoArc(new GeoPoint(-2, -0.3), new GeoPoint(2, -0.3)));
+        List<GeoArcIntersector.Crossing> crossings = GeoArcIntersector.findCrossings(arcs);
+        assertEquals(2, crossings.size());
+        assertEquals(3, crossings.get(0).getSecond());
+    }
+
+    @Test
+    public void testSelfIntersections() {
+        // Pentagram, each edge crossing the two edges not adjacent to it
+        List<GeoPoint> star = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            double angle = 2 * Math.PI * (2 * i % 5) / 5;
+            star.add(new GeoPoint(10 * Math.sin(angle), 10 * Math.cos(angle)));
+        }
+        GeoPolygon pentagram = new GeoPolygon(star);
+        assertEquals(5, pentagram.findSelfIntersections().size());
+        assertFalse(pentagram.isSimple());
+
+        GeoPolygon bowtie = new GeoPolygon(
+                new GeoPoint(0, 0),
+                new GeoPoint(10, 10),
+                new GeoPoint(0, 10),
+                new GeoPoint(10, 0)
+        );
+        List<GeoArcIntersector.Crossing> crossings = bowtie.findSelfIntersections();
+        assertEquals(1, crossings.size());
+        assertEquals(5, crossings.get(0).getPoint().getLonDegrees(), 1e-9);
+
+        assertTrue(PreparedGeoPolygonTest.randomPolygon(new Random(42), 40, -100, 10, 500).isSimple());
+        assertFalse(new GeoPolygon(new GeoPoint(0, 0), new GeoPoint(1, 1)).isSimple());
+    }
+
+    @Test
+    public void testLargeBoundary() {
+        // A simple boundary with many vertices, then the same with one vertex moved across the opposite side
+        List<GeoPoint> vertices = new ArrayList<>();
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double radius = 5 * (1 + 0.2 * Math.sin(9 * angle));
+            vertices.add(new GeoPoint(45 + radius * Math.sin(angle), 10 + radius * Math.cos(angle)));
+        }
+        assertTrue(new GeoPolygon(vertices).isSimple());
+
+        vertices.set(n / 4, new GeoPoint(38, 10));
+        List<GeoArcIntersector.Crossing> crossings = new GeoPolygon(vertices).findSelfIntersections();
+        assertFalse(crossings.isEmpty());
+        for (GeoArcIntersector.Crossing crossing : crossings) {
+            // Only the two edges meeting at the moved vertex can cross anything
+            assertTrue(crossing.getFirst() == n / 4 || crossing.getFirst() == n / 4 + 1 ||
+                    crossing.getSecond() == n / 4 || crossing.getSecond() == n / 4 + 1);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.github.cadouthat.geojava;
 
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class GeoArcTest {
@@ -60,6 +62,82 @@ public class GeoArcTest {
         assertArcLength(40, 120, -20, 140, 6986360);
     }
 
+    @Test
+    public void testFastLength() {
+        Random random = new Random(24);
+        for (int i = 0; i < 100000; i++) {
+            // Short arcs anywhere including near the poles and across the 180th meridian, then any arcs
+            double lat = (i % 4 == 0) ? 89.5 - random.nextDouble() : -90 + 180 * random.nextDouble();
+            double lon = -180 + 360 * random.nextDouble();
+            double span = (i % 2 == 0) ? 0.6 : 180;
+            GeoArc arc = new GeoArc(new GeoPoint(lat, lon),
+                    new GeoPoint(lat + span * (random.nextDouble() - 0.5), lon + span * (random.nextDouble() - 0.5)));
+
+            double exact = arc.length();
+            assertEquals(exact, arc.length(DistanceMode.HAVERSINE), 0);
+            assertEquals(exact, arc.length(DistanceMode.FAST), DistanceMode.FAST_MAX_ERROR * exact);
+        }
+        assertEquals(EARTH_CIRCUM_METRES / 2,
+                new GeoArc(new GeoPoint(0, 0), new GeoPoint(0, 180)).length(DistanceMode.FAST), 1e-6);
+        assertEquals(0, new GeoArc(new GeoPoint(10, 20), new GeoPoint(10, 20)).length(DistanceMode.FAST), 0);
+    }
+
+    @Test
+    public void testComparableLength() {
+        Random random = new Random(25);
+        GeoPoint origin = new GeoPoint(47.6, -122.3);
+        double[] lengths = new double[1000];
+        double[] comparables = new double[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            GeoPoint point = new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble());
+            GeoArc arc = new GeoArc(origin, point);
+            lengths[i] = arc.length();
+            comparables[i] = arc.comparableLength();
+            assertEquals(lengths[i], GeoArc.fromComparableLength(comparables[i]), 1e-6);
+            assertEquals(comparables[i], GeoArc.toComparableLength(lengths[i]), 1e-12);
+        }
+        for (int i = 0; i < lengths.length; i++) {
+            for (int j = 0; j < lengths.length; j++) {
+                if (lengths[i] < lengths[j]) assertTrue(comparables[i] <= comparables[j]);
+            }
+        }
+        assertEquals(0, GeoArc.toComparableLength(0), 0);
+        assertEquals(1, GeoArc.toComparableLength(EARTH_CIRCUM_METRES), 0);
+    }
+
+    @Test
+    public void testDistanceTo() {
+        GeoArc equator = new GeoArc(new GeoPoint(0, 0), new GeoPoint(0, 10));
+        double degree = EARTH_CIRCUM_METRES / 360;
+
+        // Beside the arc, past an endpoint, and on it
+        assertEquals(degree, equator.distanceTo(new GeoPoint(1, 5)), 1e-6);
+        assertEquals(degree, equator.distanceTo(new GeoPoint(-1, 5)), 1e-6);
+        assertEquals(5 * degree, equator.distanceTo(new GeoPoint(0, 15)), 1e-6);
+        assertEquals(new GeoArc(new GeoPoint(0, 0), new GeoPoint(1, -1)).length(),
+                equator.distanceTo(new GeoPoint(1, -1)), 1e-6);
+        assertEquals(0, equator.distanceTo(new GeoPoint(0, 3)), 1e-6);
+
+        GeoArc zero = new GeoArc(new GeoPoint(10, 20), new GeoPoint(10, 20));
+        assertEquals(new GeoArc(new GeoPoint(10, 20), new GeoPoint(12, 21)).length(),
+                zero.distanceTo(new GeoPoint(12, 21)), 1e-6);
+    }
+
+    @Test
+    public void testCrossTrackDistance() {
+        GeoArc equator = new GeoArc(new GeoPoint(0, 0), new GeoPoint(0, 10));
+        double degree = EARTH_CIRCUM_METRES / 360;
+
+        // Left of eastward travel is north, and the great circle continues past the endpoints
+        assertEquals(degree, equator.crossTrackDistance(new GeoPoint(1, 5)), 1e-6);
+        assertEquals(-2 * degree, equator.crossTrackDistance(new GeoPoint(-2, 100)), 1e-6);
+        assertEquals(0, equator.crossTrackDistance(new GeoPoint(0, 45)), 1e-6);
+        assertEquals(-degree, new GeoArc(new GeoPoint(0, 10), new GeoPoint(0, 0))
+                .crossTrackDistance(new GeoPoint(1, 5)), 1e-6);
+        assertTrue(Double.isNaN(new GeoArc(new GeoPoint(10, 20), new GeoPoint(10, 20))
+                .crossTrackDistance(new GeoPoint(0, 0))));
+    }
+
     @Test
     public void testContain() {
         GeoPoint a = new GeoPoint(34, 120);
@@ -83,6 +161,19 @@ public class GeoArcTest {
         assertFalse("should not contain back point", arc.contains(e));
     }
 
+    @Test
+    public void testFastContain() {
+        GeoPoint a = new GeoPoint(34, 120);
+        GeoPoint b = new GeoPoint(-20, 120);
+        GeoArc arc = new GeoArc(a, b);
+        assertTrue("should contain endpoints", arc.fastContains(a) && arc.fastContains(b));
+        assertTrue("should contain inner point", arc.fastContains(new GeoPoint(-15, 120)));
+        assertFalse("should not contain upper point", arc.fastContains(new GeoPoint(35, 120)));
+        assertFalse("should not contain lower point", arc.fastContains(new GeoPoint(-25, 120)));
+        assertFalse("should not contain back point", arc.fastContains(new GeoPoint(20, -60)));
+        assertFalse("should not contain antipode of inner point", arc.fastContains(new GeoPoint(15, -60)));
+    }
+
     @Test
     public void testIntersectNearCoplanar() {
         GeoArc arcA = new GeoArc(new GeoPoint(16, 0), new GeoPoint(14, 50));
@@ -101,4 +192,20 @@ public class GeoArcTest {
         assertEquals("should be at expected lon", expectedPoint.getLonDegrees(), point.getLonDegrees(), TOLERANCE_RATIO);
     }
 
+    @Test
+    public void testIntersectIntoResult() {
+        GeoArc arcA = new GeoArc(new GeoPoint(1, -50), new GeoPoint(3, 50));
+        GeoArc arcB = new GeoArc(new GeoPoint(2, -50), new GeoPoint(2, 50));
+        GeoArc arcC = new GeoArc(new GeoPoint(20, -50), new GeoPoint(20, 50));
+        GeoPoint expectedPoint = arcA.intersect(arcB);
+
+        MutableGeoPoint result = new MutableGeoPoint();
+        assertTrue("should intersect", arcA.intersect(arcB, result));
+        assertEquals("should be at expected lat", expectedPoint.getLatDegrees(), result.getLatDegrees(), 1e-9);
+        assertEquals("should be at expected lon", expectedPoint.getLonDegrees(), result.getLonDegrees(), 1e-9);
+
+        assertFalse("should not intersect", arcA.intersect(arcC, result));
+        assertEquals("should leave result unchanged", expectedPoint.getLatDegrees(), result.getLatDegrees(), 1e-9);
+    }
+
 }
@@ -0,0 +1,162 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeoBoundsTest {
+
+    static final double TOLERANCE_DEGREES = 0.001;
+
+    private GeoBounds ringBounds(GeoPoint... vertices) {
+        return GeoBounds.ofRing(Arrays.asList(vertices));
+    }
+
+    @Test
+    public void testRing() {
+        GeoBounds bounds = ringBounds(
+                new GeoPoint(0, -10),
+                new GeoPoint(0, 10),
+                new GeoPoint(10, 0)
+        );
+        assertEquals(0, bounds.getMinLatDegrees(), TOLERANCE_DEGREES);
+        assertEquals(10, bounds.getMaxLatDegrees(), TOLERANCE_DEGREES);
+        assertEquals(-10, bounds.getWestDegrees(), TOLERANCE_DEGREES);
+        assertEquals(10, bounds.getEastDegrees(), TOLERANCE_DEGREES);
+        assertTrue(bounds.contains(new GeoPoint(5, 5)));
+        assertFalse(bounds.contains(new GeoPoint(5, 11)));
+        assertFalse(bounds.contains(new GeoPoint(-1, 0)));
+    }
+
+    @Test
+    public void testArcBulge() {
+        // The great circle between these points reaches well north of 60 degrees
+        GeoBounds bounds = ringBounds(
+                new GeoPoint(60, 0),
+                new GeoPoint(60, 90),
+                new GeoPoint(50, 45)
+        );
+        assertEquals(67.792, bounds.getMaxLatDegrees(), TOLERANCE_DEGREES);
+        assertEquals(50, bounds.getMinLatDegrees(), TOLERANCE_DEGREES);
+    }
+
+    @Test
+    public void testAcross180thMeridian() {
+        GeoBounds bounds = ringBounds(
+                new GeoPoint(-10, 170),
+                new GeoPoint(-10, -170),
+                new GeoPoint(10, -170),
+                new GeoPoint(10, 170)
+        );
+        assertEquals(170, bounds.getWestDegrees(), TOLERANCE_DEGREES);
+        assertEquals(-170, bounds.getEastDegrees(), TOLERANCE_DEGREES);
+        assertTrue(bounds.contains(new GeoPoint(0, 180)));
+        assertTrue(bounds.contains(new GeoPoint(0, -175)));
+        assertFalse(bounds.contains(new GeoPoint(0, 0)));
+        assertFalse(bounds.contains(new GeoPoint(0, 160)));
+    }
+
+    @Test
+    public void testAroundPole() {
+        GeoBounds bounds = ringBounds(
+                new GeoPoint(80, 0),
+                new GeoPoint(80, 120),
+                new GeoPoint(80, -120)
+        );
+        assertTrue(bounds.containsLon(0));
+        assertTrue(bounds.containsLon(Math.PI));
+        assertTrue(GeoBounds.mayRingSeparatePoles(Arrays.asList(
+                new GeoPoint(80, 0),
+                new GeoPoint(80, 120),
+                new GeoPoint(80, -120)
+        )));
+        assertFalse(GeoBounds.mayRingSeparatePoles(Arrays.asList(
+                new GeoPoint(0, -10),
+                new GeoPoint(0, 10),
+                new GeoPoint(10, 0)
+        )));
+    }
+
+    @Test
+    public void testIntersects() {
+        GeoBounds a = GeoBounds.ofDegrees(0, 10, 170, -170);
+        GeoBounds b = GeoBounds.ofDegrees(5, 15, -175, -160);
+        GeoBounds c = GeoBounds.ofDegrees(5, 15, -160, 160);
+        GeoBounds d = GeoBounds.ofDegrees(20, 30, -180, 180);
+        assertTrue(a.intersects(b));
+        assertTrue(b.intersects(a));
+        assertFalse(a.intersects(c));
+        assertTrue(b.intersects(c));
+        assertFalse(a.intersects(d));
+        assertTrue(d.contains(new GeoPoint(25, 0)));
+    }
+
+    @Test
+    public void testMayCross() {
+        GeoBounds bounds = GeoBounds.ofDegrees(40, 50, -10, 10);
+        double lon = 0;
+        double inside = Math.toRadians(45);
+        double south = Math.toRadians(30);
+        assertTrue(bounds.mayCross(inside, lon, false));
+        assertFalse(bounds.mayCross(south, lon, false));
+        assertFalse(bounds.mayCross(inside, Math.toRadians(20), false));
+        // A test arc from further south towards the North Pole may cross a ring separating the poles
+        assertTrue(bounds.mayCross(south, lon, true));
+        assertFalse(bounds.mayCross(Math.toRadians(60), lon, true));
+    }
+
+    @Test
+    public void testAround() {
+        Random random = new Random(27);
+        for (int i = 0; i < 2000; i++) {
+            GeoPoint center = new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble());
+            double angle = ((i % 2 == 0) ? 0.01 : 1) * random.nextDouble();
+            GeoBounds bounds = GeoBounds.around(center.lat, center.lon, angle);
+            assertTrue(bounds.contains(center));
+
+            // Points on the circle of the given radius around the center
+            for (int k = 0; k < 16; k++) {
+                double bearing = 2 * Math.PI * k / 16;
+                double lat = Math.asin(Math.sin(center.lat) * Math.cos(angle) +
+                        Math.cos(center.lat) * Math.sin(angle) * Math.cos(bearing));
+                double lon = center.lon + Math.atan2(Math.sin(bearing) * Math.sin(angle) * Math.cos(center.lat),
+                        Math.cos(angle) - Math.sin(center.lat) * Math.sin(lat));
+                GeoPoint point = new GeoPoint(Math.toDegrees(lat), Math.toDegrees(lon));
+                assertTrue(point + " around " + center, bounds.contains(point));
+            }
+        }
+
+        GeoBounds small = GeoBounds.around(0, 0, Math.toRadians(1));
+        assertEquals(-1, small.getWestDegrees(), TOLERANCE_DEGREES);
+        assertEquals(1, small.getEastDegrees(), TOLERANCE_DEGREES);
+        assertEquals(1, small.getMaxLatDegrees(), TOLERANCE_DEGREES);
+        assertEquals(360, Math.toDegrees(GeoBounds.around(Math.toRadians(89.5), 0, Math.toRadians(1)).lonSpan), 0);
+    }
+
+    @Test
+    public void testOfCell() {
+        Random random = new Random(28);
+        for (int i = 0; i < 2000; i++) {
+            GeoPoint point = new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble());
+            int level = random.nextInt(16);
+            GeoBounds bounds = GeoBounds.ofCell(GeoCell.id(point, level));
+            assertTrue(point + " at level " + level, bounds.contains(point));
+        }
+
+        // Cells holding a pole cover it and every longitude
+        for (int level : new int[]{0, 1, 8}) {
+            GeoBounds north = GeoBounds.ofCell(GeoCell.id(new GeoPoint(90, 0), level));
+            assertEquals(90, north.getMaxLatDegrees(), 0);
+            assertEquals(360, Math.toDegrees(north.lonSpan), 0);
+            GeoBounds south = GeoBounds.ofCell(GeoCell.id(new GeoPoint(-90, 0), level));
+            assertEquals(-90, south.getMinLatDegrees(), 0);
+        }
+
+        GeoBounds small = GeoBounds.ofCell(GeoCell.id(new GeoPoint(10, 20), 12));
+        assertTrue(small.lonSpan < Math.toRadians(0.1));
+        assertTrue(small.maxLat - small.minLat < Math.toRadians(0.1));
+    }
+}
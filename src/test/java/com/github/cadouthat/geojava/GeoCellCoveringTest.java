@@ -0,0 +1,131 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GeoCellCoveringTest {
+
+    /**
+     * Compare containment with and without a covering at random points around the given area, also checking
+     * that every state of the covering is used
+     */
+    static void assertSameAsUncovered(GeoPolygon polygon, int level,
+                                      double minLat, double minLon, double maxLat, double maxLon) {
+        PreparedGeoPolygon prepared = polygon.prepare();
+        PreparedGeoPolygon covered = prepared.withCellCovering(level);
+        GeoCellCovering covering = covered.getCellCovering();
+        assertEquals(level, covering.getLevel());
+
+        Random random = new Random(level);
+        int[] states = new int[GeoCellCovering.State.values().length];
+        for (int n = 0; n < 20000; n++) {
+            GeoPoint point = new GeoPoint(minLat + (maxLat - minLat) * random.nextDouble(),
+                    minLon + (maxLon - minLon) * random.nextDouble());
+            boolean expected = prepared.contains(point);
+            assertEquals(point.toString(), expected, covered.contains(point));
+
+            GeoCellCovering.State state = covering.getState(point);
+            states[state.ordinal()]++;
+            if (state == GeoCellCovering.State.INSIDE) assertTrue(expected);
+        }
+        for (int count : states) {
+            assertTrue(count > 0);
+        }
+    }
+
+    @Test
+    public void testSeattle() {
+        assertSameAsUncovered(PreparedGeoPolygonTest.SEATTLE, 14, 47.3, -122.6, 47.9, -122.1);
+    }
+
+    @Test
+    public void testAntimeridian() {
+        GeoPolygon polygon = new GeoPolygon(
+                new GeoPoint(10, 170),
+                new GeoPoint(10, -170),
+                new GeoPoint(-10, -170),
+                new GeoPoint(-10, 170)
+        );
+        assertSameAsUncovered(polygon, 8, -20, 160, 20, 200);
+    }
+
+    @Test
+    public void testAroundPole() {
+        List<GeoPoint> vertices = new ArrayList<>();
+        for (int i = 0; i < 36; i++) {
+            vertices.add(new GeoPoint(70 + 5 * (i % 2), i * 10));
+        }
+        assertSameAsUncovered(new GeoPolygon(vertices), 10, 60, -180, 90, 180);
+    }
+
+    @Test
+    public void testFacePolygon() {
+        // Large enough to contain whole cells at coarse levels
+        GeoPolygon polygon = new GeoPolygon(
+                new GeoPoint(60, -100),
+                new GeoPoint(60, 100),
+                new GeoPoint(-60, 100),
+                new GeoPoint(-60, -100)
+        );
+        assertSameAsUncovered(polygon, 6, -90, -180, 90, 180);
+        assertTrue(polygon.prepare().withCellCovering(6).getCellCovering().getRangeCount() < 2000);
+    }
+
+    @Test
+    public void testRecovering() {
+        PreparedGeoPolygon covered = PreparedGeoPolygonTest.SEATTLE.prepare().withCellCovering(10);
+        PreparedGeoPolygon recovered = covered.withCellCovering(12);
+        assertEquals(12, recovered.getCellCovering().getLevel());
+        assertSame(covered.x, recovered.x);
+        assertNull(PreparedGeoPolygonTest.SEATTLE.prepare().getCellCovering());
+    }
+
+    /**
+     * A polygon separating the poles is tested against the North Pole on one side of the equator and the South
+     * Pole on the other, so cells along the switch must not take the state of their centre
+     */
+    @Test
+    public void testPolarCap() {
+        GeoPolygon cap = new GeoPolygon(
+                new GeoPoint(60, 0),
+                new GeoPoint(60, 60),
+                new GeoPoint(60, 120),
+                new GeoPoint(60, 180),
+                new GeoPoint(60, -120),
+                new GeoPoint(60, -60)
+        );
+        GeoPolygon[] polygons = new GeoPolygon[]{
+                cap,
+                cap.withExternalReferences(new GeoPoint(89, 0), new GeoPoint(-89, 10))
+        };
+        GeoPoint[] points = new GeoPoint[]{
+                new GeoPoint(30, 0),
+                new GeoPoint(1, 90),
+                new GeoPoint(0, 10),
+                new GeoPoint(-1, 90),
+                new GeoPoint(70, 0)
+        };
+        Random random = new Random(1);
+        for (GeoPolygon polygon : polygons) {
+            PreparedGeoPolygon prepared = polygon.prepare();
+            for (int level : new int[]{0, 5, 12}) {
+                PreparedGeoPolygon covered = prepared.withCellCovering(level);
+                for (GeoPoint point : points) {
+                    assertEquals(level + " " + point, prepared.contains(point), covered.contains(point));
+                }
+                for (int n = 0; n < 5000; n++) {
+                    GeoPoint point = new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble());
+                    assertEquals(level + " " + point, prepared.contains(point), covered.contains(point));
+                }
+            }
+        }
+    }
+}
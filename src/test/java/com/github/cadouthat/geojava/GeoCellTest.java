@@ -0,0 +1,76 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeoCellTest {
+
+    @Test
+    public void testHierarchy() {
+        Random random = new Random(1);
+        for (int n = 0; n < 1000; n++) {
+            GeoPoint point = new GeoPoint(180 * random.nextDouble() - 90, 360 * random.nextDouble() - 180);
+            long leaf = GeoCell.id(point, GeoCell.MAX_LEVEL);
+            assertEquals(GeoCell.MAX_LEVEL, GeoCell.level(leaf));
+
+            long cell = leaf;
+            for (int level = GeoCell.MAX_LEVEL; level > 0; level--) {
+                assertEquals(cell, GeoCell.id(point, level));
+                assertTrue(GeoCell.contains(cell, leaf));
+
+                long parent = GeoCell.parent(cell);
+                assertEquals(level - 1, GeoCell.level(parent));
+                assertEquals(GeoCell.face(cell), GeoCell.face(parent));
+                int matching = 0;
+                for (int index = 0; index < 4; index++) {
+                    if (GeoCell.child(parent, index) == cell) matching++;
+                }
+                assertEquals(1, matching);
+                cell = parent;
+            }
+        }
+    }
+
+    @Test
+    public void testChildrenPartitionRange() {
+        long cell = GeoCell.id(new GeoPoint(47.6, -122.3), 5);
+        assertEquals(GeoCell.rangeMin(cell), GeoCell.rangeMin(GeoCell.child(cell, 0)));
+        assertEquals(GeoCell.rangeMax(cell), GeoCell.rangeMax(GeoCell.child(cell, 3)));
+        for (int index = 0; index < 3; index++) {
+            assertEquals(GeoCell.rangeMax(GeoCell.child(cell, index)) + 2,
+                    GeoCell.rangeMin(GeoCell.child(cell, index + 1)));
+        }
+        assertFalse(GeoCell.contains(GeoCell.child(cell, 0), GeoCell.child(cell, 1)));
+    }
+
+    @Test
+    public void testCenter() {
+        Random random = new Random(2);
+        for (int n = 0; n < 1000; n++) {
+            GeoPoint point = new GeoPoint(180 * random.nextDouble() - 90, 360 * random.nextDouble() - 180);
+            int level = random.nextInt(GeoCell.MAX_LEVEL + 1);
+            long cell = GeoCell.id(point, level);
+            assertEquals(cell, GeoCell.id(GeoCell.center(cell), level));
+        }
+    }
+
+    @Test
+    public void testFaces() {
+        assertEquals(0, GeoCell.face(GeoCell.id(new GeoPoint(0, 0), 0)));
+        assertEquals(1, GeoCell.face(GeoCell.id(new GeoPoint(0, 90), 0)));
+        assertEquals(2, GeoCell.face(GeoCell.id(new GeoPoint(90, 0), 0)));
+        assertEquals(3, GeoCell.face(GeoCell.id(new GeoPoint(0, 180), 0)));
+        assertEquals(4, GeoCell.face(GeoCell.id(new GeoPoint(0, -90), 0)));
+        assertEquals(5, GeoCell.face(GeoCell.id(new GeoPoint(-90, 0), 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLevelRange() {
+        GeoCell.id(new GeoPoint(0, 0), GeoCell.MAX_LEVEL + 1);
+    }
+}
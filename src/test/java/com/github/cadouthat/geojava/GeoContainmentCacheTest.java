@@ -0,0 +1,144 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeoContainmentCacheTest {
+
+    static GeoPoint[] randomPoints(int count, Random random) {
+        GeoPoint[] points = new GeoPoint[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = new GeoPoint(47.4 + 0.4 * random.nextDouble(), -122.5 + 0.3 * random.nextDouble());
+        }
+        return points;
+    }
+
+    static void assertExact(PreparedGeoPolygon polygon, GeoContainmentCache cache, GeoPoint[] points) {
+        for (int pass = 0; pass < 3; pass++) {
+            for (GeoPoint point : points) {
+                assertEquals(polygon.contains(point), cache.contains(point));
+            }
+        }
+    }
+
+    @Test
+    public void testExactResults() {
+        PreparedGeoPolygon prepared = PreparedGeoPolygonTest.SEATTLE.prepare();
+        GeoContainmentCache cache = new GeoContainmentCache(prepared, 14, 100000);
+        assertExact(prepared, cache, randomPoints(2000, new Random(1)));
+
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.getBoundaryTests() > 0);
+        assertTrue(cache.getHits() + cache.getMisses() <= 6000);
+        assertEquals(cache.size(), cache.getMisses());
+    }
+
+    @Test
+    public void testCapacity() {
+        PreparedGeoPolygon prepared = PreparedGeoPolygonTest.SEATTLE.prepare();
+        GeoContainmentCache cache = new GeoContainmentCache(prepared, 20, 64);
+        assertExact(prepared, cache, randomPoints(1000, new Random(2)));
+        assertTrue(cache.size() <= 64);
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testWithCovering() {
+        PreparedGeoPolygon covered = PreparedGeoPolygonTest.SEATTLE.prepare().withCellCovering(16);
+        GeoContainmentCache cache = new GeoContainmentCache(covered, 13, 100000);
+        assertExact(covered, cache, randomPoints(2000, new Random(3)));
+        assertTrue(cache.getHits() > 0);
+    }
+
+    @Test
+    public void testStationaryPoints() {
+        PreparedGeoPolygon prepared = PreparedGeoPolygonTest.SEATTLE.prepare();
+        GeoContainmentCache cache = new GeoContainmentCache(prepared, 18, 1000);
+        GeoPoint inside = new GeoPoint(47.62, -122.33);
+        GeoPoint outside = new GeoPoint(47.62, -122.0);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cache.contains(inside));
+            assertTrue(!cache.contains(outside));
+        }
+        assertEquals(2, cache.getMisses());
+        assertEquals(198, cache.getHits());
+    }
+
+    @Test
+    public void testEdgeIndex() {
+        Random random = new Random(5);
+        // Crossings of this spiky polygon are closer together than intersection points can be told apart
+        GeoPolygon polygon = PreparedGeoPolygonTest.randomPolygon(random, 10, 20, 8, 2000);
+        PreparedGeoPolygon prepared = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT, true);
+        assertTrue(prepared.edgeIndex != null);
+        GeoPoint[] points = new GeoPoint[2000];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (i % 2 == 0) ?
+                    new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble()) :
+                    new GeoPoint(1 + 18 * random.nextDouble(), 11 + 18 * random.nextDouble());
+        }
+        for (int level : new int[]{3, 8, 14}) {
+            assertExact(prepared, new GeoContainmentCache(prepared, level, 100000), points);
+        }
+    }
+
+    @Test
+    public void testOutsideBounds() {
+        PreparedGeoPolygon prepared = PreparedGeoPolygonTest.SEATTLE.prepare();
+        GeoContainmentCache cache = new GeoContainmentCache(prepared, 14, 1000);
+        GeoMetricsRecorder recorder = new GeoMetricsRecorder();
+        GeoMetrics.setListener(recorder);
+        try {
+            // Cells far from the polygon are outside without testing its edges
+            assertTrue(!cache.contains(new GeoPoint(-30, 40)));
+            assertTrue(!cache.contains(new GeoPoint(47.6, 10)));
+        }
+        finally {
+            GeoMetrics.setListener(null);
+        }
+        assertEquals(0, recorder.getContainmentTests());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new GeoContainmentCache(PreparedGeoPolygonTest.SEATTLE.prepare(), 10, 0);
+    }
+
+    /**
+     * Cells on the equator hold points tested against different poles, see
+     * {@link GeoCellCoveringTest#testPolarCap}
+     */
+    @Test
+    public void testPolarCap() {
+        GeoPolygon cap = new GeoPolygon(
+                new GeoPoint(60, 0),
+                new GeoPoint(60, 60),
+                new GeoPoint(60, 120),
+                new GeoPoint(60, 180),
+                new GeoPoint(60, -120),
+                new GeoPoint(60, -60)
+        );
+        Random random = new Random(4);
+        GeoPoint[] points = new GeoPoint[2005];
+        points[0] = new GeoPoint(30, 0);
+        points[1] = new GeoPoint(1, 90);
+        points[2] = new GeoPoint(1e-9, 10);
+        points[3] = new GeoPoint(0, 10);
+        points[4] = new GeoPoint(-1e-9, 10);
+        for (int i = 5; i < points.length; i++) {
+            points[i] = new GeoPoint(-2 + 4 * random.nextDouble(), -180 + 360 * random.nextDouble());
+        }
+
+        PreparedGeoPolygon prepared = cap.prepare();
+        for (int level : new int[]{0, 5, 12}) {
+            assertExact(prepared, new GeoContainmentCache(prepared, level, 100000), points);
+            assertExact(prepared, new GeoContainmentCache(prepared.withCellCovering(12), level, 100000), points);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class GeoDistancesTest {
+
+    static double[] randomDegrees(Random random, int count, double range) {
+        double[] result = new double[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = range * (2 * random.nextDouble() - 1);
+        }
+        return result;
+    }
+
+    @Test
+    public void testDistances() {
+        Random random = new Random(1);
+        GeoPoint origin = new GeoPoint(47.6, -122.3);
+        double[] lats = randomDegrees(random, 1000, 90);
+        double[] lons = randomDegrees(random, 1000, 180);
+        // Coordinates needing normalization
+        lats[0] = 135;
+        lons[0] = 200;
+        lats[1] = -90;
+        lons[1] = -180;
+
+        double[] out = new double[1000];
+        GeoDistances.distances(origin, lats, lons, out);
+        for (int i = 0; i < out.length; i++) {
+            double expected = new GeoArc(origin, new GeoPoint(lats[i], lons[i])).length();
+            assertEquals("distance " + i, expected, out[i], 0);
+        }
+    }
+
+    @Test
+    public void testDistanceMatrix() {
+        Random random = new Random(2);
+        int rows = 30;
+        int cols = GeoDistances.MATRIX_BLOCK + 70;
+        double[] fromLats = randomDegrees(random, rows, 90);
+        double[] fromLons = randomDegrees(random, rows, 180);
+        double[] toLats = randomDegrees(random, cols, 90);
+        double[] toLons = randomDegrees(random, cols, 180);
+
+        double[] out = new double[rows * cols];
+        GeoDistances.distanceMatrix(fromLats, fromLons, toLats, toLons, out);
+
+        List<GeoPoint> from = new ArrayList<>();
+        List<GeoPoint> to = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            from.add(new GeoPoint(fromLats[i], fromLons[i]));
+        }
+        for (int j = 0; j < cols; j++) {
+            to.add(new GeoPoint(toLats[j], toLons[j]));
+        }
+        double[][] matrix = GeoDistances.distanceMatrix(from, to);
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                double expected = new GeoArc(from.get(i), to.get(j)).length();
+                assertEquals("distance " + i + ", " + j, expected, out[i * cols + j], 0);
+                assertEquals("distance " + i + ", " + j, expected, matrix[i][j], 0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedColumns() {
+        GeoDistances.distances(new GeoPoint(0, 0), new double[3], new double[2], new double[3]);
+    }
+}
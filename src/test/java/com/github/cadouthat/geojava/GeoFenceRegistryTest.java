@@ -0,0 +1,150 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class GeoFenceRegistryTest {
+
+    static Map<Integer, GeoPolygon> randomFences(Random random, int count) {
+        Map<Integer, GeoPolygon> fences = new HashMap<>();
+        List<GeoPolygon> polygons = GeoPolygonIndexTest.randomPolygons(random, count);
+        for (int i = 0; i < polygons.size(); i++) {
+            fences.put(i, polygons.get(i));
+        }
+        return fences;
+    }
+
+    static void assertMatchesBruteForce(GeoFenceRegistry.Snapshot<Integer> snapshot, Random random) {
+        for (int i = 0; i < 500; i++) {
+            GeoPoint point = new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble());
+            HashSet<Integer> expected = new HashSet<>();
+            for (Map.Entry<Integer, GeoPolygon> fence : snapshot.getFences().entrySet()) {
+                if (fence.getValue().contains(point)) expected.add(fence.getKey());
+            }
+            assertEquals("containing fences of " + point, expected, new HashSet<>(snapshot.findContaining(point)));
+        }
+    }
+
+    @Test
+    public void testReplaceAll() {
+        Random random = new Random(3);
+        GeoFenceRegistry<Integer> registry = new GeoFenceRegistry<>();
+        assertEquals(0, registry.size());
+        assertTrue(registry.findContaining(new GeoPoint(0, 0)).isEmpty());
+
+        Map<Integer, GeoPolygon> fences = randomFences(random, 200);
+        GeoFenceRegistry.Snapshot<Integer> snapshot = registry.replaceAll(fences);
+        assertSame(snapshot, registry.snapshot());
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(200, registry.size());
+        assertSame(fences.get(7), registry.get(7));
+
+        // Changes to the given map are not seen
+        fences.clear();
+        assertEquals(200, registry.size());
+        assertMatchesBruteForce(snapshot, random);
+    }
+
+    @Test
+    public void testPutAndRemove() {
+        Random random = new Random(5);
+        GeoFenceRegistry<Integer> registry = new GeoFenceRegistry<>();
+        registry.replaceAll(randomFences(random, 50));
+        GeoFenceRegistry.Snapshot<Integer> before = registry.snapshot();
+
+        GeoPolygon polygon = GeoPolygonIndexTest.randomPolygons(random, 1).get(0);
+        registry.put(7, polygon);
+        registry.put(100, polygon);
+        assertTrue(registry.remove(3).getVersion() > before.getVersion());
+        assertSame(registry.snapshot(), registry.remove(3));
+
+        GeoFenceRegistry.Snapshot<Integer> after = registry.snapshot();
+        assertEquals(4, after.getVersion());
+        assertEquals(50, after.size());
+        assertSame(polygon, after.get(7));
+        assertNull(after.get(3));
+        assertMatchesBruteForce(after, random);
+
+        // Earlier snapshots are unchanged
+        assertEquals(50, before.size());
+        assertNotNull(before.get(3));
+        assertNotSame(polygon, before.get(7));
+        assertMatchesBruteForce(before, random);
+    }
+
+    @Test
+    public void testSamePolygonUnderSeveralKeys() {
+        GeoPolygon polygon = new GeoPolygon(
+                new GeoPoint(10, -10),
+                new GeoPoint(10, 10),
+                new GeoPoint(-10, 10),
+                new GeoPoint(-10, -10)
+        );
+        GeoFenceRegistry<String> registry = new GeoFenceRegistry<>();
+        registry.put("a", polygon);
+        registry.put("b", polygon);
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")),
+                new HashSet<>(registry.findContaining(new GeoPoint(0, 0))));
+        assertTrue(registry.findContaining(new GeoPoint(20, 0)).isEmpty());
+    }
+
+    @Test
+    public void testQueriesDuringReplacement() throws Exception {
+        Random random = new Random(9);
+        final List<Map<Integer, GeoPolygon>> sets = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            sets.add(randomFences(random, 100 + 50 * i));
+        }
+        final GeoFenceRegistry<Integer> registry = new GeoFenceRegistry<>();
+        registry.replaceAll(sets.get(0));
+
+        // Every query sees exactly one of the sets, never a mixture
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!done.get()) {
+                        GeoFenceRegistry.Snapshot<Integer> snapshot = registry.snapshot();
+                        assertTrue(sets.contains(snapshot.getFences()));
+                        assertEquals(snapshot.size(), snapshot.index.size());
+                    }
+                }
+                catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        });
+        reader.start();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 1; i < 20; i++) {
+                GeoFenceRegistry.Snapshot<Integer> snapshot =
+                        registry.replaceAllAsync(sets.get(i % sets.size()), executor).get();
+                assertEquals(i + 1, snapshot.getVersion());
+            }
+        }
+        finally {
+            done.set(true);
+            reader.join();
+            executor.shutdown();
+        }
+        assertNull(failure.get());
+        assertMatchesBruteForce(registry.snapshot(), random);
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeoHullPolygonTest {
+
+    /**
+     * Jagged ring around a centre, like a detailed coastline
+     */
+    static GeoPolygon coastline(double centreLat, double centreLon, int vertexCount, Random random) {
+        List<GeoPoint> vertices = new ArrayList<>();
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            double radius = 1 + 0.2 * Math.sin(7 * angle) + 0.0005 * random.nextDouble();
+            double lat = centreLat + radius * Math.sin(angle);
+            vertices.add(new GeoPoint(lat, centreLon + radius * Math.cos(angle) / Math.cos(Math.toRadians(lat))));
+        }
+        return new GeoPolygon(vertices);
+    }
+
+    static double distanceToRing(GeoPoint point, List<GeoPoint> ring) {
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < ring.size(); i++) {
+            GeoPoint a = ring.get(i);
+            GeoPoint b = ring.get((i > 0) ? i - 1 : ring.size() - 1);
+            double angle = GeoVectors.angleToArc(
+                    GeoVectors.x(point.lat, point.lon), GeoVectors.y(point.lat, point.lon), GeoVectors.z(point.lat),
+                    GeoVectors.x(a.lat, a.lon), GeoVectors.y(a.lat, a.lon), GeoVectors.z(a.lat),
+                    GeoVectors.x(b.lat, b.lon), GeoVectors.y(b.lat, b.lon), GeoVectors.z(b.lat));
+            min = Math.min(min, angle * GeoArc.EARTH_RADIUS_METRES);
+        }
+        return min;
+    }
+
+    @Test
+    public void testSimplify() {
+        GeoPolygon polygon = coastline(-33.9, 151.2, 5000, new Random(1));
+        GeoPolygon simplified = polygon.simplify(200);
+        assertTrue(simplified.vertices.size() < 500);
+        assertTrue(simplified.vertices.size() >= 4);
+        for (GeoPoint vertex : polygon.vertices) {
+            assertTrue(distanceToRing(vertex, simplified.vertices) <= 200 + 1e-6);
+        }
+
+        // A huge tolerance still leaves a polygon
+        assertEquals(4, polygon.simplify(1e7).vertices.size());
+    }
+
+    @Test
+    public void testSimplifyKeepsSmallRings() {
+        GeoPolygon triangle = new GeoPolygon(new GeoPoint(0, 0), new GeoPoint(0, 1), new GeoPoint(1, 0));
+        assertEquals(3, triangle.simplify(1e6).vertices.size());
+    }
+
+    @Test
+    public void testContains() {
+        Random random = new Random(2);
+        GeoPolygon polygon = coastline(60, -150, 20000, random);
+        GeoHullPolygon hull = new GeoHullPolygon(polygon, 100);
+        PreparedGeoPolygon full = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT);
+        assertTrue(hull.getSimplified().vertices.size() < 2000);
+        assertTrue(hull.getBandWidth() >= 100);
+
+        int decided = 0;
+        for (int n = 0; n < 20000; n++) {
+            GeoPoint point = new GeoPoint(57.5 + 5 * random.nextDouble(), -155 + 10 * random.nextDouble());
+            boolean expected = full.contains(point);
+            assertEquals(expected, hull.contains(point));
+            if (hull.isInsideInnerHull(point)) assertTrue(expected);
+            if (!hull.isInsideOuterHull(point)) assertFalse(expected);
+            if (hull.isInsideInnerHull(point) || !hull.isInsideOuterHull(point)) decided++;
+        }
+        assertTrue(decided > 19000);
+    }
+
+    @Test
+    public void testPointsNearPerimeter() {
+        Random random = new Random(3);
+        GeoPolygon polygon = coastline(10, 179.5, 3000, random);
+        GeoHullPolygon hull = new GeoHullPolygon(polygon, 500);
+        PreparedGeoPolygon full = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT);
+        for (GeoPoint vertex : polygon.vertices) {
+            GeoPoint point = new GeoPoint(vertex.getLatDegrees() + 0.001 * (random.nextDouble() - 0.5),
+                    vertex.getLonDegrees() + 0.001 * (random.nextDouble() - 0.5));
+            assertEquals(full.contains(point), hull.contains(point));
+            assertTrue(hull.isInsideOuterHull(vertex));
+            assertFalse(hull.isInsideInnerHull(vertex));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.cadouthat.geojava;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class GeoJfrListenerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void uninstall() {
+        GeoMetrics.setListener(null);
+    }
+
+    @Test
+    public void testEvents() throws IOException {
+        assumeTrue(GeoMetrics.isJfrAvailable());
+        assertTrue(GeoMetrics.installJfrListener());
+        assertTrue(GeoMetrics.getListener() instanceof GeoJfrListener);
+
+        Path file = folder.newFile("geo.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable("com.github.cadouthat.geojava.Containment");
+            recording.start();
+            PreparedGeoPolygon prepared = GeoMetricsRecorderTest.DIAMOND.prepare();
+            assertTrue(prepared.contains(new GeoPoint(0, 0)));
+            prepared.contains(new GeoPoint(50, 50));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        int tested = 0;
+        int rejected = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (!event.getEventType().getName().equals("com.github.cadouthat.geojava.Containment")) continue;
+            if (event.getBoolean("rejected")) {
+                rejected++;
+            }
+            else {
+                tested++;
+                assertEquals(4, event.getInt("edgesTested"));
+                assertTrue(event.getBoolean("inside"));
+            }
+        }
+        assertEquals(1, tested);
+        assertEquals(1, rejected);
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GeoJsonReaderTest {
+
+    static final String COLLECTION = "{\"type\": \"FeatureCollection\", \"features\": [\n" +
+            // Polygon with a hole
+            "  {\"type\": \"Feature\",\n" +
+            "   \"properties\": {\"name\": \"with \\\"hole\\\"\", \"tags\": [1, true, null]},\n" +
+            "   \"geometry\": {\"type\": \"Polygon\", \"coordinates\": [\n" +
+            "     [[0, 0], [10, 0], [10, 10], [0, 10], [0, 0]],\n" +
+            "     [[4, 4], [4, 6], [6, 6], [6, 4], [4, 4]]]}},\n" +
+            // Other geometries are skipped
+            "  {\"type\": \"Feature\", \"properties\": {},\n" +
+            "   \"geometry\": {\"type\": \"Point\", \"coordinates\": [1, 2]}},\n" +
+            "  {\"type\": \"Feature\", \"properties\": {}, \"geometry\": {\"type\": \"MultiLineString\",\n" +
+            "   \"coordinates\": [[[1, 2], [3, 4]], [[5, 6], [7, 8]]]}},\n" +
+            // Coordinates before type, with altitudes and exponents
+            "  {\"type\": \"Feature\", \"geometry\": {\"coordinates\": [\n" +
+            "     [[[20, 0, 5], [3e1, 0, 5], [30, 1.0E1, 5], [20, 10, 5]]],\n" +
+            "     [[[-175, -5], [175, -5], [175, 5], [-175, 5]]]],\n" +
+            "   \"type\": \"Multi\\u0050olygon\"}, \"properties\": null},\n" +
+            "  {\"type\": \"Feature\", \"geometry\": null}\n" +
+            "]}";
+
+    @Test
+    public void testFeatureCollection() throws IOException {
+        GeoJsonReader reader = new GeoJsonReader(new StringReader(COLLECTION));
+
+        GeoMultiPolygon withHole = reader.next();
+        assertEquals(2, withHole.getRings().size());
+        assertEquals(4, withHole.getRings().get(0).vertices.size());
+        assertTrue(withHole.contains(new GeoPoint(2, 2)));
+        assertFalse(withHole.contains(new GeoPoint(5, 5)));
+
+        GeoMultiPolygon multi = reader.next();
+        assertEquals(2, multi.getRings().size());
+        assertTrue(multi.contains(new GeoPoint(5, 25)));
+        assertTrue(multi.contains(new GeoPoint(0, 180)));
+        assertFalse(multi.contains(new GeoPoint(0, 0)));
+
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testBareGeometry() throws IOException {
+        GeoJsonReader reader = new GeoJsonReader(new ByteArrayInputStream(
+                "{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[10,0],[0,10]]]}".getBytes(StandardCharsets.UTF_8)));
+        GeoMultiPolygon polygon = reader.next();
+        assertEquals(3, polygon.getRings().get(0).vertices.size());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testNumbers() throws IOException {
+        Random random = new Random(1);
+        int count = 3000;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        StringBuilder json = new StringBuilder("{\"type\": \"Polygon\", \"coordinates\": [[");
+        for (int i = 0; i < count; i++) {
+            lats[i] = 180 * random.nextDouble() - 90;
+            lons[i] = 360 * random.nextDouble() - 180;
+            if (i > 0) json.append(", ");
+            if (i % 3 == 0) {
+                json.append('[').append(lons[i]).append(", ").append(lats[i]).append(']');
+            }
+            else {
+                String lon = String.format(Locale.ROOT, "%.7f", lons[i]);
+                String lat = String.format(Locale.ROOT, "%.7f", lats[i]);
+                lons[i] = Double.parseDouble(lon);
+                lats[i] = Double.parseDouble(lat);
+                json.append('[').append(lon).append(',').append(lat).append(']');
+            }
+        }
+        json.append("]]}");
+
+        GeoMultiPolygon polygon = new GeoJsonReader(new StringReader(json.toString())).next();
+        GeoPolygon ring = polygon.getRings().get(0);
+        assertEquals(count, ring.vertices.size());
+        for (int i = 0; i < count; i++) {
+            GeoPoint expected = new GeoPoint(lats[i], lons[i]);
+            assertEquals("latitude " + i, expected.lat, ring.vertices.get(i).lat, 0);
+            assertEquals("longitude " + i, expected.lon, ring.vertices.get(i).lon, 0);
+        }
+    }
+
+    static double readNumber(String text) throws IOException {
+        GeoJsonReader reader = new GeoJsonReader(new StringReader(text));
+        return reader.readNumber(reader.read());
+    }
+
+    @Test
+    public void testLongNumbers() throws IOException {
+        // Up to 19 significant digits are converted without a string, and must still round correctly
+        Random random = new Random(2);
+        for (int n = 0; n < 200000; n++) {
+            double value = (n % 2 == 0) ? 360 * random.nextDouble() - 180 : Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value)) continue;
+            String text;
+            switch (n % 4) {
+                case 0:
+                    text = Double.toString(value);
+                    break;
+                case 1:
+                    text = String.format(Locale.ROOT, "%.18e", value);
+                    break;
+                case 2:
+                    text = String.format(Locale.ROOT, "%." + (13 + random.nextInt(6)) + "f", value);
+                    break;
+                default:
+                    text = Long.toString(random.nextLong() >>> random.nextInt(12)) + "e" + (random.nextInt(80) - 40);
+            }
+            assertEquals(text, Double.doubleToLongBits(Double.parseDouble(text)),
+                    Double.doubleToLongBits(readNumber(text)));
+        }
+
+        // Exactly halfway between two doubles, which rounds to even
+        assertEquals(9007199254740992.0, readNumber("9007199254740993"), 0);
+        assertEquals(9007199254740996.0, readNumber("9007199254740995"), 0);
+        assertEquals(-122.30636512345678, readNumber("-122.30636512345678"), 0);
+        assertEquals(1e-300, readNumber("1e-300"), 0);
+        assertEquals(Double.MAX_VALUE, readNumber("1.7976931348623157e308"), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformed() throws IOException {
+        new GeoJsonReader(new StringReader("{\"type\": \"Polygon\", \"coordinates\": [[[0, 0], [1 1]]]}")).next();
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        new GeoJsonReader(new StringReader("{\"type\": \"Polygon\", \"coordinates\": [[[0, 0], [1, 1]")).next();
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.cadouthat.geojava;
+
+import com.github.cadouthat.geojava.GeoMetricsListener.IntersectionOutcome;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GeoMetricsRecorderTest {
+
+    static final GeoPolygon DIAMOND = new GeoPolygon(
+            new GeoPoint(10, 0),
+            new GeoPoint(0, 10),
+            new GeoPoint(-10, 0),
+            new GeoPoint(0, -10)
+    );
+
+    GeoMetricsRecorder recorder;
+
+    @Before
+    public void install() {
+        recorder = new GeoMetricsRecorder();
+        GeoMetrics.setListener(recorder);
+    }
+
+    @After
+    public void uninstall() {
+        GeoMetrics.setListener(null);
+    }
+
+    @Test
+    public void testPolygonContains() {
+        // The test arc runs south from the equator, through the southern vertex shared by two edges
+        assertTrue(DIAMOND.contains(new GeoPoint(0, 0)));
+        assertEquals(1, recorder.getContainmentTests());
+        assertEquals(4, recorder.getEdgesTested());
+        assertEquals(1, recorder.getIntersections());
+        assertEquals(1, recorder.getDuplicatesSuppressed());
+        assertEquals(0, recorder.getReferenceAChosen());
+        assertEquals(1, recorder.getReferenceBChosen());
+        assertEquals(1, recorder.getContainmentLatency().getTotalCount());
+        assertEquals(2, recorder.getIntersectionTests(IntersectionOutcome.FOUND));
+
+        DIAMOND.contains(new GeoPoint(50, 50));
+        assertEquals(2, recorder.getContainmentTests());
+        assertEquals(1, recorder.getBoundsRejections());
+        assertEquals(4, recorder.getEdgesTested());
+    }
+
+    @Test
+    public void testPreparedContains() {
+        PreparedGeoPolygon prepared = DIAMOND.prepare();
+        assertTrue(prepared.contains(new GeoPoint(0, 0)));
+        assertTrue(prepared.contains(new GeoPoint(5, 1)));
+        assertEquals(2, recorder.getContainmentTests());
+        assertEquals(8, recorder.getEdgesTested());
+        assertEquals(2, recorder.getIntersections());
+        assertEquals(1, recorder.getDuplicatesSuppressed());
+        assertEquals(1, recorder.getReferenceAChosen());
+        assertEquals(1, recorder.getReferenceBChosen());
+
+        prepared.contains(new GeoPoint(-50, 50));
+        assertEquals(1, recorder.getBoundsRejections());
+    }
+
+    @Test
+    public void testIntersectionOutcomes() {
+        GeoPoint point = new GeoPoint(1, 1);
+        GeoArc arc = new GeoArc(new GeoPoint(0, 0), new GeoPoint(2, 2));
+        new GeoArc(point, point).intersect(arc);
+        GeoArc equator = new GeoArc(new GeoPoint(0, 0), new GeoPoint(0, 2));
+        new GeoArc(new GeoPoint(0, -1), new GeoPoint(0, -2)).intersect(equator);
+        new GeoArc(new GeoPoint(2, 0), new GeoPoint(0, 2)).intersect(arc);
+        new GeoArc(new GeoPoint(10, 0), new GeoPoint(10, 2)).intersect(arc);
+
+        assertEquals(1, recorder.getIntersectionTests(IntersectionOutcome.DEGENERATE_ARC));
+        assertEquals(1, recorder.getIntersectionTests(IntersectionOutcome.COPLANAR));
+        assertEquals(1, recorder.getIntersectionTests(IntersectionOutcome.FOUND));
+        assertEquals(1, recorder.getIntersectionTests(IntersectionOutcome.NONE));
+        assertEquals(4, recorder.getIntersectionLatency().getTotalCount());
+
+        recorder.reset();
+        assertEquals(0, recorder.getIntersectionTests(IntersectionOutcome.FOUND));
+        assertEquals(0, recorder.getIntersectionLatency().getTotalCount());
+    }
+
+    @Test
+    public void testDisabled() {
+        GeoMetrics.setListener(null);
+        assertNull(GeoMetrics.getListener());
+        DIAMOND.contains(new GeoPoint(0, 0));
+        assertEquals(0, recorder.getContainmentTests());
+    }
+
+    @Test
+    public void testHistogram() {
+        GeoLatencyHistogram histogram = new GeoLatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(1000);
+        histogram.record(1023);
+        assertEquals(1, histogram.getCount(0));
+        assertEquals(1, histogram.getCount(1));
+        assertEquals(2, histogram.getCount(10));
+        assertEquals(1, histogram.getPercentile(0.5));
+        assertEquals(1023, histogram.getPercentile(0.99));
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeoMultiPolygonTest {
+
+    static GeoPolygon square(double minLat, double minLon, double maxLat, double maxLon) {
+        return new GeoPolygon(
+                new GeoPoint(minLat, minLon),
+                new GeoPoint(minLat, maxLon),
+                new GeoPoint(maxLat, maxLon),
+                new GeoPoint(maxLat, minLon)
+        );
+    }
+
+    @Test
+    public void testHole() {
+        GeoMultiPolygon polygon = new GeoMultiPolygon(Arrays.asList(square(0, 0, 10, 10), square(4, 4, 6, 6)));
+        assertTrue(polygon.contains(new GeoPoint(2, 2)));
+        assertTrue(polygon.contains(new GeoPoint(8, 5)));
+        assertFalse(polygon.contains(new GeoPoint(5, 5)));
+        assertFalse(polygon.contains(new GeoPoint(15, 5)));
+    }
+
+    @Test
+    public void testSeparateParts() {
+        GeoMultiPolygon polygon = new GeoMultiPolygon(Arrays.asList(square(0, 0, 10, 10), square(0, 20, 10, 30)));
+        assertTrue(polygon.contains(new GeoPoint(5, 5)));
+        assertTrue(polygon.contains(new GeoPoint(5, 25)));
+        assertFalse(polygon.contains(new GeoPoint(5, 15)));
+        assertEquals(2, polygon.getRings().size());
+    }
+
+    @Test
+    public void testClosedRing() {
+        List<GeoPoint> vertices = new ArrayList<>(Arrays.asList(
+                new GeoPoint(0, 0),
+                new GeoPoint(0, 10),
+                new GeoPoint(10, 10),
+                new GeoPoint(0, 0)
+        ));
+        assertEquals(3, GeoMultiPolygon.closedRing(vertices).vertices.size());
+    }
+}
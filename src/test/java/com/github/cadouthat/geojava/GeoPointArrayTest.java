@@ -0,0 +1,109 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeoPointArrayTest {
+
+    static final double DELTA = 0.0000001;
+
+    static void fillRandom(GeoPointArray array, double[] lats, double[] lons, Random random) {
+        for (int i = 0; i < array.size(); i++) {
+            lats[i] = 200 * random.nextDouble() - 100;
+            lons[i] = 400 * random.nextDouble() - 200;
+            array.set(i, lats[i], lons[i]);
+        }
+    }
+
+    @Test
+    public void testExactLayouts() {
+        Random random = new Random(1);
+        for (GeoPointArray array : new GeoPointArray[] {GeoPointArray.onHeap(1000), GeoPointArray.offHeap(1000)}) {
+            double[] lats = new double[array.size()];
+            double[] lons = new double[array.size()];
+            fillRandom(array, lats, lons, random);
+            for (int i = 0; i < array.size(); i++) {
+                GeoPoint expected = new GeoPoint(lats[i], lons[i]);
+                assertEquals(expected.getLatDegrees(), array.getLatDegrees(i), 0);
+                assertEquals(expected.getLonDegrees(), array.getLonDegrees(i), 0);
+                assertEquals(expected.getLatDegrees(), array.get(i).getLatDegrees(), 0);
+                assertEquals(expected.getLonDegrees(), array.get(i).getLonDegrees(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testPacked() {
+        Random random = new Random(2);
+        GeoPointArray array = GeoPointArray.packed(10000);
+        double[] lats = new double[array.size()];
+        double[] lons = new double[array.size()];
+        fillRandom(array, lats, lons, random);
+        for (int i = 0; i < array.size(); i++) {
+            GeoPoint expected = new GeoPoint(lats[i], lons[i]);
+            double error = new GeoArc(expected, array.get(i)).length();
+            assertTrue("packed error " + error, error <= GeoPointArray.PACKED_PRECISION_METRES);
+        }
+
+        // Extremes of the fixed point ranges
+        array.set(0, 90, 0);
+        array.set(1, -90, 0);
+        array.set(2, 0, 180);
+        array.set(3, 0, -179.9999999);
+        assertEquals(90, array.getLatDegrees(0), DELTA);
+        assertEquals(-90, array.getLatDegrees(1), DELTA);
+        assertEquals(180, array.getLonDegrees(2), DELTA);
+        assertEquals(-179.9999999, array.getLonDegrees(3), DELTA);
+    }
+
+    @Test
+    public void testDistances() {
+        Random random = new Random(3);
+        GeoPointArray array = GeoPointArray.offHeap(500);
+        double[] lats = new double[array.size()];
+        double[] lons = new double[array.size()];
+        fillRandom(array, lats, lons, random);
+
+        GeoPoint origin = new GeoPoint(-33.9, 151.2);
+        double[] expected = new double[array.size()];
+        double[] actual = new double[array.size()];
+        GeoDistances.distances(origin, lats, lons, expected);
+        GeoDistances.distances(origin, array, actual);
+        for (int i = 0; i < array.size(); i++) {
+            assertEquals(expected[i], actual[i], 0);
+        }
+    }
+
+    @Test
+    public void testContainsAll() {
+        Random random = new Random(4);
+        PreparedGeoPolygon prepared = PreparedGeoPolygonTest.SEATTLE.prepare();
+        GeoPointArray array = GeoPointArray.onHeap(1000);
+        for (int i = 0; i < array.size(); i++) {
+            array.set(i, 47.4 + 0.4 * random.nextDouble(), -122.5 + 0.3 * random.nextDouble());
+        }
+
+        boolean[] out = new boolean[array.size()];
+        BitSet bits = new BitSet();
+        prepared.containsAll(array, 0, array.size(), out);
+        prepared.containsAll(array, 0, array.size(), bits);
+        int inside = 0;
+        for (int i = 0; i < array.size(); i++) {
+            boolean expected = PreparedGeoPolygonTest.SEATTLE.contains(array.get(i));
+            assertEquals(expected, out[i]);
+            assertEquals(expected, bits.get(i));
+            if (expected) inside++;
+        }
+        assertTrue(inside > 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexRange() {
+        GeoPointArray.packed(3).get(3);
+    }
+}
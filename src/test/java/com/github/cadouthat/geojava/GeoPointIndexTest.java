@@ -0,0 +1,123 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeoPointIndexTest {
+
+    static List<GeoPoint> randomPoints(Random random, int count) {
+        List<GeoPoint> points = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Uniform over the sphere
+            double lat = Math.asin(2 * random.nextDouble() - 1) / Math.PI * 180;
+            points.add(new GeoPoint(lat, 360 * random.nextDouble() - 180));
+        }
+        return points;
+    }
+
+    /**
+     * Brute force ranking of every point by distance, with ties kept in their original order
+     */
+    static List<GeoPoint> byDistance(List<GeoPoint> points, GeoPoint origin) {
+        final double[] distances = new double[points.size()];
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            distances[i] = new GeoArc(origin, points.get(i)).length();
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(distances[a], distances[b]);
+            }
+        });
+        List<GeoPoint> sorted = new ArrayList<>();
+        for (int i : order) {
+            sorted.add(points.get(i));
+        }
+        return sorted;
+    }
+
+    static void assertSamePoints(List<GeoPoint> expected, List<GeoPoint> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue("result " + i + " should be " + expected.get(i) + " but was " + actual.get(i),
+                    expected.get(i) == actual.get(i));
+        }
+    }
+
+    @Test
+    public void testNearest() {
+        Random random = new Random(1);
+        List<GeoPoint> points = randomPoints(random, 5000);
+        // Duplicates, poles and points either side of the 180th meridian
+        points.add(new GeoPoint(10, 20));
+        points.add(new GeoPoint(10, 20));
+        points.add(new GeoPoint(90, 0));
+        points.add(new GeoPoint(-90, 0));
+        points.add(new GeoPoint(0, 179.9999));
+        points.add(new GeoPoint(0, -179.9999));
+        GeoPointIndex index = new GeoPointIndex(points);
+        assertEquals(points.size(), index.size());
+
+        List<GeoPoint> queries = randomPoints(random, 50);
+        queries.add(new GeoPoint(10, 20));
+        queries.add(new GeoPoint(90, 0));
+        queries.add(new GeoPoint(0, 180));
+        for (GeoPoint query : queries) {
+            List<GeoPoint> expected = byDistance(points, query);
+            for (int k : new int[] {0, 1, 2, 10, 100}) {
+                assertSamePoints(expected.subList(0, k), index.nearest(query, k));
+            }
+        }
+        assertEquals(points.size(), index.nearest(new GeoPoint(0, 0), points.size() + 10).size());
+    }
+
+    @Test
+    public void testWithinRadius() {
+        Random random = new Random(2);
+        List<GeoPoint> points = randomPoints(random, 5000);
+        GeoPointIndex index = new GeoPointIndex(points);
+
+        for (GeoPoint query : randomPoints(random, 50)) {
+            for (double radius : new double[] {0, 1000, 100000, 1000000, 30000000}) {
+                List<GeoPoint> expected = new ArrayList<>();
+                for (GeoPoint point : byDistance(points, query)) {
+                    if (new GeoArc(query, point).length() <= radius) expected.add(point);
+                }
+                assertSamePoints(expected, index.withinRadius(query, radius));
+            }
+        }
+
+        // A point exactly on the radius is included
+        GeoPoint target = points.get(0);
+        GeoPoint query = new GeoPoint(0, 0);
+        List<GeoPoint> within = index.withinRadius(query, new GeoArc(query, target).length());
+        assertTrue(within.contains(target));
+    }
+
+    @Test
+    public void testParallelBuild() {
+        Random random = new Random(3);
+        List<GeoPoint> points = randomPoints(random, 4 * GeoPointIndex.PARALLEL_THRESHOLD);
+        GeoPointIndex index = new GeoPointIndex(points);
+        for (GeoPoint query : randomPoints(random, 10)) {
+            assertSamePoints(byDistance(points, query).subList(0, 20), index.nearest(query, 20));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        GeoPointIndex index = new GeoPointIndex(new ArrayList<GeoPoint>());
+        assertEquals(0, index.nearest(new GeoPoint(0, 0), 5).size());
+        assertEquals(0, index.withinRadius(new GeoPoint(0, 0), 1000).size());
+    }
+}
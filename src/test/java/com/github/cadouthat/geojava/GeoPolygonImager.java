@@ -17,61 +17,30 @@ public class GeoPolygonImager {
     /**
      * Map lat/lon point to image coords
      */
-    static Point project(GeoPoint geoPoint, BufferedImage image,
-                         GeoPoint minBound, GeoPoint maxBound) {
-        double latSpan = maxBound.getLatDegrees() - minBound.getLatDegrees();
-        double lonSpan = maxBound.getLonDegrees() - minBound.getLonDegrees();
-
-        double normX = (geoPoint.getLonDegrees() - minBound.getLonDegrees()) / lonSpan;
-        int x = (int)Math.round(normX * image.getWidth());
-        if (x < 0) x = 0;
-        if (x >= image.getWidth()) x = image.getWidth() - 1;
-
-        double normY = (geoPoint.getLatDegrees() - minBound.getLatDegrees()) / latSpan;
-        int y = (int)Math.round((1 - normY) * image.getHeight());
-        if (y < 0) y = 0;
-        if (y >= image.getHeight()) y = image.getHeight() - 1;
-
-        return new Point(x, y);
+    static Point project(GeoPoint geoPoint, GeoPolygonRasterizer rasterizer) {
+        return new Point(rasterizer.projectX(geoPoint), rasterizer.projectY(geoPoint));
     }
 
     /**
      * Map image coords to lat/lon point
      */
-    static GeoPoint unProject(Point imagePoint, BufferedImage image,
-                              GeoPoint minBound, GeoPoint maxBound) {
-        double latSpan = maxBound.getLatDegrees() - minBound.getLatDegrees();
-        double lonSpan = maxBound.getLonDegrees() - minBound.getLonDegrees();
-
-        double normX = imagePoint.x / (double)image.getWidth();
-        double lon = normX * lonSpan + minBound.getLonDegrees();
-
-        double normY = imagePoint.y / (double)image.getHeight();
-        double lat = (1 - normY) * latSpan + minBound.getLatDegrees();
-
-        return new GeoPoint(lat, lon);
+    static GeoPoint unProject(Point imagePoint, GeoPolygonRasterizer rasterizer) {
+        return rasterizer.unProject(imagePoint.x, imagePoint.y);
     }
 
     /**
-     * Test polygon containment of each pixel point and color accordingly
+     * Rasterize polygon containment of each pixel point and color accordingly
      */
-    static void drawPixels(GeoPolygon polygon, BufferedImage image,
-                           GeoPoint minBound, GeoPoint maxBound) {
-        for (int x = 0; x < image.getWidth(); x++) {
-            for (int y = 0; y < image.getHeight(); y++) {
-                GeoPoint point = unProject(new Point(x, y), image, minBound, maxBound);
-                boolean contains = polygon.contains(point);
-
-                image.setRGB(x, y, contains ? RED_ARGB : WHITE_ARGB);
-            }
-        }
+    static void drawPixels(GeoPolygon polygon, BufferedImage image, GeoPolygonRasterizer rasterizer) {
+        int[] pixels = new int[image.getWidth() * image.getHeight()];
+        rasterizer.rasterize(polygon, pixels, RED_ARGB, WHITE_ARGB);
+        image.setRGB(0, 0, image.getWidth(), image.getHeight(), pixels, 0, image.getWidth());
     }
 
     /**
      * Draw the border of the polygon on the image
      */
-    static void drawPolygon(GeoPolygon polygon, BufferedImage image,
-                            GeoPoint minBound, GeoPoint maxBound) {
+    static void drawPolygon(GeoPolygon polygon, BufferedImage image, GeoPolygonRasterizer rasterizer) {
         Graphics2D g = image.createGraphics();
         g.setColor(Color.BLACK);
         g.setStroke(new BasicStroke(1));
@@ -82,8 +51,8 @@ public class GeoPolygonImager {
                     polygon.vertices.get(i - 1) :
                     polygon.vertices.get(polygon.vertices.size() - 1);
 
-            Point imagePoint = project(point, image, minBound, maxBound);
-            Point imagePrev = project(prev, image, minBound, maxBound);
+            Point imagePoint = project(point, rasterizer);
+            Point imagePrev = project(prev, rasterizer);
 
             g.drawLine(imagePoint.x, imagePoint.y, imagePrev.x, imagePrev.y);
         }
@@ -96,9 +65,10 @@ public class GeoPolygonImager {
                                     int width, int height,
                                     GeoPoint minBound, GeoPoint maxBound) {
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        GeoPolygonRasterizer rasterizer = new GeoPolygonRasterizer(width, height, minBound, maxBound);
 
-        drawPixels(polygon, image, minBound, maxBound);
-        drawPolygon(polygon, image, minBound, maxBound);
+        drawPixels(polygon, image, rasterizer);
+        drawPolygon(polygon, image, rasterizer);
 
         return image;
     }
@@ -0,0 +1,185 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeoPolygonIndexTest {
+
+    static List<GeoPolygon> randomPolygons(Random random, int count) {
+        List<GeoPolygon> polygons = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double lat = -80 + 160 * random.nextDouble();
+            double lon = -180 + 360 * random.nextDouble();
+            double radius = 0.5 + 5 * random.nextDouble();
+            polygons.add(PreparedGeoPolygonTest.randomPolygon(random, lat, lon, radius, 3 + random.nextInt(40)));
+        }
+        return polygons;
+    }
+
+    static void assertMatchesBruteForce(GeoPolygonIndex index, List<GeoPolygon> polygons, Random random) {
+        for (int i = 0; i < 2000; i++) {
+            GeoPoint point = new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble());
+            HashSet<GeoPolygon> expected = new HashSet<>();
+            for (GeoPolygon polygon : polygons) {
+                if (polygon.contains(point)) expected.add(polygon);
+            }
+            assertEquals("containing polygons of " + point, expected, new HashSet<>(index.findContaining(point)));
+        }
+    }
+
+    @Test
+    public void testFindContaining() {
+        Random random = new Random(11);
+        List<GeoPolygon> polygons = randomPolygons(random, 300);
+
+        // Polygons across the 180th meridian, around a pole, and with custom references
+        polygons.add(new GeoPolygon(
+                new GeoPoint(-10, 170),
+                new GeoPoint(-10, -170),
+                new GeoPoint(10, -170),
+                new GeoPoint(10, 170)
+        ));
+        polygons.add(new GeoPolygon(
+                new GeoPoint(60, 0),
+                new GeoPoint(60, 120),
+                new GeoPoint(60, -120)
+        ));
+        GeoPolygon custom = PreparedGeoPolygonTest.randomPolygon(random, 30, 30, 10, 10);
+        custom = custom.withExternalReferences(new GeoPoint(0, 90), new GeoPoint(0, -90));
+        polygons.add(custom);
+
+        GeoPolygonIndex index = new GeoPolygonIndex(polygons);
+        assertEquals(polygons.size(), index.size());
+        assertMatchesBruteForce(index, polygons, random);
+
+        // Every point between the cap and the equator is inside, since it is tested towards the North Pole
+        assertTrue(index.findContaining(new GeoPoint(10, 100)).contains(polygons.get(301)));
+    }
+
+    @Test
+    public void testBulkLoad() {
+        Random random = new Random(14);
+        List<GeoPolygon> polygons = randomPolygons(random, 200);
+        List<GeoPolygon> withDuplicates = new ArrayList<>(polygons);
+        withDuplicates.addAll(polygons.subList(0, 20));
+
+        GeoPolygonIndex bulk = new GeoPolygonIndex(withDuplicates);
+        GeoPolygonIndex incremental = new GeoPolygonIndex();
+        incremental.addAll(withDuplicates);
+        assertEquals(polygons.size(), bulk.size());
+        for (int cell = 0; cell < bulk.cells.length; cell++) {
+            if (incremental.cells[cell] == null) {
+                assertNull(bulk.cells[cell]);
+                continue;
+            }
+            HashSet<GeoPolygon> expected = new HashSet<>();
+            for (GeoPolygonIndex.Entry entry : incremental.cells[cell]) expected.add(entry.polygon);
+            HashSet<GeoPolygon> actual = new HashSet<>();
+            for (GeoPolygonIndex.Entry entry : bulk.cells[cell]) actual.add(entry.polygon);
+            assertEquals(expected, actual);
+            assertEquals(incremental.cells[cell].size(), bulk.cells[cell].size());
+        }
+        assertMatchesBruteForce(bulk, polygons, random);
+
+        // Bulk loaded indexes still allow changes
+        assertTrue(bulk.remove(polygons.get(0)));
+        bulk.add(polygons.get(0));
+        assertEquals(polygons.size(), bulk.size());
+        assertMatchesBruteForce(bulk, polygons, random);
+    }
+
+    @Test
+    public void testRemove() {
+        Random random = new Random(12);
+        List<GeoPolygon> polygons = randomPolygons(random, 200);
+        GeoPolygonIndex index = new GeoPolygonIndex(2.5);
+        index.addAll(polygons);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(index.remove(polygons.remove(random.nextInt(polygons.size()))));
+        }
+        assertFalse(index.remove(new GeoPolygon()));
+        assertEquals(polygons.size(), index.size());
+        assertMatchesBruteForce(index, polygons, random);
+    }
+
+    @Test
+    public void testFindIntersectingRegion() {
+        GeoPolygon triangle = new GeoPolygon(
+                new GeoPoint(0, -10),
+                new GeoPoint(0, 10),
+                new GeoPoint(10, 0)
+        );
+        GeoPolygon dateLine = new GeoPolygon(
+                new GeoPoint(-10, 170),
+                new GeoPoint(-10, -170),
+                new GeoPoint(10, -170),
+                new GeoPoint(10, 170)
+        );
+        GeoPolygonIndex index = new GeoPolygonIndex();
+        index.add(triangle);
+        index.add(dateLine);
+
+        List<GeoPolygon> found = index.findIntersectingRegion(GeoBounds.ofDegrees(5, 20, 5, 20));
+        assertEquals(1, found.size());
+        assertSame(triangle, found.get(0));
+
+        found = index.findIntersectingRegion(GeoBounds.ofDegrees(-5, 5, 175, -179));
+        assertEquals(1, found.size());
+        assertSame(dateLine, found.get(0));
+
+        assertEquals(2, index.findIntersectingRegion(GeoBounds.ofDegrees(-90, 90, -180, 180)).size());
+        assertTrue(index.findIntersectingRegion(GeoBounds.ofDegrees(30, 40, -20, 20)).isEmpty());
+    }
+
+    @Test
+    public void testFindIntersecting() {
+        Random random = new Random(24);
+        List<GeoPolygon> polygons = randomPolygons(random, 1000);
+        polygons.add(PreparedGeoPolygonTest.randomPolygon(random, 0, 0, 30, 1000));
+        GeoPolygonIndex index = new GeoPolygonIndex(polygons);
+
+        List<PreparedGeoPolygon> prepared = new ArrayList<>();
+        for (GeoPolygon polygon : polygons) {
+            prepared.add(polygon.prepare());
+        }
+        for (GeoPolygon query : randomPolygons(random, 100)) {
+            PreparedGeoPolygon preparedQuery = query.prepare();
+            HashSet<GeoPolygon> expected = new HashSet<>();
+            for (int i = 0; i < polygons.size(); i++) {
+                if (prepared.get(i).intersects(preparedQuery)) expected.add(polygons.get(i));
+            }
+            List<GeoPolygon> found = index.findIntersecting(query);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+
+    @Test
+    public void testFindWithinDistance() {
+        Random random = new Random(26);
+        List<GeoPolygon> polygons = randomPolygons(random, 1000);
+        List<PreparedGeoPolygon> prepared = new ArrayList<>();
+        for (GeoPolygon polygon : polygons) {
+            prepared.add(polygon.prepare());
+        }
+        GeoPolygonIndex index = new GeoPolygonIndex(polygons);
+        for (int i = 0; i < 1000; i++) {
+            GeoPoint point = new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble());
+            double metres = 500000 * random.nextDouble();
+            HashSet<GeoPolygon> expected = new HashSet<>();
+            for (int p = 0; p < polygons.size(); p++) {
+                if (prepared.get(p).containsBuffered(point, metres)) expected.add(polygons.get(p));
+            }
+            List<GeoPolygon> found = index.findWithinDistance(point, metres);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeoPolygonRasterizerTest {
+
+    static final GeoPoint WORLD_MIN = new GeoPoint(-90, -179.9);
+    static final GeoPoint WORLD_MAX = new GeoPoint(90, 180);
+
+    /**
+     * Rasterize to both outputs and compare every pixel against a containment test of its point
+     */
+    static void assertSameAsContains(GeoPolygon polygon, GeoPolygonRasterizer rasterizer) {
+        int width = rasterizer.getWidth();
+        int height = rasterizer.getHeight();
+        int[] pixels = new int[width * height];
+        long[] mask = new long[rasterizer.getMaskWordsPerRow() * height];
+        rasterizer.rasterize(polygon, pixels, 1, 0);
+        rasterizer.rasterize(polygon, mask);
+
+        int inside = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                GeoPoint point = rasterizer.unProject(x, y);
+                boolean expected = polygon.contains(point);
+                assertEquals("pixel " + x + ", " + y + " " + point, expected ? 1 : 0, pixels[y * width + x]);
+                assertEquals("pixel " + x + ", " + y + " " + point, expected, rasterizer.isSet(mask, x, y));
+                if (expected) inside++;
+            }
+        }
+        assertTrue(inside > 0);
+    }
+
+    @Test
+    public void testTriangle() {
+        GeoPolygon triangle = new GeoPolygon(
+                new GeoPoint(30, 0),
+                new GeoPoint(0, 30),
+                new GeoPoint(0, -30)
+        );
+        assertSameAsContains(triangle, new GeoPolygonRasterizer(512, 255, WORLD_MIN, WORLD_MAX));
+    }
+
+    @Test
+    public void testSeattle() {
+        assertSameAsContains(PreparedGeoPolygonTest.SEATTLE,
+                new GeoPolygonRasterizer(300, 200, new GeoPoint(47, -123), new GeoPoint(48, -121)));
+    }
+
+    @Test
+    public void testSouthernHemisphere() {
+        GeoPolygon polygon = new GeoPolygon(
+                new GeoPoint(10, -20),
+                new GeoPoint(-40, -25),
+                new GeoPoint(-35, 30),
+                new GeoPoint(5, 15)
+        );
+        assertSameAsContains(polygon, new GeoPolygonRasterizer(400, 200, WORLD_MIN, WORLD_MAX));
+    }
+
+    @Test
+    public void testAntimeridian() {
+        GeoPolygon polygon = new GeoPolygon(
+                new GeoPoint(10, 170),
+                new GeoPoint(10, -170),
+                new GeoPoint(-10, -170),
+                new GeoPoint(-10, 170)
+        );
+        assertSameAsContains(polygon, new GeoPolygonRasterizer(720, 361, WORLD_MIN, WORLD_MAX));
+    }
+
+    @Test
+    public void testAroundPole() {
+        List<GeoPoint> vertices = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            vertices.add(new GeoPoint(60, i * 30));
+        }
+        assertSameAsContains(new GeoPolygon(vertices), new GeoPolygonRasterizer(360, 180, WORLD_MIN, WORLD_MAX));
+    }
+
+    @Test
+    public void testLargeRandomPolygon() {
+        // Star shape with enough vertices for an edge index
+        Random random = new Random(5);
+        List<GeoPoint> vertices = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            double angle = 2 * Math.PI * i / 200;
+            double radius = 2 + 6 * random.nextDouble();
+            vertices.add(new GeoPoint(radius * Math.sin(angle) - 20, radius * Math.cos(angle) + 45));
+        }
+        assertSameAsContains(new GeoPolygon(vertices),
+                new GeoPolygonRasterizer(300, 300, new GeoPoint(-30, 35), new GeoPoint(-10, 55)));
+    }
+
+    @Test
+    public void testCustomReferences() {
+        GeoPolygon polygon = new GeoPolygon(
+                new GeoPoint(30, -30),
+                new GeoPoint(30, 30),
+                new GeoPoint(0, 30),
+                new GeoPoint(0, -30)
+        );
+        polygon = polygon.withExternalReferences(new GeoPoint(60, 100), new GeoPoint(-60, -100));
+        assertSameAsContains(polygon, new GeoPolygonRasterizer(128, 63, WORLD_MIN, WORLD_MAX));
+    }
+
+    @Test
+    public void testReuseClearsMask() {
+        GeoPolygonRasterizer rasterizer = new GeoPolygonRasterizer(100, 50, WORLD_MIN, WORLD_MAX);
+        long[] mask = new long[rasterizer.getMaskWordsPerRow() * rasterizer.getHeight()];
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] = -1;
+        }
+        GeoPolygon polygon = new GeoPolygon(
+                new GeoPoint(10, 10),
+                new GeoPoint(10, 20),
+                new GeoPoint(0, 20)
+        );
+        rasterizer.rasterize(polygon, mask);
+        for (int y = 0; y < rasterizer.getHeight(); y++) {
+            for (int x = 0; x < rasterizer.getWidth(); x++) {
+                assertEquals(polygon.contains(rasterizer.unProject(x, y)), rasterizer.isSet(mask, x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testProject() {
+        GeoPolygonRasterizer rasterizer = new GeoPolygonRasterizer(360, 180, WORLD_MIN, WORLD_MAX);
+        for (int x = 0; x < 360; x += 17) {
+            for (int y = 1; y < 180; y += 13) {
+                GeoPoint point = rasterizer.unProject(x, y);
+                assertEquals(x, rasterizer.projectX(point));
+                assertEquals(y, rasterizer.projectY(point));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSmallBuffer() {
+        GeoPolygonRasterizer rasterizer = new GeoPolygonRasterizer(10, 10, WORLD_MIN, WORLD_MAX);
+        rasterizer.rasterize(PreparedGeoPolygonTest.SEATTLE, new int[99], 1, 0);
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeoPolygonStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static List<GeoPolygon> samplePolygons(Random random) {
+        List<GeoPolygon> polygons = new ArrayList<>();
+        polygons.add(PreparedGeoPolygonTest.SEATTLE);
+        for (int i = 0; i < 20; i++) {
+            polygons.add(PreparedGeoPolygonTest.randomPolygon(random, 40 * random.nextDouble() - 20,
+                    360 * random.nextDouble() - 180, 10 * random.nextDouble() + 1, 10 + random.nextInt(100)));
+        }
+        GeoPolygon custom = PreparedGeoPolygonTest.randomPolygon(random, 60, 20, 10, 30);
+        custom = custom.withExternalReferences(new GeoPoint(0, 90), new GeoPoint(0, -90));
+        polygons.add(custom);
+        polygons.add(new GeoPolygon(new GeoPoint(0, 0), new GeoPoint(1, 1)));
+        return polygons;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(1);
+        List<GeoPolygon> polygons = samplePolygons(random);
+        Path file = folder.newFile("polygons.bin").toPath();
+        GeoPolygonStore.write(polygons, file);
+
+        GeoPolygonStore store = GeoPolygonStore.open(file);
+        assertEquals(polygons.size(), store.size());
+        for (int i = 0; i < polygons.size(); i++) {
+            GeoBounds expected = polygons.get(i).getBounds();
+            GeoBounds actual = store.getBounds(i);
+            assertEquals(expected.minLat, actual.minLat, 0);
+            assertEquals(expected.maxLat, actual.maxLat, 0);
+            assertEquals(expected.west, actual.west, 0);
+            assertEquals(expected.lonSpan, actual.lonSpan, 0);
+            assertEquals(polygons.get(i).vertices.size(), store.getVertexCount(i));
+            assertEquals(polygons.get(i).vertices.size() >= PreparedGeoPolygon.EDGE_INDEX_MIN_VERTICES &&
+                    polygons.get(i).prepare().hasEdgeIndex(), store.get(i).hasEdgeIndex());
+        }
+
+        for (int n = 0; n < 20000; n++) {
+            GeoPoint point = (n % 2 == 0) ?
+                    new GeoPoint(60 * random.nextDouble() - 30, 360 * random.nextDouble() - 180) :
+                    new GeoPoint(47.4 + 0.4 * random.nextDouble(), -122.5 + 0.3 * random.nextDouble());
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < polygons.size(); i++) {
+                boolean inside = polygons.get(i).contains(point);
+                assertEquals("containment mismatch at " + point, inside, store.contains(i, point));
+                if (inside) expected.add(i);
+            }
+            int[] found = store.findContaining(point);
+            assertEquals(expected.size(), found.length);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals((int)expected.get(i), found[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testCrossingCountMode() throws IOException {
+        Path file = folder.newFile("seattle.bin").toPath();
+        List<GeoPolygon> polygons = new ArrayList<>();
+        polygons.add(PreparedGeoPolygonTest.SEATTLE);
+        GeoPolygonStore.write(polygons, file);
+
+        GeoPolygonStore store = GeoPolygonStore.open(file, ContainmentMode.CROSSING_COUNT);
+        assertEquals(ContainmentMode.CROSSING_COUNT, store.get(0).getContainmentMode());
+        assertTrue(store.contains(0, new GeoPoint(47.613406, -122.306365)));
+        assertFalse(store.contains(0, new GeoPoint(47.6, -122.2)));
+        assertArrayEquals(new int[] {0}, store.findContaining(new GeoPoint(47.613406, -122.306365)));
+    }
+
+    @Test
+    public void testStoredEdgeIndex() throws IOException {
+        Random random = new Random(4);
+        List<GeoPolygon> polygons = new ArrayList<>();
+        polygons.add(GeoHullPolygonTest.coastline(-10, 179.5, 2000, random));
+        polygons.add(GeoHullPolygonTest.coastline(60, -150, 5000, random));
+        Path file = folder.newFile("indexed.bin").toPath();
+        GeoPolygonStore.write(polygons, file);
+
+        for (ContainmentMode mode : ContainmentMode.values()) {
+            GeoPolygonStore store = GeoPolygonStore.open(file, mode);
+            for (int i = 0; i < polygons.size(); i++) {
+                // The loaded index is the one built when writing, the same as preparing again would build
+                PreparedGeoPolygon expected = new PreparedGeoPolygon(polygons.get(i), mode);
+                GeoEdgeIndex index = store.get(i).edgeIndex;
+                assertEquals(expected.edgeIndex.bandCount, index.bandCount);
+                assertArrayEquals(expected.edgeIndex.bandStart, index.bandStart);
+                assertArrayEquals(expected.edgeIndex.bandEdges, index.bandEdges);
+                assertArrayEquals(expected.edgeIndex.edgeFirstBand, index.edgeFirstBand);
+                assertArrayEquals(expected.edgeIndex.edgeLastBand, index.edgeLastBand);
+
+                GeoBounds bounds = polygons.get(i).getBounds();
+                for (int n = 0; n < 5000; n++) {
+                    GeoPoint point = new GeoPoint(
+                            Math.toDegrees(bounds.minLat + (bounds.maxLat - bounds.minLat) * random.nextDouble()),
+                            Math.toDegrees(bounds.west + bounds.lonSpan * random.nextDouble()));
+                    assertEquals(point.toString(), expected.contains(point), store.contains(i, point));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPolygonBands() throws IOException {
+        Random random = new Random(5);
+        List<GeoPolygon> polygons = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            polygons.add(PreparedGeoPolygonTest.randomPolygon(random, 120 * random.nextDouble() - 60,
+                    360 * random.nextDouble() - 180, 5 * random.nextDouble() + 0.5, 3 + random.nextInt(50)));
+        }
+        polygons.add(new GeoPolygon(new GeoPoint(60, 0), new GeoPoint(60, 120), new GeoPoint(60, -120)));
+        Path file = folder.newFile("bands.bin").toPath();
+        GeoPolygonStore.write(polygons, file);
+
+        GeoPolygonStore store = GeoPolygonStore.open(file);
+        assertEquals(100, store.bandCount);
+        for (int n = 0; n < 5000; n++) {
+            GeoPoint point = new GeoPoint(180 * random.nextDouble() - 90, 360 * random.nextDouble() - 180);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < polygons.size(); i++) {
+                if (polygons.get(i).contains(point)) expected.add(i);
+            }
+            int[] found = store.findContaining(point);
+            assertEquals(point.toString(), expected.size(), found.length);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals((int)expected.get(i), found[i]);
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAStore() throws IOException {
+        Path file = folder.newFile("other.bin").toPath();
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        GeoPolygonStore.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        Path file = folder.newFile("truncated.bin").toPath();
+        List<GeoPolygon> polygons = new ArrayList<>();
+        polygons.add(PreparedGeoPolygonTest.SEATTLE);
+        GeoPolygonStore.write(polygons, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        GeoPolygonStore.open(file);
+    }
+}
@@ -2,7 +2,9 @@ package com.github.cadouthat.geojava;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class GeoPolygonTest {
@@ -126,4 +128,114 @@ public class GeoPolygonTest {
 
         assertInnerOuter(seattle, inner, outer);
     }
+
+    @Test
+    public void testAroundNorthPole() {
+        GeoPolygon cap = new GeoPolygon(
+                new GeoPoint(60, 0),
+                new GeoPoint(60, 60),
+                new GeoPoint(60, 120),
+                new GeoPoint(60, 180),
+                new GeoPoint(60, -120),
+                new GeoPoint(60, -60)
+        );
+
+        // Points nearer the North Pole are tested with an arc towards it, which only crosses the perimeter
+        // when starting south of it
+        GeoPoint[] inner = new GeoPoint[]{
+                new GeoPoint(30, 0),
+                new GeoPoint(1, 90),
+                new GeoPoint(59, -150)
+        };
+        GeoPoint[] outer = new GeoPoint[]{
+                new GeoPoint(70, 0),
+                new GeoPoint(89, 90),
+                new GeoPoint(-30, 0),
+                new GeoPoint(-70, 100)
+        };
+
+        assertInnerOuter(cap, inner, outer);
+    }
+
+    @Test
+    public void testBoundsRejection() {
+        GeoPolygon quad = new GeoPolygon(
+                new GeoPoint(0, -10),
+                new GeoPoint(0, 10),
+                new GeoPoint(10, 10),
+                new GeoPoint(10, -10)
+        );
+        GeoBounds bounds = quad.getBounds();
+        assertTrue(bounds.contains(new GeoPoint(5, 0)));
+        assertFalse(bounds.contains(new GeoPoint(5, 20)));
+        assertFalse(quad.contains(new GeoPoint(5, 20)));
+        assertFalse(quad.contains(new GeoPoint(-40, 0)));
+    }
+
+    @Test
+    public void testWithExternalReferences() {
+        GeoPolygon band = new GeoPolygon(
+                new GeoPoint(10, -170),
+                new GeoPoint(10, -50),
+                new GeoPoint(10, 70),
+                new GeoPoint(-10, 70),
+                new GeoPoint(-10, -50),
+                new GeoPoint(-10, -170)
+        );
+        GeoPoint point = new GeoPoint(0, 0);
+        assertTrue(band.contains(point));
+
+        // References inside the band change the result for the copy but not the original
+        GeoPolygon copy = band.withExternalReferences(new GeoPoint(0, 100), new GeoPoint(0, -100));
+        assertSame(band.vertices, copy.vertices);
+        assertFalse(copy.contains(point));
+        assertTrue(band.contains(point));
+    }
+
+    static GeoPolygon rectangle(double south, double north, double west, double east) {
+        return new GeoPolygon(
+                new GeoPoint(north, west),
+                new GeoPoint(north, east),
+                new GeoPoint(south, east),
+                new GeoPoint(south, west)
+        );
+    }
+
+    @Test
+    public void testPolygonRelations() {
+        GeoPolygon outer = rectangle(-20, 20, -20, 20);
+        GeoPolygon inner = rectangle(-5, 5, -5, 5);
+        GeoPolygon overlapping = rectangle(10, 30, 10, 30);
+        GeoPolygon distant = rectangle(40, 50, 40, 50);
+        GeoPolygon across = rectangle(-2, 2, -30, 30);
+
+        assertTrue(outer.intersects(inner));
+        assertTrue(inner.intersects(outer));
+        assertTrue(outer.contains(inner));
+        assertFalse(inner.contains(outer));
+
+        assertTrue(outer.intersects(overlapping));
+        assertFalse(outer.contains(overlapping));
+        assertFalse(overlapping.contains(outer));
+
+        assertTrue(outer.isDisjoint(distant));
+        assertFalse(outer.contains(distant));
+
+        // Perimeters crossing without any vertex of one inside the other
+        assertTrue(inner.intersects(across));
+        assertFalse(outer.contains(across));
+        assertFalse(across.contains(inner));
+
+        // Across the 180th meridian
+        GeoPolygon east = rectangle(-5, 5, 170, 185);
+        GeoPolygon west = rectangle(-2, 2, -178, -170);
+        assertTrue(east.intersects(west));
+        assertFalse(east.contains(west));
+        assertTrue(rectangle(-10, 10, 160, 200).contains(west));
+
+        GeoPolygon line = new GeoPolygon(new GeoPoint(0, 0), new GeoPoint(1, 1));
+        assertFalse(outer.intersects(line));
+        assertFalse(outer.contains(line));
+        assertEquals(outer.intersects(overlapping), overlapping.intersects(outer));
+    }
 }
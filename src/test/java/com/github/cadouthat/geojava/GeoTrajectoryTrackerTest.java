@@ -0,0 +1,146 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class GeoTrajectoryTrackerTest {
+
+    static class RecordingListener implements GeoTrajectoryTracker.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void entered(GeoTrajectoryTracker.Trajectory trajectory, int polygon, GeoPoint point) {
+            events.add("enter " + polygon);
+        }
+
+        @Override
+        public void exited(GeoTrajectoryTracker.Trajectory trajectory, int polygon, GeoPoint point) {
+            events.add("exit " + polygon);
+        }
+    }
+
+    static List<GeoPolygon> fences(Random random) {
+        List<GeoPolygon> polygons = GeoPolygonIndexTest.randomPolygons(random, 150);
+
+        // Large polygons with edge indexes, one across the 180th meridian
+        polygons.add(PreparedGeoPolygonTest.randomPolygon(random, 10, 20, 25, 500));
+        polygons.add(PreparedGeoPolygonTest.randomPolygon(random, -20, 175, 15, 200));
+
+        // A ring around the globe which separates the poles, and a polygon with custom references
+        List<GeoPoint> ring = new ArrayList<>();
+        for (int lon = -180; lon < 180; lon += 30) {
+            ring.add(new GeoPoint(10, lon));
+        }
+        polygons.add(new GeoPolygon(ring));
+        GeoPolygon custom = PreparedGeoPolygonTest.randomPolygon(random, 30, 30, 10, 40);
+        polygons.add(custom.withExternalReferences(new GeoPoint(0, 90), new GeoPoint(0, -90)));
+
+        // The same polygon twice
+        polygons.add(polygons.get(0));
+        return polygons;
+    }
+
+    /**
+     * Follow a random walk, checking the state of every polygon against a containment test at each step
+     */
+    static void assertWalkMatches(GeoTrajectoryTracker tracker, Random random, int steps, double stepDegrees) {
+        PreparedGeoPolygon[] expected = new PreparedGeoPolygon[tracker.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = new PreparedGeoPolygon(tracker.getPolygon(i), ContainmentMode.CROSSING_COUNT);
+        }
+
+        GeoTrajectoryTracker.Trajectory trajectory = tracker.newTrajectory();
+        double lat = -60 + 120 * random.nextDouble();
+        double lon = -180 + 360 * random.nextDouble();
+        for (int step = 0; step < steps; step++) {
+            lat = Math.max(-85, Math.min(85, lat + stepDegrees * random.nextGaussian()));
+            lon += stepDegrees * random.nextGaussian();
+            GeoPoint point = new GeoPoint(lat, lon);
+            trajectory.update(point, null);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals("polygon " + i + " at " + point, expected[i].contains(point), trajectory.isInside(i));
+            }
+        }
+    }
+
+    @Test
+    public void testRandomWalk() {
+        Random random = new Random(21);
+        GeoTrajectoryTracker tracker = new GeoTrajectoryTracker(fences(random));
+        assertWalkMatches(tracker, random, 3000, 1);
+    }
+
+    @Test
+    public void testLongSteps() {
+        Random random = new Random(22);
+        GeoTrajectoryTracker tracker = new GeoTrajectoryTracker(fences(random));
+        assertWalkMatches(tracker, random, 500, 40);
+    }
+
+    @Test
+    public void testEvents() {
+        GeoPolygon square = new GeoPolygon(
+                new GeoPoint(10, -10),
+                new GeoPoint(10, 10),
+                new GeoPoint(-10, 10),
+                new GeoPoint(-10, -10)
+        );
+        GeoPolygon east = new GeoPolygon(
+                new GeoPoint(10, 20),
+                new GeoPoint(10, 40),
+                new GeoPoint(-10, 40),
+                new GeoPoint(-10, 20)
+        );
+        GeoTrajectoryTracker tracker = new GeoTrajectoryTracker(Arrays.asList(square, east));
+        GeoTrajectoryTracker.Trajectory trajectory = tracker.newTrajectory();
+        RecordingListener listener = new RecordingListener();
+
+        trajectory.update(new GeoPoint(5, 0), listener);
+        trajectory.update(new GeoPoint(5, 5), listener);
+        trajectory.update(new GeoPoint(5, 15), listener);
+        trajectory.update(new GeoPoint(5, 25), listener);
+
+        // Straight through one polygon and into the other in a single step
+        trajectory.update(new GeoPoint(0, -5), listener);
+
+        assertEquals(Arrays.asList("enter 0", "exit 0", "enter 1"), listener.events.subList(0, 3));
+        assertEquals(new HashSet<>(Arrays.asList("exit 1", "enter 0")), new HashSet<>(listener.events.subList(3, 5)));
+        assertEquals(5, listener.events.size());
+        assertArrayEquals(new int[] {0}, trajectory.getInside());
+        assertEquals(0, trajectory.getPosition().getLatDegrees(), 1e-9);
+    }
+
+    @Test
+    public void testConcurrentTrajectories() throws Exception {
+        final GeoTrajectoryTracker tracker = new GeoTrajectoryTracker(fences(new Random(23)));
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long seed = 30 + t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        assertWalkMatches(tracker, new Random(seed), 500, 1);
+                    }
+                    catch (Throwable e) {
+                        failure.set(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,433 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PreparedGeoPolygonTest {
+
+    static final GeoPolygon SEATTLE = new GeoPolygon(
+            new GeoPoint(47.736389, -122.377089),
+            new GeoPoint(47.735466, -122.285765),
+            new GeoPoint(47.682331, -122.245253),
+            new GeoPoint(47.647186, -122.274779),
+            new GeoPoint(47.496164, -122.244567),
+            new GeoPoint(47.525847, -122.304991),
+            new GeoPoint(47.494772, -122.372969),
+            new GeoPoint(47.577752, -122.423781),
+            new GeoPoint(47.599055, -122.341384),
+            new GeoPoint(47.661987, -122.437514)
+    );
+
+    /**
+     * Random star-shaped polygon around the given center
+     */
+    static GeoPolygon randomPolygon(Random random, double centerLat, double centerLon,
+                                    double radiusDegrees, int vertexCount) {
+        List<GeoPoint> vertices = new ArrayList<>();
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            double radius = radiusDegrees * (0.3 + 0.7 * random.nextDouble());
+            vertices.add(new GeoPoint(centerLat + radius * Math.sin(angle), centerLon + radius * Math.cos(angle)));
+        }
+        return new GeoPolygon(vertices);
+    }
+
+    /**
+     * Compare containment against the unprepared polygon on a grid of points spanning the given region
+     */
+    static void assertSameAsPolygon(GeoPolygon polygon, PreparedGeoPolygon prepared,
+                                    double minLat, double minLon, double maxLat, double maxLon, int steps) {
+        for (int i = 0; i <= steps; i++) {
+            for (int j = 0; j <= steps; j++) {
+                GeoPoint point = new GeoPoint(
+                        minLat + (maxLat - minLat) * i / steps,
+                        minLon + (maxLon - minLon) * j / steps);
+                assertEquals("containment mismatch at " + point, polygon.contains(point), prepared.contains(point));
+            }
+        }
+    }
+
+    @Test
+    public void testIncompleteContain() {
+        PreparedGeoPolygon twoPoints = new GeoPolygon(
+                new GeoPoint(10, -10),
+                new GeoPoint(10, 10)
+        ).prepare();
+        assertFalse(twoPoints.contains(new GeoPoint(90, 0)));
+        assertFalse(twoPoints.contains(new GeoPoint(0, 0)));
+    }
+
+    @Test
+    public void testMatchesTriangle() {
+        GeoPolygon triangle = new GeoPolygon(
+                new GeoPoint(0, -10),
+                new GeoPoint(0, 10),
+                new GeoPoint(10, 0)
+        );
+        assertSameAsPolygon(triangle, triangle.prepare(), -20, -20, 20, 20, 40);
+    }
+
+    @Test
+    public void testMatchesSeattle() {
+        assertSameAsPolygon(SEATTLE, SEATTLE.prepare(), 47.4, -122.5, 47.8, -122.2, 60);
+    }
+
+    @Test
+    public void testMatchesAcross180thMeridian() {
+        GeoPolygon polygon = new GeoPolygon(
+                new GeoPoint(-10, 170),
+                new GeoPoint(-10, -170),
+                new GeoPoint(10, -170),
+                new GeoPoint(10, 170)
+        );
+        assertSameAsPolygon(polygon, polygon.prepare(), -20, 160, 20, 200, 40);
+    }
+
+    @Test
+    public void testMatchesRandom() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5; i++) {
+            GeoPolygon polygon = randomPolygon(random, -40 + 20 * i, -150 + 60 * i, 5, 50);
+            assertSameAsPolygon(polygon, polygon.prepare(),
+                    -46 + 20 * i, -156 + 60 * i, -34 + 20 * i, -144 + 60 * i, 40);
+        }
+    }
+
+    @Test
+    public void testMatchesCustomReferences() {
+        GeoPolygon polygon = randomPolygon(new Random(7), 60, 20, 10, 30);
+        polygon = polygon.withExternalReferences(new GeoPoint(0, 90), new GeoPoint(0, -90));
+        assertSameAsPolygon(polygon, polygon.prepare(), 45, 5, 75, 35, 40);
+    }
+
+    /**
+     * Compare containment with and without an edge index on random points within the polygon's bounds
+     */
+    static void assertIndexMatches(GeoPolygon polygon, Random random, int samples) {
+        PreparedGeoPolygon indexed = new PreparedGeoPolygon(polygon, true);
+        PreparedGeoPolygon unindexed = new PreparedGeoPolygon(polygon, false);
+        assertTrue(indexed.hasEdgeIndex());
+        assertFalse(unindexed.hasEdgeIndex());
+
+        GeoBounds bounds = polygon.getBounds();
+        double lonSpan = bounds.lonSpan / Math.PI * 180;
+        int inside = 0;
+        for (int i = 0; i < samples; i++) {
+            double lat = bounds.getMinLatDegrees() +
+                    (bounds.getMaxLatDegrees() - bounds.getMinLatDegrees()) * random.nextDouble();
+            double lon = bounds.getWestDegrees() + lonSpan * random.nextDouble();
+            GeoPoint point = new GeoPoint(lat, lon);
+            boolean expected = unindexed.contains(point);
+            assertEquals("containment mismatch at " + point, expected, indexed.contains(point));
+            if (expected) inside++;
+        }
+        assertTrue("should sample some inner points", inside > 0);
+    }
+
+    @Test
+    public void testEdgeIndex() {
+        Random random = new Random(3);
+        assertIndexMatches(randomPolygon(random, 10, 20, 8, 2000), random, 2000);
+        assertIndexMatches(randomPolygon(random, -50, 179, 3, 500), random, 2000);
+        assertIndexMatches(SEATTLE, random, 500);
+    }
+
+    @Test
+    public void testEdgeIndexAroundPole() {
+        Random random = new Random(4);
+        List<GeoPoint> vertices = new ArrayList<>();
+        for (int i = 0; i < 360; i++) {
+            vertices.add(new GeoPoint(70 + 10 * random.nextDouble(), i - 180));
+        }
+        assertIndexMatches(new GeoPolygon(vertices), random, 2000);
+
+        // Edges passing over the pole
+        assertIndexMatches(new GeoPolygon(
+                new GeoPoint(80, 0),
+                new GeoPoint(80, 180),
+                new GeoPoint(60, 90)
+        ), random, 2000);
+    }
+
+    /**
+     * Compare crossing-count containment against the unprepared polygon on random points in the given region
+     */
+    static void assertCrossingCountMatches(GeoPolygon polygon, Random random, int samples,
+                                           double minLat, double minLon, double maxLat, double maxLon) {
+        PreparedGeoPolygon crossings = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT);
+        assertEquals(ContainmentMode.CROSSING_COUNT, crossings.getContainmentMode());
+        for (int i = 0; i < samples; i++) {
+            GeoPoint point = new GeoPoint(
+                    minLat + (maxLat - minLat) * random.nextDouble(),
+                    minLon + (maxLon - minLon) * random.nextDouble());
+            assertEquals("containment mismatch at " + point, polygon.contains(point), crossings.contains(point));
+        }
+    }
+
+    @Test
+    public void testCrossingCount() {
+        Random random = new Random(8);
+        assertCrossingCountMatches(SEATTLE, random, 2000, 47.4, -122.5, 47.8, -122.2);
+        for (int i = 0; i < 5; i++) {
+            GeoPolygon polygon = randomPolygon(random, -40 + 20 * i, -150 + 60 * i, 5, 20 + 30 * i);
+            assertCrossingCountMatches(polygon, random, 2000,
+                    -46 + 20 * i, -156 + 60 * i, -34 + 20 * i, -144 + 60 * i);
+        }
+        assertCrossingCountMatches(randomPolygon(random, 0, 180, 4, 100), random, 2000, -6, 174, 6, 186);
+    }
+
+    @Test
+    public void testCrossingCountAroundPole() {
+        Random random = new Random(9);
+        List<GeoPoint> vertices = new ArrayList<>();
+        for (int i = 0; i < 360; i++) {
+            vertices.add(new GeoPoint(70 + 10 * random.nextDouble(), i - 180));
+        }
+        assertCrossingCountMatches(new GeoPolygon(vertices), random, 2000, 60, -180, 90, 180);
+    }
+
+    @Test
+    public void testCrossingCountCustomReferences() {
+        GeoPolygon polygon = randomPolygon(new Random(10), 60, 20, 10, 30);
+        polygon = polygon.withExternalReferences(new GeoPoint(0, 90), new GeoPoint(0, -90));
+        assertCrossingCountMatches(polygon, new Random(11), 2000, 45, 5, 75, 35);
+    }
+
+    @Test
+    public void testCrossingCountVertexOnArc() {
+        // Test arcs along the prime meridian pass exactly through vertices
+        PreparedGeoPolygon diamond = new PreparedGeoPolygon(new GeoPolygon(
+                new GeoPoint(0, -10),
+                new GeoPoint(10, 0),
+                new GeoPoint(0, 10),
+                new GeoPoint(-10, 0)
+        ), ContainmentMode.CROSSING_COUNT);
+        assertTrue(diamond.contains(new GeoPoint(5, 0)));
+        assertTrue(diamond.contains(new GeoPoint(-5, 0)));
+        assertFalse(diamond.contains(new GeoPoint(15, 0)));
+        assertFalse(diamond.contains(new GeoPoint(-15, 0)));
+
+        // The test arc only touches a vertex whose edges both lie to the east
+        PreparedGeoPolygon wedge = new PreparedGeoPolygon(new GeoPolygon(
+                new GeoPoint(0, 0),
+                new GeoPoint(10, 10),
+                new GeoPoint(-10, 10)
+        ), ContainmentMode.CROSSING_COUNT);
+        assertFalse(wedge.contains(new GeoPoint(-5, 0)));
+        assertFalse(wedge.contains(new GeoPoint(5, 0)));
+        assertTrue(wedge.contains(new GeoPoint(1, 5)));
+        assertTrue(wedge.contains(new GeoPoint(-1, 5)));
+
+        // The test arc runs along an edge
+        PreparedGeoPolygon square = new PreparedGeoPolygon(new GeoPolygon(
+                new GeoPoint(0, 0),
+                new GeoPoint(0, 10),
+                new GeoPoint(10, 10),
+                new GeoPoint(10, 0)
+        ), ContainmentMode.CROSSING_COUNT);
+        assertFalse(square.contains(new GeoPoint(-5, 0)));
+        assertFalse(square.contains(new GeoPoint(-5, 10)));
+        assertTrue(square.contains(new GeoPoint(5, 5)));
+    }
+
+    @Test
+    public void testCrossingCountEdgeIndex() {
+        Random random = new Random(12);
+        GeoPolygon polygon = randomPolygon(random, 10, 20, 8, 2000);
+        PreparedGeoPolygon indexed = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT, true);
+        PreparedGeoPolygon unindexed = new PreparedGeoPolygon(polygon, ContainmentMode.CROSSING_COUNT, false);
+        assertTrue(indexed.hasEdgeIndex());
+        for (int i = 0; i < 2000; i++) {
+            GeoPoint point = new GeoPoint(2 + 16 * random.nextDouble(), 12 + 16 * random.nextDouble());
+            assertEquals("containment mismatch at " + point, unindexed.contains(point), indexed.contains(point));
+        }
+    }
+
+    @Test
+    public void testContainsAll() {
+        Random random = new Random(5);
+        PreparedGeoPolygon prepared = SEATTLE.prepare();
+        int count = 1000;
+        double[] lats = new double[count + 10];
+        double[] lons = new double[count + 10];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = 47.4 + 0.4 * random.nextDouble();
+            lons[i] = -122.5 + 0.3 * random.nextDouble();
+        }
+        // Coordinates needing normalization
+        lats[15] = 180 - 47.613406;
+        lons[15] = -122.306365 + 180;
+
+        boolean[] out = new boolean[lats.length];
+        BitSet bits = new BitSet();
+        bits.set(0, lats.length);
+        prepared.containsAll(lats, lons, 10, count, out);
+        prepared.containsAll(lats, lons, 10, count, bits);
+
+        for (int i = 0; i < lats.length; i++) {
+            boolean expected = i >= 10 && SEATTLE.contains(new GeoPoint(lats[i], lons[i]));
+            assertEquals("batch result " + i, expected, out[i]);
+            assertEquals("batch bit " + i, expected || i < 10, bits.get(i));
+        }
+        assertTrue(out[15]);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testContainsAllRange() {
+        SEATTLE.prepare().containsAll(new double[4], new double[4], 2, 3, new boolean[4]);
+    }
+
+    /**
+     * Simple polygon with a wavy perimeter around the given center, unlike the random polygons which may cross
+     * themselves when they have many vertices
+     */
+    static GeoPolygon wavyPolygon(double centerLat, double centerLon, double radiusDegrees, int vertexCount) {
+        List<GeoPoint> vertices = new ArrayList<>();
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            double radius = radiusDegrees * (1 + 0.3 * Math.sin(7 * angle));
+            vertices.add(new GeoPoint(centerLat + radius * Math.sin(angle), centerLon + radius * Math.cos(angle)));
+        }
+        return new GeoPolygon(vertices);
+    }
+
+    /**
+     * Intersection test comparing every pair of edges
+     */
+    static boolean bruteForceIntersects(GeoPolygon a, GeoPolygon b) {
+        PreparedGeoPolygon pa = new PreparedGeoPolygon(a, false);
+        PreparedGeoPolygon pb = new PreparedGeoPolygon(b, false);
+        for (int i = 0; i < pa.edgeCount; i++) {
+            int j = (i > 0) ? i - 1 : pa.edgeCount - 1;
+            for (int k = 0; k < pb.edgeCount; k++) {
+                int l = (k > 0) ? k - 1 : pb.edgeCount - 1;
+                if (GeoVectors.arcsCross(pa.x[i], pa.y[i], pa.z[i], pa.x[j], pa.y[j], pa.z[j],
+                        pb.x[k], pb.y[k], pb.z[k], pb.x[l], pb.y[l], pb.z[l])) {
+                    return true;
+                }
+            }
+        }
+        return a.contains(b.vertices.get(0)) || b.contains(a.vertices.get(0));
+    }
+
+    @Test
+    public void testIntersectsMatchesBruteForce() {
+        Random random = new Random(23);
+        GeoPolygon[] large = {
+                wavyPolygon(20, 30, 15, 2000),
+                wavyPolygon(0, 178, 10, 800)
+        };
+        int intersecting = 0;
+        int contained = 0;
+        for (GeoPolygon polygon : large) {
+            assertTrue(polygon.isSimple());
+            PreparedGeoPolygon prepared = polygon.prepare();
+            assertTrue(prepared.hasEdgeIndex());
+            GeoBounds bounds = polygon.getBounds();
+            for (int i = 0; i < 150; i++) {
+                double lat = bounds.getMinLatDegrees() - 3 +
+                        (bounds.getMaxLatDegrees() - bounds.getMinLatDegrees() + 6) * random.nextDouble();
+                double lon = bounds.getWestDegrees() - 3 + (bounds.lonSpan * 180 / Math.PI + 6) * random.nextDouble();
+                GeoPolygon small = randomPolygon(random, lat, lon, 0.2 + 3 * random.nextDouble(),
+                        3 + random.nextInt(30));
+                PreparedGeoPolygon other = small.prepare();
+
+                boolean expected = bruteForceIntersects(polygon, small);
+                assertEquals(expected, prepared.intersects(other));
+                assertEquals(expected, other.intersects(prepared));
+                assertEquals(!expected, prepared.isDisjoint(other));
+                if (expected) intersecting++;
+
+                boolean contains = prepared.contains(other);
+                assertFalse(other.contains(prepared));
+                if (contains) {
+                    contained++;
+                    assertTrue(expected);
+                    for (GeoPoint vertex : small.vertices) {
+                        assertTrue(prepared.contains(vertex));
+                    }
+                }
+            }
+        }
+        assertTrue(intersecting > 50);
+        assertTrue(contained > 10);
+    }
+
+    static double bruteForceDistance(GeoPolygon polygon, GeoPoint point) {
+        double best = Double.POSITIVE_INFINITY;
+        int n = polygon.vertices.size();
+        for (int i = 0; i < n; i++) {
+            GeoArc edge = new GeoArc(polygon.vertices.get(i), polygon.vertices.get((i > 0) ? i - 1 : n - 1));
+            best = Math.min(best, edge.distanceTo(point));
+        }
+        return best;
+    }
+
+    @Test
+    public void testDistanceToBoundary() {
+        Random random = new Random(25);
+        GeoPolygon[] polygons = {
+                wavyPolygon(20, 30, 15, 2000),
+                wavyPolygon(-5, 178, 10, 800),
+                wavyPolygon(80, 0, 6, 300),
+                randomPolygon(random, -30, -60, 5, 12),
+                new GeoPolygon(new GeoPoint(0, 0), new GeoPoint(1, 1))
+        };
+        for (GeoPolygon polygon : polygons) {
+            PreparedGeoPolygon prepared = polygon.prepare();
+            GeoBounds bounds = polygon.getBounds();
+            for (int i = 0; i < 2000; i++) {
+                // Mostly near the polygon, some anywhere
+                GeoPoint point;
+                if (i % 4 == 0) {
+                    point = new GeoPoint(-90 + 180 * random.nextDouble(), -180 + 360 * random.nextDouble());
+                }
+                else {
+                    point = new GeoPoint(
+                            bounds.getMinLatDegrees() - 5 +
+                                    (bounds.getMaxLatDegrees() - bounds.getMinLatDegrees() + 10) * random.nextDouble(),
+                            bounds.getWestDegrees() - 5 + (bounds.lonSpan * 180 / Math.PI + 10) * random.nextDouble());
+                }
+                double expected = bruteForceDistance(polygon, point);
+                double distance = prepared.distanceToBoundary(point);
+                assertEquals(expected, distance, 1e-6);
+
+                double buffer = 200000 * random.nextDouble();
+                assertEquals(expected <= buffer, prepared.isNearBoundary(point, buffer));
+                boolean inside = prepared.contains(point);
+                assertEquals(inside || expected <= buffer, prepared.containsBuffered(point, buffer));
+                assertEquals(inside && expected > buffer, prepared.containsBuffered(point, -buffer));
+            }
+        }
+        assertEquals(Double.POSITIVE_INFINITY, new GeoPolygon().prepare().distanceToBoundary(new GeoPoint(0, 0)), 0);
+    }
+
+    @Test
+    public void testContainsBuffered() {
+        GeoPolygon square = new GeoPolygon(
+                new GeoPoint(10, -10),
+                new GeoPoint(10, 10),
+                new GeoPoint(-10, 10),
+                new GeoPoint(-10, -10)
+        );
+        double degree = GeoArc.EARTH_RADIUS_METRES * Math.PI / 180;
+        GeoPoint outside = new GeoPoint(0, 11);
+        GeoPoint inside = new GeoPoint(0, 9);
+        assertEquals(degree, square.distanceToBoundary(outside), 1e-6);
+
+        assertFalse(square.containsBuffered(outside, 0.9 * degree));
+        assertTrue(square.containsBuffered(outside, 1.1 * degree));
+        assertTrue(square.containsBuffered(inside, 0));
+        assertTrue(square.containsBuffered(inside, -0.9 * degree));
+        assertFalse(square.containsBuffered(inside, -1.1 * degree));
+        assertFalse(square.containsBuffered(outside, Double.NaN));
+    }
+}
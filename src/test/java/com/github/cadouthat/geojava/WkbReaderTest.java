@@ -0,0 +1,125 @@
+package com.github.cadouthat.geojava;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WkbReaderTest {
+
+    static final double[][] OUTER = {{0, 0}, {10, 0}, {10, 10}, {0, 10}, {0, 0}};
+    static final double[][] HOLE = {{4, 4}, {4, 6}, {6, 6}, {6, 4}, {4, 4}};
+    static final double[][] EAST = {{20, 0}, {30, 0}, {30, 10}, {20, 10}, {20, 0}};
+
+    static void putHeader(ByteBuffer buffer, int type) {
+        buffer.put((byte)(buffer.order() == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+        buffer.putInt(type);
+    }
+
+    static void putPolygon(ByteBuffer buffer, int type, int dimensions, double[][]... rings) {
+        putHeader(buffer, type);
+        buffer.putInt(rings.length);
+        for (double[][] ring : rings) {
+            buffer.putInt(ring.length);
+            for (double[] point : ring) {
+                buffer.putDouble(point[0]).putDouble(point[1]);
+                for (int d = 2; d < dimensions; d++) buffer.putDouble(99);
+            }
+        }
+    }
+
+    @Test
+    public void testSequence() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        // Little-endian polygon with a hole
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        putPolygon(buffer, 3, 2, OUTER, HOLE);
+
+        // Point and line string are skipped
+        putHeader(buffer, 1);
+        buffer.putDouble(1).putDouble(2);
+        putHeader(buffer, 2);
+        buffer.putInt(2).putDouble(1).putDouble(2).putDouble(3).putDouble(4);
+
+        // Big-endian extended WKB multipolygon with SRID and Z, containing ISO Z polygons
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        putHeader(buffer, 6 | WkbReader.EWKB_Z | WkbReader.EWKB_SRID);
+        buffer.putInt(4326);
+        buffer.putInt(2);
+        putPolygon(buffer, 1003, 3, OUTER);
+        putPolygon(buffer, 1003, 3, EAST);
+
+        // Geometry collection holding a ZM polygon
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        putHeader(buffer, 7);
+        buffer.putInt(1);
+        putPolygon(buffer, 3003, 4, EAST);
+
+        WkbReader reader = new WkbReader(new ByteArrayInputStream(Arrays.copyOf(buffer.array(), buffer.position())));
+
+        GeoMultiPolygon withHole = reader.next();
+        assertEquals(2, withHole.getRings().size());
+        assertEquals(4, withHole.getRings().get(0).vertices.size());
+        assertTrue(withHole.contains(new GeoPoint(2, 2)));
+        assertFalse(withHole.contains(new GeoPoint(5, 5)));
+
+        GeoMultiPolygon multi = reader.next();
+        assertEquals(2, multi.getRings().size());
+        assertTrue(multi.contains(new GeoPoint(5, 5)));
+        assertTrue(multi.contains(new GeoPoint(5, 25)));
+        assertFalse(multi.contains(new GeoPoint(5, 15)));
+
+        GeoMultiPolygon collection = reader.next();
+        assertEquals(1, collection.getRings().size());
+        assertTrue(collection.contains(new GeoPoint(5, 25)));
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testLargePolygon() throws IOException {
+        int count = 5000;
+        double[][] ring = new double[count][];
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * i / count;
+            ring[i] = new double[] {10 * Math.cos(angle), 10 * Math.sin(angle)};
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(16 * count + 64).order(ByteOrder.LITTLE_ENDIAN);
+        putPolygon(buffer, 3, 2, ring);
+
+        WkbReader reader = new WkbReader(new ByteArrayInputStream(Arrays.copyOf(buffer.array(), buffer.position())));
+        GeoPolygon polygon = reader.next().getRings().get(0);
+        assertEquals(count, polygon.vertices.size());
+        for (int i = 0; i < count; i++) {
+            GeoPoint expected = new GeoPoint(ring[i][1], ring[i][0]);
+            assertEquals(expected.lat, polygon.vertices.get(i).lat, 0);
+            assertEquals(expected.lon, polygon.vertices.get(i).lon, 0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        putPolygon(buffer, 3, 2, OUTER);
+        new WkbReader(new ByteArrayInputStream(Arrays.copyOf(buffer.array(), buffer.position() - 4))).next();
+    }
+
+    @Test(expected = IOException.class)
+    public void testHugePointCount() throws IOException {
+        // A ring claiming far more points than the input holds fails at the end of the input, without first
+        // allocating room for every claimed point
+        ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        putHeader(buffer, 3);
+        buffer.putInt(1).putInt(Integer.MAX_VALUE).putDouble(1).putDouble(2);
+        new WkbReader(new ByteArrayInputStream(Arrays.copyOf(buffer.array(), buffer.position()))).next();
+    }
+}